@@ -0,0 +1,209 @@
+package autonomous;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import autonomous.commands.AutonomousCommand;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Builds the selected autonomous routine on a low priority background thread
+ * while the robot is disabled, so autonomous() only has to pick it up. Selecting
+ * a different routine throws away whatever was built and starts again
+ *
+ * @author 3419
+ *
+ */
+public class AutonomousPreparer {
+
+	/**
+	 * A built routine and which selection it was built for
+	 */
+	private static class PreparedRoutine {
+		final int index;
+		final int generation;
+		final ArrayList<AutonomousCommand> commands;
+
+		PreparedRoutine(int pIndex, int pGeneration, ArrayList<AutonomousCommand> pCommands) {
+			index = pIndex;
+			generation = pGeneration;
+			commands = pCommands;
+		}
+	}
+
+	private RoutineRegistry mRegistry;
+
+	// what should be built; written under this, mSelected also read without it
+	private volatile int mSelected = -1;
+	private int mGeneration;
+
+	// what has been built, handed over atomically
+	private AtomicReference<PreparedRoutine> mPrepared = new AtomicReference<PreparedRoutine>();
+
+	// held while preparing; routines hand out the same command objects every
+	// time, so take() can't use them while they're being prepared
+	private final Object mBuildLock = new Object();
+
+	/**
+	 * @param pRegistry
+	 *            routines to pick from
+	 */
+	public AutonomousPreparer(RoutineRegistry pRegistry) {
+		mRegistry = pRegistry;
+		Thread thread = new Thread(this::run, "Autonomous Preparer");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Starts building a routine in the background, unless it's already built or
+	 * being built
+	 *
+	 * @param pIndex
+	 *            registry index of the routine to build
+	 */
+	public synchronized void select(int pIndex) {
+		if (pIndex == mSelected) {
+			return;
+		}
+		mSelected = pIndex;
+		mGeneration++;
+		mPrepared.set(null);
+		notifyAll();
+	}
+
+	/**
+	 * Throws away the built routine and builds the selected one again, after the
+	 * registry has rebuilt some routines
+	 */
+	public synchronized void invalidate() {
+		mGeneration++;
+		mPrepared.set(null);
+		notifyAll();
+	}
+
+	/**
+	 * @return whether the selected routine is built and waiting
+	 */
+	public boolean isPrepared() {
+		PreparedRoutine prepared = mPrepared.get();
+		return prepared != null && prepared.index == mSelected;
+	}
+
+	/**
+	 * Takes the prepared commands for a routine. If they aren't ready, waits for
+	 * them if they're still building, and otherwise builds them here. Either way
+	 * the background thread stops preparing anything else
+	 *
+	 * @param pIndex
+	 *            registry index of the routine to run
+	 * @return commands, ready to start
+	 */
+	public ArrayList<AutonomousCommand> take(int pIndex) {
+		PreparedRoutine prepared = mPrepared.getAndSet(null);
+		if (prepared != null && prepared.index == pIndex) {
+			return prepared.commands;
+		}
+
+		boolean selected;
+		synchronized (this) {
+			selected = mSelected == pIndex;
+			if (!selected) {
+				// a different routine; stop building it and don't wait for it
+				cancel();
+			}
+		}
+
+		if (selected) {
+			// this routine may be partway built; finish it rather than start over
+			synchronized (mBuildLock) {
+				prepared = mPrepared.getAndSet(null);
+				if (prepared != null && prepared.index == pIndex) {
+					return prepared.commands;
+				}
+				synchronized (this) {
+					cancel();
+				}
+				// still holding the lock, so the background thread can't start on these commands too
+				return build(pIndex);
+			}
+		}
+		return build(pIndex);
+	}
+
+	/**
+	 * Stops the background thread building anything, and throws away what it
+	 * built. Call holding this
+	 */
+	private void cancel() {
+		mSelected = -1;
+		mGeneration++;
+		mPrepared.set(null);
+		notifyAll();
+	}
+
+	private synchronized boolean isCurrent(int pGeneration) {
+		return pGeneration == mGeneration;
+	}
+
+	/**
+	 * Builds a routine that wasn't prepared in time, on this thread
+	 */
+	private ArrayList<AutonomousCommand> build(int pIndex) {
+		DriverStation.reportWarning("Autonomous routine " + mRegistry.getName(pIndex) + " wasn't prepared, building it now",
+				false);
+		return mRegistry.get(pIndex).getAutonomousCommands();
+	}
+
+	private void run() {
+		int builtGeneration = 0;
+		while (true) {
+			int index;
+			int generation;
+			synchronized (this) {
+				while (mGeneration == builtGeneration) {
+					try {
+						wait();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+				}
+				index = mSelected;
+				generation = mGeneration;
+			}
+			builtGeneration = generation;
+			if (index < 0) {
+				continue; // cancelled by take()
+			}
+
+			synchronized (mBuildLock) {
+				if (!isCurrent(generation)) {
+					continue; // taken or reselected while waiting for the lock
+				}
+				try {
+					ArrayList<AutonomousCommand> commands = mRegistry.get(index).getAutonomousCommands();
+					boolean cancelled = false;
+					for (AutonomousCommand command : commands) {
+						if (!isCurrent(generation)) {
+							cancelled = true;
+							break;
+						}
+						command.prepare();
+					}
+					// only hand it over if nothing else got selected meanwhile
+					synchronized (this) {
+						if (!cancelled && generation == mGeneration) {
+							mPrepared.set(new PreparedRoutine(index, generation, commands));
+						}
+					}
+				}
+				catch (RuntimeException e) {
+					DriverStation.reportError("Preparing autonomous routine " + mRegistry.getName(index) + " failed: " + e,
+							false);
+				}
+			}
+		}
+	}
+}
@@ -3,8 +3,20 @@ package autonomous;
 import java.util.ArrayList;
 
 import autonomous.commands.AutonomousCommand;
+import constants.AutoConstants;
+import resource.Pose;
 
 public interface AutonomousRoutine {
 	
 	ArrayList<AutonomousCommand> getAutonomousCommands();
+
+	/**
+	 * Where the robot is put on the field for this routine. Odometry is reset to
+	 * it when autonomous starts
+	 * 
+	 * @return field relative pose
+	 */
+	default Pose getStartPose() {
+		return new Pose(AutoConstants.StartPose.X, AutoConstants.StartPose.Y, AutoConstants.StartPose.HEADING);
+	}
 }
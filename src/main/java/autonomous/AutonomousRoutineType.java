@@ -1,6 +0,0 @@
-package autonomous;
-
-public enum AutonomousRoutineType {
-	DEFAULT,
-	DO_NOTHING;
-}
@@ -0,0 +1,305 @@
+package autonomous;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import autonomous.commands.AutonomousCommand;
+import autonomous.commands.BaseAutonomousCommand;
+import autonomous.commands.DistanceDriveCommand;
+import autonomous.commands.HatchCommand;
+import autonomous.commands.LeadscrewCommand;
+import autonomous.commands.MacroReplayCommand;
+import autonomous.commands.ParallelCommandGroup;
+import autonomous.commands.ParallelDeadlineGroup;
+import autonomous.commands.ParallelRaceGroup;
+import autonomous.commands.PlannedDriveCommand;
+import autonomous.commands.SequentialCommandGroup;
+import autonomous.commands.StopCommand;
+import autonomous.commands.TrajectoryFollowCommand;
+import autonomous.commands.TurnRobotToAngleCommand;
+import autonomous.commands.TurnWheelsToAngleCommand;
+import autonomous.commands.WaitCommand;
+import autonomous.paths.AutoPath;
+import autonomous.paths.OptimizedPath;
+import autonomous.paths.Trajectory;
+import autonomous.profiles.SCurveProfile;
+import autonomous.profiles.TrapezoidProfile;
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Robot;
+import resource.Pose;
+
+/**
+ * Turns a routine file into commands. One command per line, arguments split by
+ * spaces, anything after a # ignored:
+ *
+ * <pre>
+ * start X Y HEADING                            where the robot is put on the field; first line only
+ * distance ANGLE DISTANCE SPEED ACCEL [JERK]   drive straight; S-curve if JERK is given
+ * trajectory NAME                              follow an AutoPath from where the robot is,
+ *                                              or an OptimizedPath from its first waypoint
+ * macro NAME                                   play back a macro recorded in teleop
+ * drive_to X Y HEADING                         plan a way to a field position and drive it
+ * turn ANGLE                                   turn the robot
+ * wheels ANGLE                                 point the wheels
+ * leadscrew POSITION                           move the leadscrew, inches from the right end
+ * hatch expand | contract | in | out           move a hatch intake piston
+ * stop
+ * wait SECONDS
+ * sequence | parallel | race | deadline {      group the lines up to the matching }
+ * </pre>
+ *
+ * Any command or group can end with "timeout SECONDS". The first command in a
+ * deadline group is the deadline. Commands in a parallel group can't share a
+ * subsystem, so only leadscrew, hatch and wait can run next to a drive command
+ *
+ * @author 3419
+ *
+ */
+public class RoutineParser {
+
+	private Robot mRobot;
+
+	private String mSource;
+	private List<String> mLines;
+	private int mLineIndex;
+	private Pose mStartPose;
+
+	/**
+	 * @param pRobot
+	 *            robot the commands will drive
+	 */
+	public RoutineParser(Robot pRobot) {
+		mRobot = pRobot;
+	}
+
+	/**
+	 * Builds the commands for a routine
+	 *
+	 * @param pSource
+	 *            where the lines came from, for error messages
+	 * @param pLines
+	 *            routine file lines
+	 * @return top level commands, in order
+	 * @throws IllegalArgumentException
+	 *             if the routine isn't valid
+	 */
+	public ArrayList<AutonomousCommand> parse(String pSource, List<String> pLines) {
+		mSource = pSource;
+		mLines = pLines;
+		mLineIndex = 0;
+		mStartPose = null;
+
+		return parseBlock(false);
+	}
+
+	/**
+	 * @return the start line of the last routine parsed, or null if it didn't
+	 *         have one
+	 */
+	public Pose getStartPose() {
+		return mStartPose;
+	}
+
+	/**
+	 * Parses lines up to the end of the file, or up to a closing brace if in a
+	 * group
+	 */
+	private ArrayList<AutonomousCommand> parseBlock(boolean pInGroup) {
+		ArrayList<AutonomousCommand> commands = new ArrayList<AutonomousCommand>();
+		while (mLineIndex < mLines.size()) {
+			String[] tokens = tokenize(mLines.get(mLineIndex));
+			if (tokens.length == 0) {
+				mLineIndex++;
+				continue;
+			}
+			if (tokens[0].equals("}")) {
+				if (!pInGroup) {
+					throw error("unmatched }");
+				}
+				if (tokens.length > 1) {
+					throw error("nothing can follow } on its line");
+				}
+				return commands;
+			}
+			if (tokens[0].equals("start")) {
+				if (pInGroup || !commands.isEmpty() || mStartPose != null) {
+					throw error("start has to be the first line");
+				}
+				expectArguments(tokens[0], tokens.length - 1, 3);
+				mStartPose = new Pose(number(tokens[1]), number(tokens[2]), number(tokens[3]));
+				mLineIndex++;
+				continue;
+			}
+			commands.add(parseCommand(tokens));
+		}
+		if (pInGroup) {
+			throw error("missing }");
+		}
+		return commands;
+	}
+
+	/**
+	 * Parses one command line, and the group body if it opens one
+	 */
+	private AutonomousCommand parseCommand(String[] pTokens) {
+		int end = pTokens.length;
+		boolean opensGroup = pTokens[end - 1].equals("{");
+		if (opensGroup) {
+			end--;
+		}
+
+		double timeout = 0;
+		if (end >= 3 && pTokens[end - 2].equals("timeout")) {
+			timeout = number(pTokens[end - 1]);
+			end -= 2;
+		}
+
+		String name = pTokens[0];
+		int arguments = end - 1;
+		BaseAutonomousCommand command;
+
+		if (opensGroup) {
+			mLineIndex++;
+			command = parseGroup(name, arguments);
+		}
+		else {
+			command = parseSimpleCommand(name, pTokens, arguments);
+		}
+		mLineIndex++;
+
+		if (timeout > 0) {
+			command.withTimeout(timeout);
+		}
+		return command;
+	}
+
+	private BaseAutonomousCommand parseGroup(String pName, int pArguments) {
+		int groupLine = mLineIndex;
+		expectArguments(pName, pArguments, 0);
+		ArrayList<AutonomousCommand> children = parseBlock(true);
+		AutonomousCommand[] commands = children.toArray(new AutonomousCommand[children.size()]);
+
+		try {
+			switch (pName) {
+			case "sequence":
+				return new SequentialCommandGroup(commands);
+			case "parallel":
+				return new ParallelCommandGroup(commands);
+			case "race":
+				return new ParallelRaceGroup(commands);
+			case "deadline":
+				if (commands.length == 0) {
+					throw new IllegalArgumentException("deadline needs at least one command");
+				}
+				AutonomousCommand[] others = new AutonomousCommand[commands.length - 1];
+				System.arraycopy(commands, 1, others, 0, others.length);
+				return new ParallelDeadlineGroup(commands[0], others);
+			default:
+				throw new IllegalArgumentException("unknown group " + pName);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			mLineIndex = groupLine - 1;
+			throw error(e.getMessage());
+		}
+	}
+
+	private BaseAutonomousCommand parseSimpleCommand(String pName, String[] pTokens, int pArguments) {
+		switch (pName) {
+		case "distance":
+			if (pArguments == 4) {
+				return new DistanceDriveCommand(mRobot, number(pTokens[1]),
+						new TrapezoidProfile(number(pTokens[2]), number(pTokens[3]), number(pTokens[4])));
+			}
+			expectArguments(pName, pArguments, 5);
+			return new DistanceDriveCommand(mRobot, number(pTokens[1]), new SCurveProfile(number(pTokens[2]),
+					number(pTokens[3]), number(pTokens[4]), number(pTokens[5])));
+		case "trajectory":
+			expectArguments(pName, pArguments, 1);
+			for (AutoPath path : AutoPath.values()) {
+				if (path.name().equals(pTokens[1])) {
+					return new TrajectoryFollowCommand(mRobot, path.load());
+				}
+			}
+			for (OptimizedPath path : OptimizedPath.values()) {
+				if (path.name().equals(pTokens[1])) {
+					// optimized paths are planned around the field, so follow them from where they start
+					Trajectory trajectory = path.load();
+					TrajectoryFollowCommand command = new TrajectoryFollowCommand(mRobot, trajectory);
+					command.setTrajectory(trajectory, path.getOrigin());
+					return command;
+				}
+			}
+			throw error("unknown trajectory " + pTokens[1]);
+		case "macro":
+			expectArguments(pName, pArguments, 1);
+			File file = new File(new File(Filesystem.getDeployDirectory(), AutoConstants.Macros.DIRECTORY),
+					pTokens[1] + AutoConstants.Macros.EXTENSION);
+			try {
+				return new MacroReplayCommand(mRobot, file);
+			}
+			catch (IllegalArgumentException e) {
+				throw error(e.getMessage());
+			}
+		case "drive_to":
+			expectArguments(pName, pArguments, 3);
+			return new PlannedDriveCommand(mRobot, mRobot.getTrajectoryCache(),
+					new Pose(number(pTokens[1]), number(pTokens[2]), number(pTokens[3])));
+		case "turn":
+			expectArguments(pName, pArguments, 1);
+			return new TurnRobotToAngleCommand(mRobot, number(pTokens[1]));
+		case "wheels":
+			expectArguments(pName, pArguments, 1);
+			return new TurnWheelsToAngleCommand(mRobot, number(pTokens[1]));
+		case "leadscrew":
+			expectArguments(pName, pArguments, 1);
+			return new LeadscrewCommand(mRobot, number(pTokens[1]));
+		case "hatch":
+			expectArguments(pName, pArguments, 1);
+			for (HatchCommand.Action action : HatchCommand.Action.values()) {
+				if (action.name().equalsIgnoreCase(pTokens[1])) {
+					return new HatchCommand(mRobot, action);
+				}
+			}
+			throw error("unknown hatch action " + pTokens[1]);
+		case "stop":
+			expectArguments(pName, pArguments, 0);
+			return new StopCommand(mRobot);
+		case "wait":
+			expectArguments(pName, pArguments, 1);
+			return new WaitCommand(number(pTokens[1]));
+		default:
+			throw error("unknown command " + pName);
+		}
+	}
+
+	private String[] tokenize(String pLine) {
+		int comment = pLine.indexOf('#');
+		if (comment >= 0) {
+			pLine = pLine.substring(0, comment);
+		}
+		pLine = pLine.trim();
+		return pLine.isEmpty() ? new String[0] : pLine.split("\\s+");
+	}
+
+	private void expectArguments(String pName, int pArguments, int pExpected) {
+		if (pArguments != pExpected) {
+			throw error(pName + " takes " + pExpected + " arguments, got " + pArguments);
+		}
+	}
+
+	private double number(String pToken) {
+		try {
+			return Double.parseDouble(pToken);
+		}
+		catch (NumberFormatException e) {
+			throw error("not a number: " + pToken);
+		}
+	}
+
+	private IllegalArgumentException error(String pMessage) {
+		return new IllegalArgumentException(mSource + ":" + (mLineIndex + 1) + ": " + pMessage);
+	}
+}
@@ -0,0 +1,195 @@
+package autonomous;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import autonomous.commands.AutonomousCommand;
+import autonomous.routines.DefaultRoutine;
+import autonomous.routines.DoNothingRoutine;
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Robot;
+import resource.Pose;
+
+/**
+ * Every autonomous routine that can be selected, by index. Routine files in the
+ * deploy directory are parsed once when this is made, so selecting and running
+ * a routine doesn't parse anything. The only time one is parsed again is when a
+ * macro it plays is recorded again
+ *
+ * @author 3419
+ *
+ */
+public class RoutineRegistry {
+
+	/**
+	 * A routine whose commands were built up front
+	 */
+	private static class PrebuiltRoutine implements AutonomousRoutine {
+		private ArrayList<AutonomousCommand> mCommands;
+		private Pose mStartPose;
+
+		/**
+		 * @param pStartPose
+		 *            from the file's start line; null for the default
+		 */
+		PrebuiltRoutine(ArrayList<AutonomousCommand> pCommands, Pose pStartPose) {
+			mCommands = pCommands;
+			mStartPose = pStartPose;
+		}
+
+		@Override
+		public ArrayList<AutonomousCommand> getAutonomousCommands() {
+			return new ArrayList<AutonomousCommand>(mCommands);
+		}
+
+		@Override
+		public Pose getStartPose() {
+			return mStartPose != null ? mStartPose : AutonomousRoutine.super.getStartPose();
+		}
+	}
+
+	private ArrayList<String> mNames = new ArrayList<String>();
+	private ArrayList<AutonomousRoutine> mRoutines = new ArrayList<AutonomousRoutine>();
+	private ArrayList<File> mFiles = new ArrayList<File>(); // null for the built in routines
+
+	private RoutineParser mParser;
+
+	/**
+	 * Parses every routine file in the deploy directory
+	 *
+	 * @param pRobot
+	 *            robot the commands will drive
+	 */
+	public RoutineRegistry(Robot pRobot) {
+		long startNanos = System.nanoTime();
+
+		mParser = new RoutineParser(pRobot);
+		File directory = new File(Filesystem.getDeployDirectory(), AutoConstants.Routines.DIRECTORY);
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(AutoConstants.Routines.EXTENSION));
+		if (files != null) {
+			Arrays.sort(files);
+			for (File file : files) {
+				String name = file.getName();
+				name = name.substring(0, name.length() - AutoConstants.Routines.EXTENSION.length());
+				AutonomousRoutine routine = load(file);
+				if (routine != null) {
+					add(name, routine, file);
+				}
+			}
+		}
+
+		double parseMillis = (System.nanoTime() - startNanos) / 1E6;
+		SmartDashboard.putNumber("Routines Loaded", mRoutines.size());
+		SmartDashboard.putNumber("Routine Load Time", parseMillis);
+
+		// keep something to run if the files didn't make it onto the robot
+		if (indexOf(AutoConstants.Routines.DEFAULT_NAME) < 0) {
+			add(AutoConstants.Routines.DEFAULT_NAME, new DefaultRoutine(pRobot), null);
+		}
+		add(AutoConstants.Routines.DO_NOTHING_NAME, new DoNothingRoutine(), null);
+	}
+
+	private void add(String pName, AutonomousRoutine pRoutine, File pFile) {
+		mNames.add(pName);
+		mRoutines.add(pRoutine);
+		mFiles.add(pFile);
+	}
+
+	/**
+	 * @return the routine in a file, or null if it can't be read or building its
+	 *         commands fails
+	 */
+	private AutonomousRoutine load(File pFile) {
+		try {
+			ArrayList<AutonomousCommand> commands = mParser.parse(pFile.getName(),
+					Files.readAllLines(pFile.toPath(), StandardCharsets.UTF_8));
+			return new PrebuiltRoutine(commands, mParser.getStartPose());
+		}
+		catch (IOException | RuntimeException e) {
+			// one broken routine (or a command that throws while it's built) shouldn't stop the rest loading
+			DriverStation.reportWarning("Skipping autonomous routine " + pFile.getName() + ": " + e.getMessage(), false);
+			return null;
+		}
+	}
+
+	/**
+	 * Parses again every routine that plays a macro, so they map the new recording.
+	 * Commands already handed out keep playing the old one. A routine that no
+	 * longer parses keeps its old commands
+	 *
+	 * @param pMacroName
+	 *            macro name, the file name without extension
+	 * @return how many routines were rebuilt
+	 */
+	public synchronized int reloadMacro(String pMacroName) {
+		int reloaded = 0;
+		for (int i = 0; i < mFiles.size(); i++) {
+			File file = mFiles.get(i);
+			if (file == null || !playsMacro(file, pMacroName)) {
+				continue;
+			}
+			AutonomousRoutine routine = load(file);
+			if (routine != null) {
+				mRoutines.set(i, routine);
+				reloaded++;
+			}
+		}
+		return reloaded;
+	}
+
+	/**
+	 * @return whether a routine file has a "macro NAME" line for the macro
+	 */
+	private static boolean playsMacro(File pFile, String pMacroName) {
+		try {
+			for (String line : Files.readAllLines(pFile.toPath(), StandardCharsets.UTF_8)) {
+				int comment = line.indexOf('#');
+				String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+				if (tokens.length > 1 && tokens[0].equals("macro") && tokens[1].equals(pMacroName)) {
+					return true;
+				}
+			}
+		}
+		catch (IOException e) {
+		}
+		return false;
+	}
+
+	/**
+	 * @return how many routines there are to pick from
+	 */
+	public int size() {
+		return mRoutines.size();
+	}
+
+	public synchronized AutonomousRoutine get(int pIndex) {
+		return mRoutines.get(pIndex);
+	}
+
+	public String getName(int pIndex) {
+		return mNames.get(pIndex);
+	}
+
+	/**
+	 * @param pName
+	 *            routine name, the file name without extension
+	 * @return index of that routine, or -1 if there isn't one
+	 */
+	public int indexOf(String pName) {
+		return mNames.indexOf(pName);
+	}
+
+	/**
+	 * @return index of the routine to start with
+	 */
+	public int getDefaultIndex() {
+		return indexOf(AutoConstants.Routines.DEFAULT_NAME);
+	}
+}
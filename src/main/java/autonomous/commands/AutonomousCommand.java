@@ -3,5 +3,9 @@ package autonomous.commands;
 public interface AutonomousCommand {
 	
 	void startup();
+	void prepare();//called ahead of time, off the main loop: load and warm up anything slow
 	boolean runCommand();//true if complete, false if still running
+	void end(boolean pInterrupted);//called once after the command stops; interrupted if it didn't finish by itself
+	boolean isTimedOut();//true once the command has run longer than it's allowed to
+	int getRequirements();//Requirements bits for the subsystems this command drives
 }
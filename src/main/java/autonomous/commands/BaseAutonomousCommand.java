@@ -3,11 +3,54 @@ package autonomous.commands;
 public abstract class BaseAutonomousCommand implements AutonomousCommand {
 	protected long mTimeStartMillis;
 
+	private long mTimeoutMillis = 0; // 0 for no timeout
+	private int mRequirements = Requirements.NONE;
+
 	public void startup() 
 	{
 		mTimeStartMillis = System.currentTimeMillis();
 	}
 
+	public void prepare() 
+	{
+	}
+
+	public void end(boolean pInterrupted) 
+	{
+	}
+
+	/**
+	 * Stops the command if it hasn't finished after some time
+	 * 
+	 * @param pSeconds
+	 *            longest the command can run
+	 * @return this command
+	 */
+	public BaseAutonomousCommand withTimeout(double pSeconds) 
+	{
+		mTimeoutMillis = (long) (pSeconds * 1000);
+		return this;
+	}
+
+	public boolean isTimedOut() 
+	{
+		return mTimeoutMillis > 0 && getMillisecondsSinceStart() >= mTimeoutMillis;
+	}
+
+	public int getRequirements() 
+	{
+		return mRequirements;
+	}
+
+	/**
+	 * @param pRequirements
+	 *            Requirements bits for subsystems this command drives
+	 */
+	protected void addRequirements(int pRequirements) 
+	{
+		mRequirements |= pRequirements;
+	}
+
 	protected long getMillisecondsSinceStart() 
 	{
 		return System.currentTimeMillis() - mTimeStartMillis;
@@ -0,0 +1,60 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Base for auto commands made out of other commands. Children are stepped through
+ *  runChild(), which ends them when they finish or time out.
+ */
+public abstract class CommandGroup extends BaseAutonomousCommand {
+
+	protected AutonomousCommand[] mCommands;
+
+	/**
+	 * @param pCommands
+	 *            commands in the group
+	 * @param pParallel
+	 *            whether the commands run at the same time; if so they can't share
+	 *            requirements
+	 */
+	protected CommandGroup(AutonomousCommand[] pCommands, boolean pParallel) 
+	{
+		mCommands = pCommands;
+		for (AutonomousCommand command : pCommands) {
+			if (pParallel && (getRequirements() & command.getRequirements()) != 0) {
+				throw new IllegalArgumentException("Commands running in parallel can't share requirements: "
+						+ Integer.toBinaryString(getRequirements() & command.getRequirements()));
+			}
+			addRequirements(command.getRequirements());
+		}
+	}
+
+	@Override
+	public void prepare() 
+	{
+		for (AutonomousCommand command : mCommands) {
+			command.prepare();
+		}
+	}
+
+	/**
+	 * Runs a command for one loop
+	 * 
+	 * @param pCommand
+	 *            command, already started
+	 * @return true if the command is done; it has been ended
+	 */
+	public static boolean runChild(AutonomousCommand pCommand) 
+	{
+		if (pCommand.runCommand()) {
+			pCommand.end(false);
+			return true;
+		}
+		if (pCommand.isTimedOut()) {
+			pCommand.end(true);
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,106 @@
+package autonomous.commands;
+
+import autonomous.profiles.MotionProfile;
+import autonomous.profiles.ProfileState;
+import constants.AutoConstants;
+import frc.robot.Robot;
+import resource.Pose;
+import resource.ResourceFunctions;
+import robotcode.driving.DriveTrain;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that drives the Robot a set distance in a straight line towards angle (mAngle),
+ *  following a motion profile. Speed is the profile velocity plus a correction for how far
+ *  odometry says we've actually gone. The profile already limits acceleration, so it drives
+ *  through enactChassisSpeeds, and holds the starting heading itself.
+ */
+public class DistanceDriveCommand extends BaseAutonomousCommand {
+
+	private Robot mRobot;
+
+	private double mAngle;
+	private MotionProfile mProfile;
+	private ProfileState mState;
+
+	// where we started and which way we're going, field relative
+	private double mStartX;
+	private double mStartY;
+	private double mStartHeading;
+	private double mDirectionX;
+	private double mDirectionY;
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pAngle
+	 *            robot relative direction to drive
+	 * @param pProfile
+	 *            profile to follow, in inches
+	 */
+	public DistanceDriveCommand(Robot pRobot, double pAngle, MotionProfile pProfile) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
+		mAngle = pAngle;
+		mProfile = pProfile;
+		mState = new ProfileState();
+	}
+
+	@Override
+	public void prepare() 
+	{
+		for (double time = 0; time <= mProfile.getDuration(); time += AutoConstants.PREPARE_TIME_STEP) {
+			mProfile.sample(time, mState);
+		}
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		Pose pose = mRobot.getDriveTrain().getEstimatedPose();
+		mStartX = pose.getX();
+		mStartY = pose.getY();
+		mStartHeading = pose.getHeading();
+		double direction = Math.toRadians(pose.getHeading() + mAngle);
+		mDirectionX = Math.cos(direction);
+		mDirectionY = Math.sin(direction);
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		double time = getMillisecondsSinceStart() / 1000.0;
+		mProfile.sample(time, mState);
+
+		// distance covered so far along the direction we're driving
+		DriveTrain driveTrain = mRobot.getDriveTrain();
+		Pose pose = driveTrain.getEstimatedPose();
+		double travelled = (pose.getX() - mStartX) * mDirectionX + (pose.getY() - mStartY) * mDirectionY;
+		double error = mState.position - travelled;
+
+		boolean isThisCommandDone = time >= mProfile.getDuration()
+				&& (Math.abs(error) < AutoConstants.DistanceDrive.TOLERANCE
+						|| time >= mProfile.getDuration() + AutoConstants.DistanceDrive.TIMEOUT);
+
+		if (isThisCommandDone) {
+			driveTrain.enactChassisSpeeds(0, 0, 0);
+			return true;
+		}
+
+		// field relative velocity along the starting direction, then to robot relative
+		double speed = mState.velocity + AutoConstants.DistanceDrive.P * error;
+		double velX = speed * mDirectionX;
+		double velY = speed * mDirectionY;
+		double cos = Math.cos(Math.toRadians(pose.getHeading()));
+		double sin = Math.sin(Math.toRadians(pose.getHeading()));
+		double turnRate = AutoConstants.DistanceDrive.HEADING_P
+				* ResourceFunctions.continuousAngleDif(mStartHeading, pose.getHeading());
+		driveTrain.enactChassisSpeeds(velX * cos + velY * sin, -velX * sin + velY * cos, Math.toRadians(turnRate));
+
+		return false;
+	}
+
+}
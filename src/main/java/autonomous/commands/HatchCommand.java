@@ -0,0 +1,58 @@
+package autonomous.commands;
+
+import frc.robot.Robot;
+import robotcode.systems.HatchIntake;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that moves one of the hatch intake pistons. Finishes right away; follow it with
+ *  a wait if the piston has to finish moving first. Only requires the hatch intake, so it can
+ *  run in a group next to a drive command.
+ */
+public class HatchCommand extends BaseAutonomousCommand {
+
+	public enum Action {
+		EXPAND,
+		CONTRACT,
+		IN,
+		OUT
+	}
+
+	private Robot mRobot;
+
+	private Action mAction;
+
+	public HatchCommand(Robot pRobot, Action pAction) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.HATCH_INTAKE);
+		mAction = pAction;
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		HatchIntake hatchIntake = mRobot.getHatchIntake();
+		if (hatchIntake == null) {
+			return true;
+		}
+
+		switch (mAction) {
+			case EXPAND:
+				hatchIntake.expand();
+				break;
+			case CONTRACT:
+				hatchIntake.contract();
+				break;
+			case IN:
+				hatchIntake.in();
+				break;
+			case OUT:
+				hatchIntake.out();
+				break;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,48 @@
+package autonomous.commands;
+
+import frc.robot.Robot;
+import robotcode.systems.Leadscrew;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that moves the leadscrew to a position and waits for it to get there. Only
+ *  requires the leadscrew, so it can run in a group next to a drive command.
+ */
+public class LeadscrewCommand extends BaseAutonomousCommand {
+
+	private Robot mRobot;
+
+	private double mPosition;
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pPosition
+	 *            inches from the right end
+	 */
+	public LeadscrewCommand(Robot pRobot, double pPosition) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.LEADSCREW);
+		mPosition = pPosition;
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		Leadscrew leadscrew = mRobot.getLeadscrew();
+		if (leadscrew != null) {
+			leadscrew.setPosition(mPosition);
+		}
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		Leadscrew leadscrew = mRobot.getLeadscrew();
+		return leadscrew == null || leadscrew.isInRange();
+	}
+
+}
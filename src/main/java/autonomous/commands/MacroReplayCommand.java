@@ -0,0 +1,120 @@
+package autonomous.commands;
+
+import java.io.File;
+
+import autonomous.macros.MacroFile;
+import autonomous.macros.MacroReader;
+import constants.HatchIntakeConstants;
+import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
+import frc.robot.Robot;
+import robotcode.systems.HatchIntake;
+import robotcode.systems.Leadscrew;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that plays back a macro recorded in teleop: every loop it sends the drive train
+ *  and mechanisms whatever they were sent at the same time into the recording. The drive gets
+ *  the chassis command the modules got, so nothing is read from the controller. Frames are read
+ *  from the mapped file as they come up.
+ */
+public class MacroReplayCommand extends BaseAutonomousCommand {
+
+	private static final Value[] PISTON_VALUES = Value.values();
+
+	private Robot mRobot;
+	private MacroReader mReader;
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pFile
+	 *            macro file
+	 * @throws IllegalArgumentException
+	 *             if the file can't be read as a macro
+	 */
+	public MacroReplayCommand(Robot pRobot, File pFile) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE | Requirements.HATCH_INTAKE | Requirements.LEADSCREW);
+		mReader = MacroReader.open(pFile);
+		if (mReader == null) {
+			throw new IllegalArgumentException("not a macro file: " + pFile);
+		}
+	}
+
+	/**
+	 * Decodes the whole macro once so the file is paged in
+	 */
+	@Override
+	public void prepare() 
+	{
+		mReader.rewind();
+		while (mReader.hasNext()) {
+			mReader.next();
+		}
+		mReader.rewind();
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		mReader.rewind();
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		if (mReader.getFrameCount() == 0) {
+			return true;
+		}
+
+		// catch up to the last frame that's due
+		double time = getMillisecondsSinceStart() / 1000.0;
+		if (mReader.getFramesRead() == 0) {
+			mReader.next();
+		}
+		while (mReader.hasNext() && mReader.getNextTime() <= time) {
+			mReader.next();
+		}
+
+		mRobot.getDriveTrain().enactChassisSpeeds(mReader.get(MacroFile.VELOCITY_X), 
+												  mReader.get(MacroFile.VELOCITY_Y),
+												  mReader.get(MacroFile.ANGULAR_VELOCITY));
+
+		HatchIntake hatchIntake = mRobot.getHatchIntake();
+		if (hatchIntake != null) {
+			if (PISTON_VALUES[(int) mReader.get(MacroFile.HATCH_ROTARY)] == HatchIntakeConstants.RotaryPiston.OPEN) {
+				hatchIntake.expand();
+			}
+			else {
+				hatchIntake.contract();
+			}
+			if (PISTON_VALUES[(int) mReader.get(MacroFile.HATCH_LINEAR)] == HatchIntakeConstants.LinearPiston.OPEN) {
+				hatchIntake.out();
+			}
+			else {
+				hatchIntake.in();
+			}
+		}
+
+		Leadscrew leadscrew = mRobot.getLeadscrew();
+		if (leadscrew != null) {
+			leadscrew.setSpeed(mReader.get(MacroFile.LEADSCREW_OUTPUT));
+		}
+
+		return !mReader.hasNext();
+	}
+
+	@Override
+	public void end(boolean pInterrupted) 
+	{
+		mRobot.getDriveTrain().enactChassisSpeeds(0, 0, 0);
+		Leadscrew leadscrew = mRobot.getLeadscrew();
+		if (leadscrew != null) {
+			leadscrew.setSpeed(0);
+		}
+	}
+
+}
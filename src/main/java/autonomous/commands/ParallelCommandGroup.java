@@ -0,0 +1,53 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that runs commands at the same time, and finishes once all of them have.
+ */
+public class ParallelCommandGroup extends CommandGroup {
+
+	protected boolean[] mRunning;
+
+	public ParallelCommandGroup(AutonomousCommand... pCommands) 
+	{
+		super(pCommands, true);
+		mRunning = new boolean[pCommands.length];
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		for (int i = 0; i < mCommands.length; i++) {
+			mCommands[i].startup();
+			mRunning[i] = true;
+		}
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		boolean anyRunning = false;
+		for (int i = 0; i < mCommands.length; i++) {
+			if (mRunning[i]) {
+				mRunning[i] = !runChild(mCommands[i]);
+				anyRunning |= mRunning[i];
+			}
+		}
+		return !anyRunning;
+	}
+
+	@Override
+	public void end(boolean pInterrupted) 
+	{
+		// anything still going didn't get to finish
+		for (int i = 0; i < mCommands.length; i++) {
+			if (mRunning[i]) {
+				mCommands[i].end(true);
+				mRunning[i] = false;
+			}
+		}
+	}
+
+}
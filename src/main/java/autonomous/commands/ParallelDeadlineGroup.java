@@ -0,0 +1,37 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that runs commands at the same time as a deadline command, and finishes when
+ *  the deadline does. Anything still running then is interrupted.
+ */
+public class ParallelDeadlineGroup extends ParallelCommandGroup {
+
+	/**
+	 * @param pDeadline
+	 *            command that decides when the group is done
+	 * @param pCommands
+	 *            commands to run alongside it
+	 */
+	public ParallelDeadlineGroup(AutonomousCommand pDeadline, AutonomousCommand... pCommands) 
+	{
+		super(withDeadline(pDeadline, pCommands));
+	}
+
+	private static AutonomousCommand[] withDeadline(AutonomousCommand pDeadline, AutonomousCommand[] pCommands) 
+	{
+		AutonomousCommand[] commands = new AutonomousCommand[pCommands.length + 1];
+		commands[0] = pDeadline;
+		System.arraycopy(pCommands, 0, commands, 1, pCommands.length);
+		return commands;
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		super.runCommand();
+		return !mRunning[0];
+	}
+
+}
@@ -0,0 +1,29 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that runs commands at the same time, and finishes as soon as any one of them
+ *  does. The rest are interrupted.
+ */
+public class ParallelRaceGroup extends ParallelCommandGroup {
+
+	public ParallelRaceGroup(AutonomousCommand... pCommands) 
+	{
+		super(pCommands);
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		boolean anyFinished = false;
+		for (int i = 0; i < mCommands.length; i++) {
+			if (mRunning[i] && runChild(mCommands[i])) {
+				mRunning[i] = false;
+				anyFinished = true;
+			}
+		}
+		return anyFinished || mCommands.length == 0;
+	}
+
+}
@@ -0,0 +1,118 @@
+package autonomous.commands;
+
+import autonomous.paths.Path;
+import constants.AutoConstants;
+import constants.DriveConstants;
+import frc.robot.Robot;
+import resource.Pose;
+import resource.ResourceFunctions;
+import robotcode.driving.DriveTrain;
+import robotcode.driving.DriveTrain.LinearVelocity;
+import robotcode.driving.DriveTrain.RotationalVelocity;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that drives the Robot along a path without turning it. The path is relative to
+ *  where the Robot is when the command starts: x forward, y to the right. Each loop it heads for
+ *  a point a little further along the path than the closest one (pure pursuit).
+ */
+public class PathDriveCommand extends BaseAutonomousCommand {
+
+	private Robot mRobot;
+
+	private Path mPath;
+	private double mSpeed;
+
+	// robot pose when the command started
+	private double mStartX;
+	private double mStartY;
+	private double mStartCos;
+	private double mStartSin;
+	private double mStartHeading;
+
+	private int mClosestIndex;
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pPath
+	 *            path to drive, relative to the starting pose
+	 * @param pSpeed
+	 *            cruising speed, inches per second
+	 */
+	public PathDriveCommand(Robot pRobot, Path pPath, double pSpeed) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
+		mPath = pPath;
+		mSpeed = pSpeed;
+	}
+
+	public PathDriveCommand(Robot pRobot, Path pPath) 
+	{
+		this(pRobot, pPath, AutoConstants.PathDrive.SPEED);
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		Pose pose = mRobot.getDriveTrain().getEstimatedPose();
+		mStartX = pose.getX();
+		mStartY = pose.getY();
+		mStartHeading = pose.getHeading();
+		mStartCos = Math.cos(Math.toRadians(mStartHeading));
+		mStartSin = Math.sin(Math.toRadians(mStartHeading));
+		mClosestIndex = 0;
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		DriveTrain driveTrain = mRobot.getDriveTrain();
+
+		// robot position in the path's frame
+		Pose pose = driveTrain.getEstimatedPose();
+		double fieldDX = pose.getX() - mStartX;
+		double fieldDY = pose.getY() - mStartY;
+		double x = fieldDX * mStartCos + fieldDY * mStartSin;
+		double y = -fieldDX * mStartSin + fieldDY * mStartCos;
+
+		// closest sample, only searching forwards so crossings don't skip ahead
+		double searchEnd = mPath.getDistance(mClosestIndex) + AutoConstants.PathDrive.SEARCH_DISTANCE;
+		double closestDistSq = Double.MAX_VALUE;
+		for (int i = mClosestIndex; i < mPath.size() && mPath.getDistance(i) <= searchEnd; i++) {
+			double dx = mPath.getX(i) - x;
+			double dy = mPath.getY(i) - y;
+			double distSq = dx * dx + dy * dy;
+			if (distSq < closestDistSq) {
+				closestDistSq = distSq;
+				mClosestIndex = i;
+			}
+		}
+
+		int last = mPath.size() - 1;
+		double remaining = Math.hypot(mPath.getX(last) - x, mPath.getY(last) - y);
+		boolean isThisCommandDone = mClosestIndex == last || (mPath.getLength() - mPath.getDistance(mClosestIndex)
+				< AutoConstants.PathDrive.LOOKAHEAD && remaining < AutoConstants.PathDrive.TOLERANCE);
+
+		// head for the lookahead point; slow down for the end
+		int target = mPath.getIndexAtDistance(mPath.getDistance(mClosestIndex) + AutoConstants.PathDrive.LOOKAHEAD);
+		double pathAngle = Math.toDegrees(Math.atan2(mPath.getY(target) - y, mPath.getX(target) - x));
+		double robotAngle = ResourceFunctions.putAngleInRange(pathAngle + mStartHeading - pose.getHeading());
+		double speed = Math.min(mSpeed, Math.sqrt(2 * AutoConstants.PathDrive.END_DECELERATION * remaining));
+		if (isThisCommandDone) {
+			speed = 0;
+		}
+
+		driveTrain.enactMovement(driveTrain.getRobotAngle(), 
+								 robotAngle, 
+								 LinearVelocity.NORMAL, 
+								 speed / DriveConstants.DRIVE_FREE_SPEED,
+								 RotationalVelocity.NONE);
+
+		return isThisCommandDone;
+	}
+
+}
@@ -0,0 +1,118 @@
+package autonomous.commands;
+
+import autonomous.paths.Trajectory;
+import autonomous.planning.TrajectoryCache;
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Robot;
+import resource.Pose;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that drives the Robot to a spot on the field, around anything in the way. The
+ *  trajectory comes from the cache if the Robot has been asked to go there from about here
+ *  before, otherwise it's planned on the cache's thread while the Robot holds still. Finishes
+ *  right away if there's no way there, or if the drive train doesn't know where on the field it
+ *  is yet.
+ */
+public class PlannedDriveCommand extends BaseAutonomousCommand {
+
+	private Robot mRobot;
+	private TrajectoryCache mTrajectoryCache;
+	private Pose mGoal;
+
+	private TrajectoryFollowCommand mFollower;
+	private Pose mOrigin;
+	private boolean mHasTrajectory;
+	private int mRequest; // planning request waiting on, 0 for none
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pTrajectoryCache
+	 *            where to get trajectories; can be shared with other commands
+	 * @param pGoal
+	 *            where to end up, field relative
+	 */
+	public PlannedDriveCommand(Robot pRobot, TrajectoryCache pTrajectoryCache, Pose pGoal) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
+		mTrajectoryCache = pTrajectoryCache;
+		mGoal = pGoal;
+		mFollower = new TrajectoryFollowCommand(pRobot, null);
+		mOrigin = new Pose();
+	}
+
+	/**
+	 * Plans once from the usual start pose, so the planner is warmed up and a
+	 * drive from there is cached
+	 */
+	@Override
+	public void prepare() 
+	{
+		mTrajectoryCache.getTrajectory(new Pose(AutoConstants.StartPose.X, AutoConstants.StartPose.Y,
+				AutoConstants.StartPose.HEADING), mGoal, new Pose());
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		mHasTrajectory = false;
+		mRequest = 0;
+		if (!mRobot.getDriveTrain().isPoseSeeded()) {
+			// the pose is relative to where the robot was turned on, not the field
+			DriverStation.reportWarning("Pose not seeded, not driving to " + mGoal, false);
+			return;
+		}
+		Pose pose = mRobot.getDriveTrain().getEstimatedPose();
+		Trajectory trajectory = mTrajectoryCache.getCachedTrajectory(pose, mGoal, mOrigin);
+		if (trajectory != null) {
+			follow(trajectory);
+		}
+		else {
+			mRequest = mTrajectoryCache.requestTrajectory(pose, mGoal);
+		}
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		if (mRequest != 0) {
+			if (!mTrajectoryCache.isDone(mRequest)) {
+				mRobot.getDriveTrain().enactChassisSpeeds(0, 0, 0);
+				return false;
+			}
+			Trajectory trajectory = mTrajectoryCache.getResult(mRequest, mOrigin);
+			mRequest = 0;
+			if (trajectory == null) {
+				DriverStation.reportWarning("No path to " + mGoal, false);
+				return true;
+			}
+			follow(trajectory);
+		}
+		if (!mHasTrajectory) {
+			return true;
+		}
+		return mFollower.runCommand();
+	}
+
+	@Override
+	public void end(boolean pInterrupted) 
+	{
+		if ((mHasTrajectory || mRequest != 0) && pInterrupted) {
+			mRobot.getDriveTrain().enactChassisSpeeds(0, 0, 0);
+		}
+		mRequest = 0;
+	}
+
+	private void follow(Trajectory pTrajectory) 
+	{
+		mHasTrajectory = true;
+		mFollower.setTrajectory(pTrajectory, mOrigin);
+		mFollower.startup();
+	}
+
+}
@@ -0,0 +1,23 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Bits for the subsystems an auto command drives. Commands OR together the ones they use,
+ *  and commands that run at the same time can't share any.
+ */
+public class Requirements {
+
+	public static final int 
+		NONE = 0,
+		DRIVE = 1 << 0,
+		LEADSCREW = 1 << 1,
+		HATCH_INTAKE = 1 << 2,
+		BALL_INTAKE = 1 << 3,
+		CLIMBER = 1 << 4;
+
+	private Requirements() 
+	{
+	}
+
+}
@@ -0,0 +1,71 @@
+package autonomous.commands;
+
+import java.util.List;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that runs commands one after another. Each one is started the loop after the
+ *  previous one finishes.
+ */
+public class SequentialCommandGroup extends CommandGroup {
+
+	private int mCurrentIndex;
+	private boolean mCurrentStarted;
+
+	public SequentialCommandGroup(AutonomousCommand... pCommands) 
+	{
+		super(pCommands, false);
+	}
+
+	public SequentialCommandGroup(List<AutonomousCommand> pCommands) 
+	{
+		this(pCommands.toArray(new AutonomousCommand[pCommands.size()]));
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		mCurrentIndex = 0;
+		mCurrentStarted = false;
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		if (mCurrentIndex >= mCommands.length) {
+			return true;
+		}
+
+		AutonomousCommand command = mCommands[mCurrentIndex];
+		if (!mCurrentStarted) {
+			command.startup();
+			mCurrentStarted = true;
+		}
+
+		if (runChild(command)) {
+			mCurrentIndex++;
+			mCurrentStarted = false;
+		}
+		return mCurrentIndex >= mCommands.length;
+	}
+
+	@Override
+	public void end(boolean pInterrupted) 
+	{
+		if (mCurrentStarted) {
+			mCommands[mCurrentIndex].end(true);
+			mCurrentStarted = false;
+		}
+	}
+
+	/**
+	 * @return index of the command running now; the number of commands once done
+	 */
+	public int getCurrentIndex() 
+	{
+		return mCurrentIndex;
+	}
+
+}
@@ -18,6 +18,7 @@ public class StopCommand extends BaseAutonomousCommand {
 	public StopCommand (Robot pRobot) 
 	{
 		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
 	}
 
 	@Override
@@ -25,6 +25,7 @@ public class StraightLineDriveCommand extends BaseAutonomousCommand {
 			long pTotalMilliseconds) 
 	{
 		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
 		mAngle = pAngle;
 		mInitialVelocity = pInitialVelocity;
 		mFinalVelocity = pFinalVelocity;
@@ -0,0 +1,133 @@
+package autonomous.commands;
+
+import autonomous.paths.Trajectory;
+import autonomous.paths.TrajectoryState;
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Robot;
+import resource.Pose;
+import resource.ResourceFunctions;
+import robotcode.driving.DriveTrain;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that follows a timed trajectory, relative to where the Robot is when the command
+ *  starts (or to a given origin pose). Drives the trajectory's velocity (feedforward) plus a correction for how far odometry
+ *  says the Robot is off in x, y and heading (feedback).
+ */
+public class TrajectoryFollowCommand extends BaseAutonomousCommand {
+
+	private Robot mRobot;
+
+	private Trajectory mTrajectory;
+	private TrajectoryState mState;
+	private Pose mOrigin; // null to start from wherever the robot is
+
+	// pose the trajectory is relative to
+	private double mStartX;
+	private double mStartY;
+	private double mStartCos;
+	private double mStartSin;
+	private double mStartHeading;
+
+	/**
+	 * @param pRobot
+	 *            robot
+	 * @param pTrajectory
+	 *            trajectory to follow, relative to the starting pose
+	 */
+	public TrajectoryFollowCommand(Robot pRobot, Trajectory pTrajectory) 
+	{
+		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
+		mTrajectory = pTrajectory;
+		mState = new TrajectoryState();
+	}
+
+	/**
+	 * Reads through the whole trajectory once so the file is paged in and the
+	 * sampling code is compiled before the match
+	 */
+	@Override
+	public void prepare() 
+	{
+		for (double time = 0; time <= mTrajectory.getDuration(); time += AutoConstants.PREPARE_TIME_STEP) {
+			mTrajectory.sample(time, mState);
+		}
+	}
+
+	/**
+	 * Changes what to follow next time the command starts
+	 * 
+	 * @param pTrajectory
+	 *            trajectory to follow
+	 * @param pOrigin
+	 *            field pose the trajectory is relative to; null for wherever the
+	 *            robot is when the command starts
+	 */
+	public void setTrajectory(Trajectory pTrajectory, Pose pOrigin) 
+	{
+		mTrajectory = pTrajectory;
+		mOrigin = pOrigin;
+	}
+
+	@Override
+	public void startup() 
+	{
+		super.startup();
+		Pose pose = mOrigin != null ? mOrigin : mRobot.getDriveTrain().getEstimatedPose();
+		mStartX = pose.getX();
+		mStartY = pose.getY();
+		mStartHeading = pose.getHeading();
+		mStartCos = Math.cos(Math.toRadians(mStartHeading));
+		mStartSin = Math.sin(Math.toRadians(mStartHeading));
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		double time = getMillisecondsSinceStart() / 1000.0;
+		mTrajectory.sample(time, mState);
+
+		// robot pose in the trajectory's frame
+		DriveTrain driveTrain = mRobot.getDriveTrain();
+		Pose pose = driveTrain.getEstimatedPose();
+		double fieldDX = pose.getX() - mStartX;
+		double fieldDY = pose.getY() - mStartY;
+		double x = fieldDX * mStartCos + fieldDY * mStartSin;
+		double y = -fieldDX * mStartSin + fieldDY * mStartCos;
+		double robotHeading = pose.getHeading() - mStartHeading;
+
+		double errorX = mState.x - x;
+		double errorY = mState.y - y;
+		double errorHeading = ResourceFunctions.continuousAngleDif(mState.robotHeading, robotHeading);
+
+		boolean isThisCommandDone = time >= mTrajectory.getDuration()
+				&& (Math.hypot(errorX, errorY) < AutoConstants.TrajectoryFollow.TOLERANCE
+						|| time >= mTrajectory.getDuration() + AutoConstants.TrajectoryFollow.TIMEOUT);
+
+		SmartDashboard.putNumber("Trajectory Error X", errorX);
+		SmartDashboard.putNumber("Trajectory Error Y", errorY);
+		SmartDashboard.putNumber("Trajectory Error Heading", errorHeading);
+
+		if (isThisCommandDone) {
+			driveTrain.enactChassisSpeeds(0, 0, 0);
+			return true;
+		}
+
+		// feedforward + feedback, in the trajectory's frame
+		double heading = Math.toRadians(mState.heading);
+		double velX = mState.velocity * Math.cos(heading) + AutoConstants.TrajectoryFollow.POSITION_P * errorX;
+		double velY = mState.velocity * Math.sin(heading) + AutoConstants.TrajectoryFollow.POSITION_P * errorY;
+		double turnRate = mState.robotTurnRate + AutoConstants.TrajectoryFollow.HEADING_P * errorHeading;
+
+		// to robot relative
+		double cos = Math.cos(Math.toRadians(robotHeading));
+		double sin = Math.sin(Math.toRadians(robotHeading));
+		driveTrain.enactChassisSpeeds(velX * cos + velY * sin, -velX * sin + velY * cos, Math.toRadians(turnRate));
+
+		return false;
+	}
+
+}
@@ -18,6 +18,7 @@ public class TurnRobotToAngleCommand extends BaseAutonomousCommand {
 	public TurnRobotToAngleCommand(Robot pRobot, double pAngle) 
 	{
 		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
 		mAngle = pAngle;
 	}
 
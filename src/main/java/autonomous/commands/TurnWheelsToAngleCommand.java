@@ -18,6 +18,7 @@ public class TurnWheelsToAngleCommand extends BaseAutonomousCommand {
 	public TurnWheelsToAngleCommand(Robot pRobot, double pAngle) 
 	{
 		mRobot = pRobot;
+		addRequirements(Requirements.DRIVE);
 		mAngle = pAngle;
 	}
 
@@ -0,0 +1,24 @@
+package autonomous.commands;
+
+/**
+ * 
+ * @author 3419
+ *	Auto command that does nothing for a set time. Doesn't require any subsystem, so it can be
+ *  put in a group to hold it open.
+ */
+public class WaitCommand extends BaseAutonomousCommand {
+
+	private long mMilliseconds;
+
+	public WaitCommand(double pSeconds) 
+	{
+		mMilliseconds = (long) (pSeconds * 1000);
+	}
+
+	@Override
+	public boolean runCommand() 
+	{
+		return getMillisecondsSinceStart() >= mMilliseconds;
+	}
+
+}
@@ -0,0 +1,105 @@
+package autonomous.macros;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary macro files: what teleop commanded every loop, so it can be played
+ * back as an autonomous routine
+ *
+ * Layout, little endian:
+ * 	int magic, int format version, int channels, int frames,
+ * 	then one frame per loop
+ *
+ * Each frame is a short with a bit set for every channel that changed since the
+ * last frame, then for each of those the XOR of its new and old bits: a byte
+ * with how many zero bytes are on top (high nibble) and bottom (low nibble),
+ * and the bytes in between. Channels that didn't change cost nothing, and small
+ * changes only take a few bytes
+ *
+ * @author 3419
+ *
+ */
+public class MacroFile {
+
+	public static final int
+		MAGIC = 0x4F52434D, // "MCRO"
+		VERSION = 2,
+		HEADER_BYTES = 16;
+
+	// channels
+	public static final int
+		TIME = 0, // seconds since recording started
+		VELOCITY_X = 1, // chassis command sent to the modules, robot relative: inches per second
+		VELOCITY_Y = 2,
+		ANGULAR_VELOCITY = 3, // radians per second
+		HATCH_ROTARY = 4, // piston Value ordinal
+		HATCH_LINEAR = 5, // piston Value ordinal
+		LEADSCREW_OUTPUT = 6, // percent output
+		NUM_CHANNELS = 7;
+
+	public static final int
+		MAX_FRAME_BYTES = 2 + NUM_CHANNELS * 9; // changed mask, then a control byte and up to 8 bytes per channel
+
+	/**
+	 * Writes a frame and remembers it as the last one
+	 *
+	 * @param pOut
+	 *            where to write, at its position
+	 * @param pValues
+	 *            this frame's channels
+	 * @param pLastBits
+	 *            last frame's channels as raw bits; updated
+	 */
+	public static void writeFrame(ByteBuffer pOut, double[] pValues, long[] pLastBits) {
+		int maskPosition = pOut.position();
+		pOut.putShort((short) 0);
+
+		int changed = 0;
+		for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+			long bits = Double.doubleToRawLongBits(pValues[channel]);
+			long xor = bits ^ pLastBits[channel];
+			if (xor == 0) {
+				continue;
+			}
+			changed |= 1 << channel;
+			pLastBits[channel] = bits;
+
+			int leadingBytes = Long.numberOfLeadingZeros(xor) / 8;
+			int trailingBytes = Long.numberOfTrailingZeros(xor) / 8;
+			pOut.put((byte) ((leadingBytes << 4) | trailingBytes));
+			long middle = xor >>> (trailingBytes * 8);
+			for (int i = 8 - leadingBytes - trailingBytes; i > 0; i--) {
+				pOut.put((byte) middle);
+				middle >>>= 8;
+			}
+		}
+		pOut.putShort(maskPosition, (short) changed);
+	}
+
+	/**
+	 * Reads a frame on top of the last one
+	 *
+	 * @param pIn
+	 *            where to read, at its position
+	 * @param pBits
+	 *            last frame's channels as raw bits; updated to this frame's
+	 */
+	public static void readFrame(ByteBuffer pIn, long[] pBits) {
+		int changed = pIn.getShort() & 0xFFFF;
+		for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+			if ((changed & (1 << channel)) == 0) {
+				continue;
+			}
+			int control = pIn.get() & 0xFF;
+			int leadingBytes = control >>> 4;
+			int trailingBytes = control & 0xF;
+
+			long middle = 0;
+			int length = 8 - leadingBytes - trailingBytes;
+			for (int i = 0; i < length; i++) {
+				middle |= (pIn.get() & 0xFFL) << (8 * i);
+			}
+			pBits[channel] ^= middle << (trailingBytes * 8);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package autonomous.macros;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Steps through a memory mapped macro file one frame at a time. Only the
+ * current frame is decoded, so memory use doesn't depend on how long the
+ * recording is
+ *
+ * @author 3419
+ *
+ */
+public class MacroReader {
+
+	private MappedByteBuffer mData;
+	private int mFrames;
+
+	private long[] mBits = new long[MacroFile.NUM_CHANNELS];
+	private long[] mPeekBits = new long[MacroFile.NUM_CHANNELS];
+	private int mFrame;
+
+	private MacroReader(MappedByteBuffer pData, int pFrames) {
+		mData = pData;
+		mFrames = pFrames;
+		rewind();
+	}
+
+	/**
+	 * Memory maps a macro file
+	 *
+	 * @param pFile
+	 *            file to read
+	 * @return a reader before the first frame, or null if the file is missing or
+	 *         isn't a finished macro
+	 */
+	public static MacroReader open(File pFile) {
+		if (!pFile.isFile()) {
+			return null;
+		}
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(pFile.toPath(), StandardOpenOption.READ)) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch (IOException e) {
+			return null;
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		if (mapped.capacity() < MacroFile.HEADER_BYTES || mapped.getInt(0) != MacroFile.MAGIC
+				|| mapped.getInt(4) != MacroFile.VERSION || mapped.getInt(8) != MacroFile.NUM_CHANNELS
+				|| mapped.getInt(12) < 0) {
+			return null;
+		}
+		return new MacroReader(mapped, mapped.getInt(12));
+	}
+
+	/**
+	 * Goes back to before the first frame
+	 */
+	public void rewind() {
+		mData.position(MacroFile.HEADER_BYTES);
+		mFrame = 0;
+		for (int channel = 0; channel < MacroFile.NUM_CHANNELS; channel++) {
+			mBits[channel] = 0;
+		}
+	}
+
+	/**
+	 * @return whether there's another frame to read
+	 */
+	public boolean hasNext() {
+		return mFrame < mFrames;
+	}
+
+	/**
+	 * Moves to the next frame
+	 */
+	public void next() {
+		MacroFile.readFrame(mData, mBits);
+		mFrame++;
+	}
+
+	/**
+	 * Reads the time of the next frame without moving to it
+	 *
+	 * @return seconds since the recording started
+	 */
+	public double getNextTime() {
+		int position = mData.position();
+		System.arraycopy(mBits, 0, mPeekBits, 0, MacroFile.NUM_CHANNELS);
+		MacroFile.readFrame(mData, mPeekBits);
+		mData.position(position);
+		return Double.longBitsToDouble(mPeekBits[MacroFile.TIME]);
+	}
+
+	/**
+	 * @param pChannel
+	 *            MacroFile channel
+	 * @return that channel in the current frame
+	 */
+	public double get(int pChannel) {
+		return Double.longBitsToDouble(mBits[pChannel]);
+	}
+
+	public int getFrameCount() {
+		return mFrames;
+	}
+
+	/**
+	 * @return how many frames have been read since the start
+	 */
+	public int getFramesRead() {
+		return mFrame;
+	}
+}
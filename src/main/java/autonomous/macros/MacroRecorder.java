@@ -0,0 +1,201 @@
+package autonomous.macros;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Records what teleop commands every loop into a macro file. The drive train
+ * and the robot fill in their channels, then endLoop() writes the frame
+ *
+ * Frames go into a fixed buffer that's only written out when it fills up or
+ * recording stops, so a normal length recording never touches the disk from
+ * the loop
+ *
+ * The recording goes into a temporary file that replaces the macro in one
+ * rename when it's finished. A replay command may have the old file mapped;
+ * it keeps reading the old recording instead of one being written under it
+ *
+ * @author 3419
+ *
+ */
+public class MacroRecorder {
+
+	private double[] mValues = new double[MacroFile.NUM_CHANNELS];
+	private long[] mLastBits = new long[MacroFile.NUM_CHANNELS];
+	private ByteBuffer mBuffer;
+
+	private FileChannel mChannel;
+	private File mFile;
+	private File mTempFile;
+	private int mFrames;
+	private double mStartTime;
+
+	public MacroRecorder() {
+		mBuffer = ByteBuffer.allocateDirect(AutoConstants.Macros.RECORD_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Starts a new recording
+	 *
+	 * @param pFile
+	 *            file to record to; replaced when recording stops
+	 * @param pTime
+	 *            current time, seconds
+	 * @throws IOException
+	 *             if the file can't be opened
+	 */
+	public void start(File pFile, double pTime) throws IOException {
+		stop();
+		pFile.getParentFile().mkdirs();
+		mTempFile = new File(pFile.getParentFile(), pFile.getName() + AutoConstants.Macros.TEMP_EXTENSION);
+		mChannel = FileChannel.open(mTempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		mFile = pFile;
+		mFrames = 0;
+		mStartTime = pTime;
+		for (int channel = 0; channel < MacroFile.NUM_CHANNELS; channel++) {
+			mValues[channel] = 0;
+			mLastBits[channel] = 0;
+		}
+
+		// frame count is filled in when recording stops
+		mBuffer.clear();
+		mBuffer.putInt(MacroFile.MAGIC);
+		mBuffer.putInt(MacroFile.VERSION);
+		mBuffer.putInt(MacroFile.NUM_CHANNELS);
+		mBuffer.putInt(0);
+	}
+
+	public boolean isRecording() {
+		return mChannel != null;
+	}
+
+	/**
+	 * @return file of the current or last recording, null before the first
+	 */
+	public File getFile() {
+		return mFile;
+	}
+
+	/**
+	 * Records the chassis command the drive train sent the modules this loop
+	 *
+	 * @param pVelX
+	 *            forward velocity, inches per second
+	 * @param pVelY
+	 *            rightward velocity, inches per second
+	 * @param pAngularVel
+	 *            turn rate, radians per second
+	 */
+	public void recordDrive(double pVelX, double pVelY, double pAngularVel) {
+		mValues[MacroFile.VELOCITY_X] = pVelX;
+		mValues[MacroFile.VELOCITY_Y] = pVelY;
+		mValues[MacroFile.ANGULAR_VELOCITY] = pAngularVel;
+	}
+
+	/**
+	 * Records what the mechanisms are doing this loop
+	 *
+	 * @param pHatchRotary
+	 *            hatch rotary piston Value ordinal
+	 * @param pHatchLinear
+	 *            hatch linear piston Value ordinal
+	 * @param pLeadscrewOutput
+	 *            leadscrew percent output
+	 */
+	public void recordMechanisms(int pHatchRotary, int pHatchLinear, double pLeadscrewOutput) {
+		mValues[MacroFile.HATCH_ROTARY] = pHatchRotary;
+		mValues[MacroFile.HATCH_LINEAR] = pHatchLinear;
+		mValues[MacroFile.LEADSCREW_OUTPUT] = pLeadscrewOutput;
+	}
+
+	/**
+	 * Writes this loop's frame
+	 *
+	 * @param pTime
+	 *            current time, seconds
+	 */
+	public void endLoop(double pTime) {
+		if (mChannel == null) {
+			return;
+		}
+		if (mBuffer.remaining() < MacroFile.MAX_FRAME_BYTES && !flush()) {
+			return;
+		}
+		mValues[MacroFile.TIME] = pTime - mStartTime;
+		MacroFile.writeFrame(mBuffer, mValues, mLastBits);
+		mFrames++;
+	}
+
+	/**
+	 * Writes out whatever is left, closes the file and moves it over the macro
+	 *
+	 * @return whether a recording was stopped and saved
+	 */
+	public boolean stop() {
+		if (mChannel == null || !flush()) {
+			return false;
+		}
+		try {
+			ByteBuffer frames = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			frames.putInt(0, mFrames);
+			mChannel.write(frames, 12);
+			mChannel.force(false);
+			mChannel.close();
+			mChannel = null;
+			Files.move(mTempFile.toPath(), mFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			SmartDashboard.putNumber("Macro Frames Recorded", mFrames);
+			return true;
+		}
+		catch (IOException e) {
+			DriverStation.reportError("Couldn't finish macro " + mFile + ": " + e.getMessage(), false);
+			abandon();
+			return false;
+		}
+	}
+
+	/**
+	 * @return false if the write failed; recording is stopped
+	 */
+	private boolean flush() {
+		mBuffer.flip();
+		try {
+			while (mBuffer.hasRemaining()) {
+				mChannel.write(mBuffer);
+			}
+			mBuffer.clear();
+			return true;
+		}
+		catch (IOException e) {
+			DriverStation.reportError("Couldn't write macro " + mFile + ": " + e.getMessage(), false);
+			abandon();
+			return false;
+		}
+	}
+
+	/**
+	 * Closes and deletes the temporary file, leaving the macro as it was
+	 */
+	private void abandon() {
+		if (mChannel != null) {
+			try {
+				mChannel.close();
+			}
+			catch (IOException closeException) {
+			}
+			mChannel = null;
+		}
+		mTempFile.delete();
+	}
+}
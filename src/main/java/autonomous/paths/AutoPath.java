@@ -0,0 +1,114 @@
+package autonomous.paths;
+
+import java.io.File;
+
+import constants.AutoConstants;
+import constants.DriveConstants;
+import constants.RunConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import resource.Pose;
+
+/**
+ * Every path the autonomous routines drive. The trajectories are generated at
+ * build time (gradle generateTrajectories) into the deploy directory, and
+ * loaded from there on the robot
+ *
+ * @author 3419
+ *
+ */
+public enum AutoPath {
+	DEFAULT_S_CURVE(0, 0,
+			new Pose(0, 0, 0),
+			new Pose(48, 24, 45),
+			new Pose(96, 48, 0));
+
+	private double mStartRobotHeading;
+	private double mEndRobotHeading;
+	private Pose[] mWaypoints;
+
+	/**
+	 * @param pStartRobotHeading
+	 *            where the robot faces at the start, degrees
+	 * @param pEndRobotHeading
+	 *            where the robot faces at the end
+	 * @param pWaypoints
+	 *            poses to drive through, relative to the start
+	 */
+	private AutoPath(double pStartRobotHeading, double pEndRobotHeading, Pose... pWaypoints) {
+		mStartRobotHeading = pStartRobotHeading;
+		mEndRobotHeading = pEndRobotHeading;
+		mWaypoints = pWaypoints;
+	}
+
+	/**
+	 * Generates the trajectory from scratch
+	 *
+	 * @return trajectory
+	 */
+	public Trajectory generate() {
+		Path path = new PathGenerator().generate(mWaypoints);
+		return new TrajectoryGenerator().generate(path, mStartRobotHeading, mEndRobotHeading);
+	}
+
+	/**
+	 * Loads the pregenerated trajectory from the deploy directory, or generates it
+	 * if the file is missing or out of date
+	 *
+	 * @return trajectory
+	 */
+	public Trajectory load() {
+		File file = new File(new File(Filesystem.getDeployDirectory(), AutoConstants.Trajectories.DIRECTORY),
+				getFileName());
+		Trajectory trajectory = TrajectoryFile.read(file, getDefinitionHash(), true);
+		if (trajectory == null) {
+			DriverStation.reportWarning("Trajectory file " + file + " missing or stale, generating " + name(), false);
+			trajectory = generate();
+		}
+		return trajectory;
+	}
+
+	public String getFileName() {
+		return name().toLowerCase() + ".traj";
+	}
+
+	/**
+	 * Hash of everything the trajectory is generated from, so files from an older
+	 * path or older limits aren't used
+	 *
+	 * @return hash
+	 */
+	public long getDefinitionHash() {
+		long hash = 17;
+		hash = hash(hash, mStartRobotHeading);
+		hash = hash(hash, mEndRobotHeading);
+		for (Pose waypoint : mWaypoints) {
+			hash = hash(hash, waypoint.getX());
+			hash = hash(hash, waypoint.getY());
+			hash = hash(hash, waypoint.getHeading());
+		}
+		hash = hash(hash, AutoConstants.Paths.MAX_SEGMENT_LENGTH);
+		hash = hash(hash, AutoConstants.Paths.MAX_HEADING_CHANGE);
+		hash = hash(hash, AutoConstants.Paths.TANGENT_SCALE);
+		hash = hash(hash, AutoConstants.Paths.INITIAL_PIECES);
+		hash = hash(hash, AutoConstants.Paths.MIN_PARAMETER_STEP);
+		hash = hash(hash, AutoConstants.Trajectories.MAX_ACCELERATION);
+		hash = hash(hash, AutoConstants.Trajectories.MAX_CENTRIPETAL_ACCELERATION);
+		hash = hash(hash, DriveConstants.MAX_LINEAR_VELOCITY);
+		hash = hash(hash, DriveConstants.MAX_INDIVIDUAL_VELOCITY);
+		hash = hash(hash, DriveConstants.DRIVE_FREE_SPEED);
+		// module offsets set the robot radius the wheel speed limit uses
+		hash = hash(hash, RunConstants.IS_PROTOTYPE ? 1 : 0);
+		double[] xOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.X_OFF : DriveConstants.ActualRobot.X_OFF;
+		double[] yOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.Y_OFF : DriveConstants.ActualRobot.Y_OFF;
+		for (int i = 0; i < xOff.length; i++) {
+			hash = hash(hash, xOff[i]);
+			hash = hash(hash, yOff[i]);
+		}
+		return hash;
+	}
+
+	private static long hash(long pHash, double pValue) {
+		return pHash * 31 + Double.doubleToLongBits(pValue);
+	}
+}
@@ -0,0 +1,166 @@
+package autonomous.paths;
+
+import java.io.File;
+
+import constants.AutoConstants;
+import constants.DriveConstants;
+import constants.FieldConstants;
+import constants.RunConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import resource.Pose;
+
+/**
+ * Paths optimized for time offline (gradle optimizeTrajectories), around the
+ * field obstacles. Waypoints are field relative, since the optimizer has to
+ * know where the obstacles are; the trajectories it writes are relative to the
+ * start, like AutoPath's, but are followed from the first waypoint (see
+ * getOrigin) rather than from wherever the robot happens to be
+ *
+ * If the file is missing or stale, a spline through the same waypoints is used
+ * instead. That one doesn't know about obstacles, so keep the waypoints clear
+ * of them. The waypoints themselves are taken as given, even if they're closer
+ * to something than the robot radius
+ *
+ * @author 3419
+ *
+ */
+public enum OptimizedPath {
+	// starts a robot length off the platform, stops a robot radius short of the bays
+	CENTER_TO_CARGO_SHIP_FRONT(0, 0,
+			new Pose(FieldConstants.HAB_DEPTH + 32, FieldConstants.WIDTH / 2 - 10.875, 0),
+			new Pose(FieldConstants.CARGO_SHIP_FRONT_X - 30, FieldConstants.WIDTH / 2 - 10.875, 0)),
+	LEFT_TO_CARGO_SHIP_SIDE(0, 90,
+			new Pose(FieldConstants.HAB_DEPTH + 32, FieldConstants.WIDTH / 2 - 48, 0),
+			new Pose(FieldConstants.CARGO_SHIP_FRONT_X - 20, FieldConstants.WIDTH / 2 - 72, 0),
+			new Pose(FieldConstants.CARGO_SHIP_FRONT_X + 40.5,
+					(FieldConstants.WIDTH - FieldConstants.CARGO_SHIP_WIDTH) / 2 - 30, 0));
+
+	private double mStartRobotHeading;
+	private double mEndRobotHeading;
+	private Pose[] mWaypoints;
+
+	/**
+	 * @param pStartRobotHeading
+	 *            where the robot faces at the start, field relative degrees
+	 * @param pEndRobotHeading
+	 *            where the robot faces at the end
+	 * @param pWaypoints
+	 *            field poses to drive through, first is the start; headings are
+	 *            only used for the spline fallback
+	 */
+	private OptimizedPath(double pStartRobotHeading, double pEndRobotHeading, Pose... pWaypoints) {
+		mStartRobotHeading = pStartRobotHeading;
+		mEndRobotHeading = pEndRobotHeading;
+		mWaypoints = pWaypoints;
+	}
+
+	/**
+	 * Splines through the waypoints, for when there's no optimized trajectory
+	 *
+	 * @return trajectory, relative to the start
+	 */
+	public Trajectory generate() {
+		Pose[] relative = new Pose[mWaypoints.length];
+		double cos = Math.cos(Math.toRadians(mStartRobotHeading));
+		double sin = Math.sin(Math.toRadians(mStartRobotHeading));
+		for (int i = 0; i < mWaypoints.length; i++) {
+			double dx = mWaypoints[i].getX() - mWaypoints[0].getX();
+			double dy = mWaypoints[i].getY() - mWaypoints[0].getY();
+			relative[i] = new Pose(dx * cos + dy * sin, -dx * sin + dy * cos,
+					mWaypoints[i].getHeading() - mStartRobotHeading);
+		}
+		Path path = new PathGenerator().generate(relative);
+		return new TrajectoryGenerator().generate(path, 0, mEndRobotHeading - mStartRobotHeading);
+	}
+
+	/**
+	 * Loads the optimized trajectory from the deploy directory, or splines one if
+	 * the file is missing or out of date
+	 *
+	 * @return trajectory, relative to the start
+	 */
+	public Trajectory load() {
+		File file = new File(new File(Filesystem.getDeployDirectory(), AutoConstants.Trajectories.DIRECTORY),
+				getFileName());
+		Trajectory trajectory = TrajectoryFile.read(file, getDefinitionHash(), true);
+		if (trajectory == null) {
+			DriverStation.reportWarning("Trajectory file " + file + " missing or stale, splining " + name(), false);
+			trajectory = generate();
+		}
+		return trajectory;
+	}
+
+	public String getFileName() {
+		return "optimized_" + name().toLowerCase() + ".traj";
+	}
+
+	public double getStartRobotHeading() {
+		return mStartRobotHeading;
+	}
+
+	public double getEndRobotHeading() {
+		return mEndRobotHeading;
+	}
+
+	/**
+	 * @return field pose the trajectory is relative to: the first waypoint, facing
+	 *         the start robot heading
+	 */
+	public Pose getOrigin() {
+		return new Pose(mWaypoints[0].getX(), mWaypoints[0].getY(), mStartRobotHeading);
+	}
+
+	/**
+	 * @return field poses to drive through, first is the start
+	 */
+	public Pose[] getWaypoints() {
+		return mWaypoints;
+	}
+
+	/**
+	 * Hash of everything the optimizer works from, so files from an older path,
+	 * field or limits aren't used
+	 *
+	 * @return hash
+	 */
+	public long getDefinitionHash() {
+		long hash = 19;
+		hash = hash(hash, mStartRobotHeading);
+		hash = hash(hash, mEndRobotHeading);
+		for (Pose waypoint : mWaypoints) {
+			hash = hash(hash, waypoint.getX());
+			hash = hash(hash, waypoint.getY());
+		}
+		hash = hash(hash, FieldConstants.LENGTH);
+		hash = hash(hash, FieldConstants.WIDTH);
+		for (double[] obstacle : FieldConstants.OBSTACLES) {
+			for (double value : obstacle) {
+				hash = hash(hash, value);
+			}
+		}
+		hash = hash(hash, AutoConstants.Planner.ROBOT_RADIUS);
+		hash = hash(hash, AutoConstants.Optimizer.MAX_ANGULAR_ACCELERATION);
+		hash = hash(hash, AutoConstants.Optimizer.OBSTACLE_MARGIN);
+		hash = hash(hash, AutoConstants.Optimizer.SMOOTHING);
+		hash = hash(hash, AutoConstants.Optimizer.OUTPUT_TIME_STEP);
+		hash = hash(hash, AutoConstants.Optimizer.KNOTS_PER_SEGMENT);
+		hash = hash(hash, AutoConstants.Trajectories.MAX_ACCELERATION);
+		hash = hash(hash, DriveConstants.MAX_LINEAR_VELOCITY);
+		hash = hash(hash, DriveConstants.MAX_INDIVIDUAL_VELOCITY);
+		hash = hash(hash, DriveConstants.DRIVE_FREE_SPEED);
+		// module offsets set the wheel speed limits the optimizer turns against
+		hash = hash(hash, RunConstants.IS_PROTOTYPE ? 1 : 0);
+		double[] xOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.X_OFF : DriveConstants.ActualRobot.X_OFF;
+		double[] yOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.Y_OFF : DriveConstants.ActualRobot.Y_OFF;
+		for (int i = 0; i < xOff.length; i++) {
+			hash = hash(hash, xOff[i]);
+			hash = hash(hash, yOff[i]);
+		}
+		return hash;
+	}
+
+	private static long hash(long pHash, double pValue) {
+		return pHash * 31 + Double.doubleToLongBits(pValue);
+	}
+}
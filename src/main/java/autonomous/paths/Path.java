@@ -0,0 +1,108 @@
+package autonomous.paths;
+
+/**
+ * A path sampled into points, stored as one primitive array of
+ * (x, y, heading, curvature, distance) so it is compact and cheap to walk
+ *
+ * x is forward and y is to the right, in inches. Heading is the direction of
+ * travel in degrees, same direction as the gyro. Curvature is the change in
+ * heading per inch, in radians. Distance is measured along the path from the
+ * first point
+ *
+ * @author 3419
+ *
+ */
+public class Path {
+
+	public static final int
+		X = 0,
+		Y = 1,
+		HEADING = 2,
+		CURVATURE = 3,
+		DISTANCE = 4,
+		STRIDE = 5;
+
+	private double[] mSamples;
+	private int mSize;
+
+	/**
+	 * @param pSamples
+	 *            samples, STRIDE values each; not copied
+	 * @param pSize
+	 *            number of samples
+	 */
+	public Path(double[] pSamples, int pSize) {
+		mSamples = pSamples;
+		mSize = pSize;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public double getX(int pIndex) {
+		return mSamples[pIndex * STRIDE + X];
+	}
+
+	public double getY(int pIndex) {
+		return mSamples[pIndex * STRIDE + Y];
+	}
+
+	public double getHeading(int pIndex) {
+		return mSamples[pIndex * STRIDE + HEADING];
+	}
+
+	public double getCurvature(int pIndex) {
+		return mSamples[pIndex * STRIDE + CURVATURE];
+	}
+
+	public double getDistance(int pIndex) {
+		return mSamples[pIndex * STRIDE + DISTANCE];
+	}
+
+	/**
+	 * @return length of the whole path, inches
+	 */
+	public double getLength() {
+		return mSize == 0 ? 0 : getDistance(mSize - 1);
+	}
+
+	/**
+	 * Finds the sample at or just before some distance along the path (binary
+	 * search)
+	 *
+	 * @param pDistance
+	 *            distance along the path
+	 * @return index of the last sample with distance <= pDistance, clamped to the
+	 *         path
+	 */
+	public int getIndexAtDistance(double pDistance) {
+		int low = 0;
+		int high = mSize - 1;
+		if (high <= 0 || pDistance <= getDistance(0)) {
+			return 0;
+		}
+		if (pDistance >= getDistance(high)) {
+			return high;
+		}
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (getDistance(middle) <= pDistance) {
+				low = middle;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Gives direct access to the samples, STRIDE values each
+	 *
+	 * @return sample array; may be longer than size() * STRIDE
+	 */
+	public double[] getSamples() {
+		return mSamples;
+	}
+}
@@ -0,0 +1,118 @@
+package autonomous.paths;
+
+import constants.AutoConstants;
+import resource.Pose;
+import resource.ResourceFunctions;
+
+/**
+ * Builds a Path through waypoints out of quintic Hermite splines. Each spline
+ * is split in half until the pieces are short and straight enough, so tight
+ * turns get more samples than straight runs
+ *
+ * @author 3419
+ *
+ */
+public class PathGenerator {
+
+	private double mMaxSegmentLength;
+	private double mMaxHeadingChange;
+	private double mTangentScale;
+
+	// growing output
+	private double[] mSamples;
+	private int mSize;
+
+	public PathGenerator() {
+		this(AutoConstants.Paths.MAX_SEGMENT_LENGTH, AutoConstants.Paths.MAX_HEADING_CHANGE,
+				AutoConstants.Paths.TANGENT_SCALE);
+	}
+
+	/**
+	 * @param pMaxSegmentLength
+	 *            longest distance between samples, inches
+	 * @param pMaxHeadingChange
+	 *            largest heading change between samples, degrees
+	 * @param pTangentScale
+	 *            how hard waypoints pull towards their headings
+	 */
+	public PathGenerator(double pMaxSegmentLength, double pMaxHeadingChange, double pTangentScale) {
+		mMaxSegmentLength = pMaxSegmentLength;
+		mMaxHeadingChange = pMaxHeadingChange;
+		mTangentScale = pTangentScale;
+	}
+
+	/**
+	 * Generates a path through the waypoints, in order
+	 *
+	 * @param pWaypoints
+	 *            at least two poses; heading is the direction of travel there
+	 * @return sampled path
+	 */
+	public Path generate(Pose... pWaypoints) {
+		if (pWaypoints.length < 2) {
+			throw new IllegalArgumentException("A path needs at least two waypoints");
+		}
+		mSamples = new double[Path.STRIDE * 64];
+		mSize = 0;
+
+		QuinticHermiteSpline first = new QuinticHermiteSpline(pWaypoints[0], pWaypoints[1], mTangentScale);
+		addSample(first, 0);
+		for (int i = 0; i < pWaypoints.length - 1; i++) {
+			QuinticHermiteSpline spline = new QuinticHermiteSpline(pWaypoints[i], pWaypoints[i + 1], mTangentScale);
+			// a few starting pieces so an S bend isn't mistaken for a straight line
+			int pieces = AutoConstants.Paths.INITIAL_PIECES;
+			for (int j = 0; j < pieces; j++) {
+				subdivide(spline, (double) j / pieces, (double) (j + 1) / pieces);
+			}
+		}
+
+		double[] samples = new double[mSize * Path.STRIDE];
+		System.arraycopy(mSamples, 0, samples, 0, samples.length);
+		mSamples = null;
+		return new Path(samples, mSize);
+	}
+
+	/**
+	 * Adds samples for the spline from t0 (already added) to t1
+	 */
+	private void subdivide(QuinticHermiteSpline pSpline, double t0, double t1) {
+		double length = Math.hypot(pSpline.getX(t1) - pSpline.getX(t0), pSpline.getY(t1) - pSpline.getY(t0));
+		double headingChange = Math.abs(
+				ResourceFunctions.continuousAngleDif(pSpline.getHeading(t1), pSpline.getHeading(t0)));
+
+		if ((length > mMaxSegmentLength || headingChange > mMaxHeadingChange)
+				&& t1 - t0 > AutoConstants.Paths.MIN_PARAMETER_STEP) {
+			double middle = (t0 + t1) / 2;
+			subdivide(pSpline, t0, middle);
+			subdivide(pSpline, middle, t1);
+		}
+		else {
+			addSample(pSpline, t1);
+		}
+	}
+
+	private void addSample(QuinticHermiteSpline pSpline, double t) {
+		if ((mSize + 1) * Path.STRIDE > mSamples.length) {
+			double[] bigger = new double[mSamples.length * 2];
+			System.arraycopy(mSamples, 0, bigger, 0, mSamples.length);
+			mSamples = bigger;
+		}
+
+		double x = pSpline.getX(t);
+		double y = pSpline.getY(t);
+		double distance = 0;
+		if (mSize > 0) {
+			int last = (mSize - 1) * Path.STRIDE;
+			distance = mSamples[last + Path.DISTANCE]
+					+ Math.hypot(x - mSamples[last + Path.X], y - mSamples[last + Path.Y]);
+		}
+
+		int index = mSize * Path.STRIDE;
+		mSamples[index + Path.X] = x;
+		mSamples[index + Path.Y] = y;
+		mSamples[index + Path.HEADING] = ResourceFunctions.putAngleInRange(pSpline.getHeading(t));
+		mSamples[index + Path.CURVATURE] = pSpline.getCurvature(t);
+		mSamples[index + Path.DISTANCE] = distance;
+		mSize++;
+	}
+}
@@ -0,0 +1,96 @@
+package autonomous.paths;
+
+import resource.Pose;
+
+/**
+ * Quintic Hermite spline between two poses. The ends match position, heading
+ * and zero second derivative, so curvature is continuous where splines join
+ *
+ * @author 3419
+ *
+ */
+public class QuinticHermiteSpline {
+
+	// x(t) = ax t^5 + bx t^4 + cx t^3 + dx t^2 + ex t + fx, t from 0 to 1
+	private double mAX, mBX, mCX, mDX, mEX, mFX;
+	private double mAY, mBY, mCY, mDY, mEY, mFY;
+
+	/**
+	 * @param pStart
+	 *            start position and heading
+	 * @param pEnd
+	 *            end position and heading
+	 * @param pTangentScale
+	 *            how far the ends pull towards their headings, times the distance
+	 *            between the poses
+	 */
+	public QuinticHermiteSpline(Pose pStart, Pose pEnd, double pTangentScale) {
+		double scale = pTangentScale * Math.hypot(pEnd.getX() - pStart.getX(), pEnd.getY() - pStart.getY());
+		double startHeading = Math.toRadians(pStart.getHeading());
+		double endHeading = Math.toRadians(pEnd.getHeading());
+
+		double x0 = pStart.getX(), x1 = pEnd.getX();
+		double dx0 = Math.cos(startHeading) * scale, dx1 = Math.cos(endHeading) * scale;
+		double y0 = pStart.getY(), y1 = pEnd.getY();
+		double dy0 = Math.sin(startHeading) * scale, dy1 = Math.sin(endHeading) * scale;
+
+		// second derivatives are 0 at both ends
+		mAX = -6 * x0 - 3 * dx0 - 3 * dx1 + 6 * x1;
+		mBX = 15 * x0 + 8 * dx0 + 7 * dx1 - 15 * x1;
+		mCX = -10 * x0 - 6 * dx0 - 4 * dx1 + 10 * x1;
+		mDX = 0;
+		mEX = dx0;
+		mFX = x0;
+
+		mAY = -6 * y0 - 3 * dy0 - 3 * dy1 + 6 * y1;
+		mBY = 15 * y0 + 8 * dy0 + 7 * dy1 - 15 * y1;
+		mCY = -10 * y0 - 6 * dy0 - 4 * dy1 + 10 * y1;
+		mDY = 0;
+		mEY = dy0;
+		mFY = y0;
+	}
+
+	public double getX(double t) {
+		return ((((mAX * t + mBX) * t + mCX) * t + mDX) * t + mEX) * t + mFX;
+	}
+
+	public double getY(double t) {
+		return ((((mAY * t + mBY) * t + mCY) * t + mDY) * t + mEY) * t + mFY;
+	}
+
+	public double getDX(double t) {
+		return (((5 * mAX * t + 4 * mBX) * t + 3 * mCX) * t + 2 * mDX) * t + mEX;
+	}
+
+	public double getDY(double t) {
+		return (((5 * mAY * t + 4 * mBY) * t + 3 * mCY) * t + 2 * mDY) * t + mEY;
+	}
+
+	public double getDDX(double t) {
+		return ((20 * mAX * t + 12 * mBX) * t + 6 * mCX) * t + 2 * mDX;
+	}
+
+	public double getDDY(double t) {
+		return ((20 * mAY * t + 12 * mBY) * t + 6 * mCY) * t + 2 * mDY;
+	}
+
+	/**
+	 * @return direction of travel, degrees
+	 */
+	public double getHeading(double t) {
+		return Math.toDegrees(Math.atan2(getDY(t), getDX(t)));
+	}
+
+	/**
+	 * @return change in heading per unit distance, radians
+	 */
+	public double getCurvature(double t) {
+		double dx = getDX(t);
+		double dy = getDY(t);
+		double speedSq = dx * dx + dy * dy;
+		if (speedSq == 0) {
+			return 0;
+		}
+		return (dx * getDDY(t) - dy * getDDX(t)) / (speedSq * Math.sqrt(speedSq));
+	}
+}
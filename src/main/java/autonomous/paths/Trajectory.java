@@ -0,0 +1,202 @@
+package autonomous.paths;
+
+import java.nio.DoubleBuffer;
+
+import resource.ResourceFunctions;
+
+/**
+ * A path with a time, velocity and acceleration for every sample. Samples are
+ * stored column by column in one DoubleBuffer, so looking things up by time
+ * only touches the time column, and a memory mapped file can back it directly
+ *
+ * Units are inches, seconds and degrees; see Path. Robot heading is where the
+ * robot faces, which for a swerve doesn't have to be the direction of travel
+ *
+ * @author 3419
+ *
+ */
+public class Trajectory {
+
+	// columns, each size() long, one after another
+	public static final int
+		TIME = 0,
+		X = 1,
+		Y = 2,
+		HEADING = 3,
+		CURVATURE = 4,
+		DISTANCE = 5,
+		VELOCITY = 6,
+		ACCELERATION = 7,
+		ROBOT_HEADING = 8,
+		NUM_COLUMNS = 9;
+
+	private DoubleBuffer mData;
+	private int mSize;
+
+	/**
+	 * Creates an empty trajectory to be filled in
+	 *
+	 * @param pSize
+	 *            number of samples
+	 */
+	public Trajectory(int pSize) {
+		this(DoubleBuffer.allocate(pSize * NUM_COLUMNS), pSize);
+	}
+
+	/**
+	 * Wraps existing samples, e.g. a memory mapped file, without copying
+	 *
+	 * @param pData
+	 *            NUM_COLUMNS columns of pSize values each, starting at index 0
+	 * @param pSize
+	 *            number of samples
+	 */
+	public Trajectory(DoubleBuffer pData, int pSize) {
+		mData = pData;
+		mSize = pSize;
+	}
+
+	/**
+	 * Sets every value of one sample
+	 */
+	public void set(int pIndex, double pTime, double pX, double pY, double pHeading, double pCurvature,
+			double pDistance, double pVelocity, double pAcceleration, double pRobotHeading) {
+		mData.put(TIME * mSize + pIndex, pTime);
+		mData.put(X * mSize + pIndex, pX);
+		mData.put(Y * mSize + pIndex, pY);
+		mData.put(HEADING * mSize + pIndex, pHeading);
+		mData.put(CURVATURE * mSize + pIndex, pCurvature);
+		mData.put(DISTANCE * mSize + pIndex, pDistance);
+		mData.put(VELOCITY * mSize + pIndex, pVelocity);
+		mData.put(ACCELERATION * mSize + pIndex, pAcceleration);
+		mData.put(ROBOT_HEADING * mSize + pIndex, pRobotHeading);
+	}
+
+	/**
+	 * @param pColumn
+	 *            which value, e.g. VELOCITY
+	 * @param pIndex
+	 *            which sample
+	 * @return the value
+	 */
+	public double get(int pColumn, int pIndex) {
+		return mData.get(pColumn * mSize + pIndex);
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @return time at the last sample, seconds
+	 */
+	public double getDuration() {
+		return mSize == 0 ? 0 : get(TIME, mSize - 1);
+	}
+
+	/**
+	 * Gives direct access to the samples, NUM_COLUMNS columns of size() values
+	 *
+	 * @return sample buffer
+	 */
+	public DoubleBuffer getData() {
+		return mData;
+	}
+
+	/**
+	 * Finds the sample at or just before some time (binary search)
+	 *
+	 * @param pTime
+	 *            seconds from the start
+	 * @return index of the last sample with time <= pTime, clamped to the
+	 *         trajectory
+	 */
+	public int getIndexAtTime(double pTime) {
+		int low = 0;
+		int high = mSize - 1;
+		if (high <= 0 || pTime <= mData.get(0)) {
+			return 0;
+		}
+		if (pTime >= mData.get(high)) {
+			return high;
+		}
+		// time is the first column
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (mData.get(middle) <= pTime) {
+				low = middle;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Interpolates the trajectory at some time
+	 *
+	 * @param pTime
+	 *            seconds from the start; clamped to the trajectory
+	 * @param pOut
+	 *            state to fill in
+	 */
+	public void sample(double pTime, TrajectoryState pOut) {
+		int i = getIndexAtTime(pTime);
+		int next = Math.min(i + 1, mSize - 1);
+		double span = get(TIME, next) - get(TIME, i);
+		double fraction = span > 0 ? Math.max(0, Math.min(1, (pTime - get(TIME, i)) / span)) : 0;
+
+		pOut.time = pTime;
+		pOut.x = interpolate(X, i, next, fraction);
+		pOut.y = interpolate(Y, i, next, fraction);
+		pOut.heading = ResourceFunctions.putAngleInRange(get(HEADING, i)
+				+ ResourceFunctions.continuousAngleDif(get(HEADING, next), get(HEADING, i)) * fraction);
+		pOut.velocity = interpolate(VELOCITY, i, next, fraction);
+		pOut.acceleration = get(ACCELERATION, i);
+		double turn = ResourceFunctions.continuousAngleDif(get(ROBOT_HEADING, next), get(ROBOT_HEADING, i));
+		pOut.robotHeading = ResourceFunctions.putAngleInRange(get(ROBOT_HEADING, i) + turn * fraction);
+		pOut.robotTurnRate = span > 0 ? turn / span : 0;
+	}
+
+	private double interpolate(int pColumn, int pIndex, int pNext, double pFraction) {
+		double value = get(pColumn, pIndex);
+		return value + (get(pColumn, pNext) - value) * pFraction;
+	}
+
+	public double getTime(int pIndex) {
+		return get(TIME, pIndex);
+	}
+
+	public double getX(int pIndex) {
+		return get(X, pIndex);
+	}
+
+	public double getY(int pIndex) {
+		return get(Y, pIndex);
+	}
+
+	public double getHeading(int pIndex) {
+		return get(HEADING, pIndex);
+	}
+
+	public double getCurvature(int pIndex) {
+		return get(CURVATURE, pIndex);
+	}
+
+	public double getDistance(int pIndex) {
+		return get(DISTANCE, pIndex);
+	}
+
+	public double getVelocity(int pIndex) {
+		return get(VELOCITY, pIndex);
+	}
+
+	public double getAcceleration(int pIndex) {
+		return get(ACCELERATION, pIndex);
+	}
+
+	public double getRobotHeading(int pIndex) {
+		return get(ROBOT_HEADING, pIndex);
+	}
+}
@@ -0,0 +1,129 @@
+package autonomous.paths;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary trajectory files. Written at build time, memory mapped on the robot so
+ * the follower reads samples straight out of the page cache
+ *
+ * Layout, little endian:
+ * 	int magic, int format version, int samples, int columns,
+ * 	long definition hash (changes when the path or limits change),
+ * 	long CRC32 of the data,
+ * 	then columns * samples doubles, column by column (same as Trajectory)
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryFile {
+
+	public static final int
+		MAGIC = 0x4A415254, // "TRAJ"
+		VERSION = 1,
+		HEADER_BYTES = 32;
+
+	/**
+	 * Writes a trajectory
+	 *
+	 * @param pTrajectory
+	 *            trajectory to write
+	 * @param pDefinitionHash
+	 *            hash of what the trajectory was generated from
+	 * @param pFile
+	 *            file to write; replaced if it exists
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public static void write(Trajectory pTrajectory, long pDefinitionHash, File pFile) throws IOException {
+		int size = pTrajectory.size();
+		ByteBuffer data = ByteBuffer.allocate(size * Trajectory.NUM_COLUMNS * 8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int column = 0; column < Trajectory.NUM_COLUMNS; column++) {
+			for (int i = 0; i < size; i++) {
+				data.putDouble(pTrajectory.get(column, i));
+			}
+		}
+		data.flip();
+		CRC32 crc = new CRC32();
+		crc.update(data.duplicate());
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(size);
+		header.putInt(Trajectory.NUM_COLUMNS);
+		header.putLong(pDefinitionHash);
+		header.putLong(crc.getValue());
+		header.flip();
+
+		try (FileChannel channel = FileChannel.open(pFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+	}
+
+	/**
+	 * Memory maps a trajectory file
+	 *
+	 * @param pFile
+	 *            file to read
+	 * @param pDefinitionHash
+	 *            hash the file has to have been generated from
+	 * @param pVerifyChecksum
+	 *            whether to check the CRC (reads the whole file once)
+	 * @return the trajectory, or null if the file is missing, stale or corrupt
+	 */
+	public static Trajectory read(File pFile, long pDefinitionHash, boolean pVerifyChecksum) {
+		if (!pFile.isFile()) {
+			return null;
+		}
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(pFile.toPath(), StandardOpenOption.READ)) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch (IOException e) {
+			return null;
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		if (mapped.capacity() < HEADER_BYTES) {
+			return null;
+		}
+
+		int magic = mapped.getInt(0);
+		int version = mapped.getInt(4);
+		int size = mapped.getInt(8);
+		int columns = mapped.getInt(12);
+		long definitionHash = mapped.getLong(16);
+		long checksum = mapped.getLong(24);
+		if (magic != MAGIC || version != VERSION || columns != Trajectory.NUM_COLUMNS
+				|| definitionHash != pDefinitionHash || size < 0
+				|| mapped.capacity() != HEADER_BYTES + (long) size * columns * 8) {
+			return null;
+		}
+
+		mapped.position(HEADER_BYTES);
+		ByteBuffer data = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (pVerifyChecksum) {
+			CRC32 crc = new CRC32();
+			crc.update(data.duplicate());
+			if (crc.getValue() != checksum) {
+				return null;
+			}
+		}
+
+		DoubleBuffer samples = data.asDoubleBuffer();
+		return new Trajectory(samples, size);
+	}
+}
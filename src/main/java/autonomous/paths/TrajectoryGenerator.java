@@ -0,0 +1,163 @@
+package autonomous.paths;
+
+import constants.AutoConstants;
+import constants.DriveConstants;
+import constants.RunConstants;
+import resource.ResourceFunctions;
+
+/**
+ * Times a path: gives every sample the fastest velocity that stays within the
+ * limits, with a forward pass for acceleration and a backward pass for
+ * deceleration. Work is linear in the number of samples
+ *
+ * Limits:
+ * - robot speed
+ * - wheel speed, since the outside wheels go faster while the robot turns
+ * - acceleration
+ * - centripetal acceleration on curves
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryGenerator {
+
+	private double mMaxVelocity;
+	private double mMaxAcceleration;
+	private double mMaxCentripetalAcceleration;
+	private double mMaxWheelVelocity;
+	private double mRobotRadius;
+
+	// scratch, reused between generations
+	private double[] mVelocities = new double[0];
+
+	public TrajectoryGenerator() {
+		this(DriveConstants.MAX_LINEAR_VELOCITY * DriveConstants.DRIVE_FREE_SPEED,
+				AutoConstants.Trajectories.MAX_ACCELERATION,
+				AutoConstants.Trajectories.MAX_CENTRIPETAL_ACCELERATION,
+				DriveConstants.MAX_INDIVIDUAL_VELOCITY * DriveConstants.DRIVE_FREE_SPEED,
+				getRobotRadius());
+	}
+
+	/**
+	 * @param pMaxVelocity
+	 *            max robot speed, inches per second
+	 * @param pMaxAcceleration
+	 *            inches per second squared
+	 * @param pMaxCentripetalAcceleration
+	 *            inches per second squared
+	 * @param pMaxWheelVelocity
+	 *            max speed of any wheel, inches per second
+	 * @param pRobotRadius
+	 *            distance from the center to the farthest wheel, inches
+	 */
+	public TrajectoryGenerator(double pMaxVelocity, double pMaxAcceleration, double pMaxCentripetalAcceleration,
+			double pMaxWheelVelocity, double pRobotRadius) {
+		mMaxVelocity = pMaxVelocity;
+		mMaxAcceleration = pMaxAcceleration;
+		mMaxCentripetalAcceleration = pMaxCentripetalAcceleration;
+		mMaxWheelVelocity = pMaxWheelVelocity;
+		mRobotRadius = pRobotRadius;
+	}
+
+	/**
+	 * Times a path, keeping the robot facing the same way the whole time
+	 *
+	 * @param pPath
+	 *            path to time
+	 * @return trajectory starting and ending at rest
+	 */
+	public Trajectory generate(Path pPath) {
+		return generate(pPath, 0, 0);
+	}
+
+	/**
+	 * Times a path while turning the robot evenly (by distance) from one heading
+	 * to another
+	 *
+	 * @param pPath
+	 *            path to time
+	 * @param pStartRobotHeading
+	 *            where the robot faces at the start, degrees, same frame as the
+	 *            path
+	 * @param pEndRobotHeading
+	 *            where the robot faces at the end
+	 * @return trajectory starting and ending at rest
+	 */
+	public Trajectory generate(Path pPath, double pStartRobotHeading, double pEndRobotHeading) {
+		int size = pPath.size();
+		if (mVelocities.length < size) {
+			mVelocities = new double[size];
+		}
+		double[] velocity = mVelocities;
+
+		double length = pPath.getLength();
+		double turn = ResourceFunctions.continuousAngleDif(pEndRobotHeading, pStartRobotHeading);
+		// radians the robot turns per inch travelled
+		double turnPerInch = length > 0 ? Math.toRadians(turn) / length : 0;
+		// wheels on the outside go (1 + radius * turn per inch) times the robot speed
+		double wheelLimit = mMaxWheelVelocity / (1 + mRobotRadius * Math.abs(turnPerInch));
+		double straightLimit = Math.min(mMaxVelocity, wheelLimit);
+
+		// fastest each sample can go on its own
+		for (int i = 0; i < size; i++) {
+			double curvature = Math.abs(pPath.getCurvature(i));
+			double limit = straightLimit;
+			if (curvature > 1E-9) {
+				limit = Math.min(limit, Math.sqrt(mMaxCentripetalAcceleration / curvature));
+			}
+			velocity[i] = limit;
+		}
+		velocity[0] = 0;
+		velocity[size - 1] = 0;
+
+		// forward: can't speed up faster than max acceleration
+		double twoA = 2 * mMaxAcceleration;
+		for (int i = 1; i < size; i++) {
+			double ds = pPath.getDistance(i) - pPath.getDistance(i - 1);
+			double reachable = Math.sqrt(velocity[i - 1] * velocity[i - 1] + twoA * ds);
+			if (reachable < velocity[i]) {
+				velocity[i] = reachable;
+			}
+		}
+		// backward: has to be able to slow down for what comes next
+		for (int i = size - 2; i >= 0; i--) {
+			double ds = pPath.getDistance(i + 1) - pPath.getDistance(i);
+			double reachable = Math.sqrt(velocity[i + 1] * velocity[i + 1] + twoA * ds);
+			if (reachable < velocity[i]) {
+				velocity[i] = reachable;
+			}
+		}
+
+		// integrate time
+		Trajectory trajectory = new Trajectory(size);
+		double time = 0;
+		for (int i = 0; i < size; i++) {
+			double acceleration = 0;
+			if (i > 0) {
+				double ds = pPath.getDistance(i) - pPath.getDistance(i - 1);
+				double speedSum = velocity[i] + velocity[i - 1];
+				if (ds > 0 && speedSum > 0) {
+					time += 2 * ds / speedSum;
+					acceleration = (velocity[i] * velocity[i] - velocity[i - 1] * velocity[i - 1]) / (2 * ds);
+				}
+			}
+			double robotHeading = pStartRobotHeading + Math.toDegrees(turnPerInch * pPath.getDistance(i));
+			trajectory.set(i, time, pPath.getX(i), pPath.getY(i), pPath.getHeading(i), pPath.getCurvature(i),
+					pPath.getDistance(i), velocity[i], acceleration, ResourceFunctions.putAngleInRange(robotHeading));
+		}
+		return trajectory;
+	}
+
+	/**
+	 * @return distance from the robot center to the farthest wheel, inches
+	 */
+	private static double getRobotRadius() {
+		double[] xOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.X_OFF : DriveConstants.ActualRobot.X_OFF;
+		double[] yOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.Y_OFF : DriveConstants.ActualRobot.Y_OFF;
+		double radius = 0;
+		for (int i = 0; i < xOff.length; i++) {
+			radius = Math.max(radius, Math.hypot(xOff[i], yOff[i]));
+		}
+		return radius;
+	}
+}
@@ -0,0 +1,24 @@
+package autonomous.paths;
+
+/**
+ * Where a trajectory says the robot should be at one time. Reused between
+ * samples so sampling doesn't allocate
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryState {
+	public double time;
+	public double x;
+	public double y;
+	public double heading; // direction of travel, degrees
+	public double velocity;
+	public double acceleration;
+	public double robotHeading; // where the robot faces, degrees
+	public double robotTurnRate; // degrees per second
+
+	public String toString() {
+		return String.format("t: %f, x: %f, y: %f, heading: %f, v: %f, robot heading: %f", time, x, y, heading,
+				velocity, robotHeading);
+	}
+}
@@ -0,0 +1,124 @@
+package autonomous.planning;
+
+import constants.FieldConstants;
+
+/**
+ * The field cut into square cells, each knowing how far its center is from the
+ * nearest obstacle or wall. Computed once; a planner then treats any cell
+ * closer than its clearance as blocked
+ *
+ * @author 3419
+ *
+ */
+public class FieldGrid {
+
+	private double mCellSize;
+	private int mColumns; // along x
+	private int mRows; // along y
+	private float[] mClearance; // by cell index, inches
+
+	/**
+	 * Builds the grid for the 2019 field
+	 *
+	 * @param pCellSize
+	 *            cell width, inches
+	 */
+	public FieldGrid(double pCellSize) {
+		this(pCellSize, FieldConstants.LENGTH, FieldConstants.WIDTH, FieldConstants.OBSTACLES);
+	}
+
+	/**
+	 * @param pCellSize
+	 *            cell width, inches
+	 * @param pLength
+	 *            field length (x), inches
+	 * @param pWidth
+	 *            field width (y), inches
+	 * @param pObstacles
+	 *            rectangles as { min x, min y, max x, max y }
+	 */
+	public FieldGrid(double pCellSize, double pLength, double pWidth, double[][] pObstacles) {
+		mCellSize = pCellSize;
+		mColumns = (int) Math.ceil(pLength / pCellSize);
+		mRows = (int) Math.ceil(pWidth / pCellSize);
+		mClearance = new float[mColumns * mRows];
+
+		for (int row = 0; row < mRows; row++) {
+			for (int column = 0; column < mColumns; column++) {
+				double x = (column + 0.5) * pCellSize;
+				double y = (row + 0.5) * pCellSize;
+
+				// walls
+				double clearance = Math.min(Math.min(x, pLength - x), Math.min(y, pWidth - y));
+				for (double[] obstacle : pObstacles) {
+					double dx = Math.max(Math.max(obstacle[0] - x, x - obstacle[2]), 0);
+					double dy = Math.max(Math.max(obstacle[1] - y, y - obstacle[3]), 0);
+					clearance = Math.min(clearance, Math.hypot(dx, dy));
+				}
+				mClearance[row * mColumns + column] = (float) clearance;
+			}
+		}
+	}
+
+	public double getCellSize() {
+		return mCellSize;
+	}
+
+	public int getColumns() {
+		return mColumns;
+	}
+
+	public int getRows() {
+		return mRows;
+	}
+
+	public int size() {
+		return mClearance.length;
+	}
+
+	/**
+	 * @return cell index, clamped onto the field
+	 */
+	public int getIndex(double pX, double pY) {
+		int column = Math.max(0, Math.min(mColumns - 1, (int) (pX / mCellSize)));
+		int row = Math.max(0, Math.min(mRows - 1, (int) (pY / mCellSize)));
+		return row * mColumns + column;
+	}
+
+	public int getColumn(int pIndex) {
+		return pIndex % mColumns;
+	}
+
+	public int getRow(int pIndex) {
+		return pIndex / mColumns;
+	}
+
+	/**
+	 * @return x of a cell's center
+	 */
+	public double getX(int pIndex) {
+		return (getColumn(pIndex) + 0.5) * mCellSize;
+	}
+
+	/**
+	 * @return y of a cell's center
+	 */
+	public double getY(int pIndex) {
+		return (getRow(pIndex) + 0.5) * mCellSize;
+	}
+
+	/**
+	 * @return distance from a cell's center to the nearest obstacle or wall
+	 */
+	public double getClearance(int pIndex) {
+		return mClearance[pIndex];
+	}
+
+	/**
+	 * @return distance from a point to the nearest obstacle or wall, to the
+	 *         nearest cell
+	 */
+	public double getClearance(double pX, double pY) {
+		return mClearance[getIndex(pX, pY)];
+	}
+}
@@ -0,0 +1,122 @@
+package autonomous.planning;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of int indices (0 to capacity - 1) keyed by doubles, with
+ * decrease key. Everything lives in arrays allocated up front
+ *
+ * @author 3419
+ *
+ */
+public class IndexMinHeap {
+
+	private int[] mHeap; // heap position -> index
+	private int[] mPosition; // index -> heap position, -1 if not in the heap
+	private double[] mKeys; // by index
+	private int mSize;
+
+	/**
+	 * @param pCapacity
+	 *            indices go from 0 to this - 1
+	 */
+	public IndexMinHeap(int pCapacity) {
+		mHeap = new int[pCapacity];
+		mPosition = new int[pCapacity];
+		mKeys = new double[pCapacity];
+		Arrays.fill(mPosition, -1);
+	}
+
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	public boolean contains(int pIndex) {
+		return mPosition[pIndex] >= 0;
+	}
+
+	/**
+	 * Adds an index, or lowers its key if it's already in the heap
+	 *
+	 * @param pIndex
+	 *            index
+	 * @param pKey
+	 *            new key; ignored if it's higher than the one the index has
+	 */
+	public void insertOrDecrease(int pIndex, double pKey) {
+		int position = mPosition[pIndex];
+		if (position < 0) {
+			position = mSize++;
+			mHeap[position] = pIndex;
+			mPosition[pIndex] = position;
+		}
+		else if (pKey >= mKeys[pIndex]) {
+			return;
+		}
+		mKeys[pIndex] = pKey;
+		siftUp(position);
+	}
+
+	/**
+	 * @return the index with the lowest key, removed from the heap
+	 */
+	public int poll() {
+		int top = mHeap[0];
+		mPosition[top] = -1;
+		mSize--;
+		if (mSize > 0) {
+			mHeap[0] = mHeap[mSize];
+			mPosition[mHeap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Empties the heap
+	 */
+	public void clear() {
+		for (int i = 0; i < mSize; i++) {
+			mPosition[mHeap[i]] = -1;
+		}
+		mSize = 0;
+	}
+
+	private void siftUp(int pPosition) {
+		int index = mHeap[pPosition];
+		double key = mKeys[index];
+		while (pPosition > 0) {
+			int parent = (pPosition - 1) >>> 1;
+			if (mKeys[mHeap[parent]] <= key) {
+				break;
+			}
+			mHeap[pPosition] = mHeap[parent];
+			mPosition[mHeap[pPosition]] = pPosition;
+			pPosition = parent;
+		}
+		mHeap[pPosition] = index;
+		mPosition[index] = pPosition;
+	}
+
+	private void siftDown(int pPosition) {
+		int index = mHeap[pPosition];
+		double key = mKeys[index];
+		while (true) {
+			int child = 2 * pPosition + 1;
+			if (child >= mSize) {
+				break;
+			}
+			if (child + 1 < mSize && mKeys[mHeap[child + 1]] < mKeys[mHeap[child]]) {
+				child++;
+			}
+			if (mKeys[mHeap[child]] >= key) {
+				break;
+			}
+			mHeap[pPosition] = mHeap[child];
+			mPosition[mHeap[pPosition]] = pPosition;
+			pPosition = child;
+		}
+		mHeap[pPosition] = index;
+		mPosition[index] = pPosition;
+	}
+}
@@ -0,0 +1,420 @@
+package autonomous.planning;
+
+import autonomous.paths.Path;
+import autonomous.paths.PathGenerator;
+import constants.AutoConstants;
+import resource.Pose;
+
+/**
+ * Plans a way around the field with Theta*: A* on the grid, except a cell can
+ * take its parent's parent when it can see it, so paths come out as a few
+ * straight runs at any angle instead of grid steps. The corners are then
+ * rounded off with splines
+ *
+ * All search state is in arrays sized to the grid and reused; a search only
+ * touches the cells it visits
+ *
+ * @author 3419
+ *
+ */
+public class ThetaStarPlanner {
+
+	private static final int[] NEIGHBOR_COLUMN = { 1, -1, 0, 0, 1, 1, -1, -1 };
+	private static final int[] NEIGHBOR_ROW = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+	private FieldGrid mGrid;
+	private double mClearance;
+	private double mRobotRadius;
+
+	// search state, valid for a cell when its stamp matches the current search
+	private double[] mCost;
+	private int[] mParent;
+	private int[] mVisitedStamp;
+	private int[] mClosedStamp;
+	private int mSearch;
+	private IndexMinHeap mOpen;
+
+	// waypoints from the last search, start to goal
+	private double[] mWaypointX;
+	private double[] mWaypointY;
+	private int mNumWaypoints;
+
+	private PathGenerator mPathGenerator;
+
+	public ThetaStarPlanner() {
+		this(new FieldGrid(AutoConstants.Planner.CELL_SIZE), AutoConstants.Planner.CLEARANCE,
+				AutoConstants.Planner.ROBOT_RADIUS);
+	}
+
+	/**
+	 * @param pGrid
+	 *            field to plan on
+	 * @param pClearance
+	 *            how far the planned straight runs stay from obstacles, inches
+	 * @param pRobotRadius
+	 *            how far the rounded path has to stay from obstacles, inches
+	 */
+	public ThetaStarPlanner(FieldGrid pGrid, double pClearance, double pRobotRadius) {
+		mGrid = pGrid;
+		mClearance = pClearance;
+		mRobotRadius = pRobotRadius;
+
+		int size = pGrid.size();
+		mCost = new double[size];
+		mParent = new int[size];
+		mVisitedStamp = new int[size];
+		mClosedStamp = new int[size];
+		mOpen = new IndexMinHeap(size);
+		mWaypointX = new double[size];
+		mWaypointY = new double[size];
+		mPathGenerator = new PathGenerator();
+	}
+
+	/**
+	 * Plans a drivable path from one pose to another
+	 *
+	 * @param pStart
+	 *            where the robot is, field relative
+	 * @param pGoal
+	 *            where it should end up, field relative
+	 * @return path relative to the start pose (like every other auto command
+	 *         takes), or null if there's no way there
+	 */
+	public Path plan(Pose pStart, Pose pGoal) {
+		if (!findWaypoints(pStart.getX(), pStart.getY(), pGoal.getX(), pGoal.getY())) {
+			return null;
+		}
+
+		Path path = null;
+		for (int pass = 0; pass <= AutoConstants.Planner.MAX_SMOOTHING_PASSES; pass++) {
+			path = generatePath(pStart);
+			int collision = findCollision(path, pStart);
+			if (collision < 0 || mNumWaypoints + 1 > mWaypointX.length) {
+				break;
+			}
+			// the rounded corner clipped something: pin the path to the straight run
+			// there and try again
+			splitSegment(collision);
+		}
+		return path;
+	}
+
+	/**
+	 * Finds straight runs from one point to another
+	 *
+	 * @return false if there's no way there
+	 */
+	public boolean findWaypoints(double pStartX, double pStartY, double pGoalX, double pGoalY) {
+		mNumWaypoints = 0;
+		int start = nearestFree(mGrid.getIndex(pStartX, pStartY));
+		int goal = nearestFree(mGrid.getIndex(pGoalX, pGoalY));
+		if (start < 0 || goal < 0) {
+			return false;
+		}
+
+		mSearch++;
+		mOpen.clear();
+		visit(start);
+		mCost[start] = 0;
+		mParent[start] = start;
+		mOpen.insertOrDecrease(start, heuristic(start, goal));
+
+		boolean found = false;
+		while (!mOpen.isEmpty()) {
+			int cell = mOpen.poll();
+			if (cell == goal) {
+				found = true;
+				break;
+			}
+			mClosedStamp[cell] = mSearch;
+
+			int column = mGrid.getColumn(cell);
+			int row = mGrid.getRow(cell);
+			for (int i = 0; i < NEIGHBOR_COLUMN.length; i++) {
+				int neighborColumn = column + NEIGHBOR_COLUMN[i];
+				int neighborRow = row + NEIGHBOR_ROW[i];
+				if (!isFree(neighborColumn, neighborRow)) {
+					continue;
+				}
+				// no cutting corners on diagonals
+				if (i >= 4 && (!isFree(column + NEIGHBOR_COLUMN[i], row) || !isFree(column, row + NEIGHBOR_ROW[i]))) {
+					continue;
+				}
+				int neighbor = neighborRow * mGrid.getColumns() + neighborColumn;
+				if (mClosedStamp[neighbor] == mSearch) {
+					continue;
+				}
+				visit(neighbor);
+
+				// Theta*: go straight from our parent if it can see the neighbor
+				int from = cell;
+				int parent = mParent[cell];
+				if (parent != cell && lineOfSight(parent, neighbor)) {
+					from = parent;
+				}
+				double cost = mCost[from] + distance(from, neighbor);
+				if (cost < mCost[neighbor]) {
+					mCost[neighbor] = cost;
+					mParent[neighbor] = from;
+					mOpen.insertOrDecrease(neighbor, cost + heuristic(neighbor, goal));
+				}
+			}
+		}
+		if (!found) {
+			return false;
+		}
+
+		// walk back from the goal, then flip
+		int count = 0;
+		for (int cell = goal; ; cell = mParent[cell]) {
+			mWaypointX[count] = mGrid.getX(cell);
+			mWaypointY[count] = mGrid.getY(cell);
+			count++;
+			if (mParent[cell] == cell) {
+				break;
+			}
+		}
+		for (int i = 0; i < count / 2; i++) {
+			swap(i, count - 1 - i);
+		}
+
+		// exact ends instead of cell centers; keep the cell center too if the real
+		// point was blocked and got moved
+		mNumWaypoints = count;
+		if (count == 1) {
+			mWaypointX[0] = pStartX;
+			mWaypointY[0] = pStartY;
+			mWaypointX[1] = pGoalX;
+			mWaypointY[1] = pGoalY;
+			mNumWaypoints = 2;
+			return true;
+		}
+		if (start == mGrid.getIndex(pStartX, pStartY)) {
+			mWaypointX[0] = pStartX;
+			mWaypointY[0] = pStartY;
+		}
+		else {
+			insertWaypoint(0, pStartX, pStartY);
+		}
+		if (goal == mGrid.getIndex(pGoalX, pGoalY)) {
+			mWaypointX[mNumWaypoints - 1] = pGoalX;
+			mWaypointY[mNumWaypoints - 1] = pGoalY;
+		}
+		else {
+			insertWaypoint(mNumWaypoints, pGoalX, pGoalY);
+		}
+		return true;
+	}
+
+	public int getNumWaypoints() {
+		return mNumWaypoints;
+	}
+
+	public double getWaypointX(int pIndex) {
+		return mWaypointX[pIndex];
+	}
+
+	public double getWaypointY(int pIndex) {
+		return mWaypointY[pIndex];
+	}
+
+	/**
+	 * Splines through the waypoints, relative to the start pose. Each waypoint
+	 * points halfway between the runs on either side of it
+	 */
+	private Path generatePath(Pose pStart) {
+		double startHeading = Math.toRadians(pStart.getHeading());
+		double cos = Math.cos(startHeading);
+		double sin = Math.sin(startHeading);
+
+		Pose[] poses = new Pose[mNumWaypoints];
+		for (int index = 0; index < mNumWaypoints; index++) {
+			int previous = Math.max(index - 1, 0);
+			int next = Math.min(index + 1, mNumWaypoints - 1);
+			double inX = mWaypointX[index] - mWaypointX[previous];
+			double inY = mWaypointY[index] - mWaypointY[previous];
+			double outX = mWaypointX[next] - mWaypointX[index];
+			double outY = mWaypointY[next] - mWaypointY[index];
+			double inLength = Math.hypot(inX, inY);
+			double outLength = Math.hypot(outX, outY);
+			double directionX = (inLength > 0 ? inX / inLength : 0) + (outLength > 0 ? outX / outLength : 0);
+			double directionY = (inLength > 0 ? inY / inLength : 0) + (outLength > 0 ? outY / outLength : 0);
+
+			// into the start pose's frame
+			double dx = mWaypointX[index] - pStart.getX();
+			double dy = mWaypointY[index] - pStart.getY();
+			poses[index] = new Pose(dx * cos + dy * sin, -dx * sin + dy * cos,
+					Math.toDegrees(Math.atan2(directionY, directionX)) - pStart.getHeading());
+		}
+		return mPathGenerator.generate(poses);
+	}
+
+	/**
+	 * @return index of the waypoint before the first path sample that's too
+	 *         close to something, or -1 if it's clear
+	 */
+	private int findCollision(Path pPath, Pose pStart) {
+		double startHeading = Math.toRadians(pStart.getHeading());
+		double cos = Math.cos(startHeading);
+		double sin = Math.sin(startHeading);
+
+		// the ends can be closer than that if that's where the robot is or has to go
+		double goalX = mWaypointX[mNumWaypoints - 1];
+		double goalY = mWaypointY[mNumWaypoints - 1];
+		double startLimit = Math.min(mRobotRadius, mGrid.getClearance(pStart.getX(), pStart.getY()));
+		double goalLimit = Math.min(mRobotRadius, mGrid.getClearance(goalX, goalY));
+
+		int waypoint = 0;
+		for (int i = 0; i < pPath.size(); i++) {
+			double x = pStart.getX() + pPath.getX(i) * cos - pPath.getY(i) * sin;
+			double y = pStart.getY() + pPath.getX(i) * sin + pPath.getY(i) * cos;
+
+			// samples run in order, so just keep track of which run we're on
+			while (waypoint + 2 < mNumWaypoints && isPast(x, y, waypoint + 1)) {
+				waypoint++;
+			}
+			double limit = mRobotRadius;
+			if (Math.hypot(x - pStart.getX(), y - pStart.getY()) < AutoConstants.Planner.MAX_SNAP_DISTANCE) {
+				limit = Math.min(limit, startLimit);
+			}
+			if (Math.hypot(x - goalX, y - goalY) < AutoConstants.Planner.MAX_SNAP_DISTANCE) {
+				limit = Math.min(limit, goalLimit);
+			}
+			if (mGrid.getClearance(x, y) < limit) {
+				return waypoint;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return whether a point is past a waypoint, along the run leading up to it
+	 */
+	private boolean isPast(double pX, double pY, int pWaypoint) {
+		double runX = mWaypointX[pWaypoint] - mWaypointX[pWaypoint - 1];
+		double runY = mWaypointY[pWaypoint] - mWaypointY[pWaypoint - 1];
+		return (pX - mWaypointX[pWaypoint]) * runX + (pY - mWaypointY[pWaypoint]) * runY > 0;
+	}
+
+	/**
+	 * Adds waypoints a third and two thirds along the runs on either side of a
+	 * corner, so the spline there stays close to the straight runs
+	 */
+	private void splitSegment(int pWaypoint) {
+		int corner = Math.min(pWaypoint + 1, mNumWaypoints - 1);
+		if (corner + 1 < mNumWaypoints) {
+			insertWaypoint(corner + 1, (2 * mWaypointX[corner] + mWaypointX[corner + 1]) / 3,
+					(2 * mWaypointY[corner] + mWaypointY[corner + 1]) / 3);
+		}
+		if (corner > 0) {
+			insertWaypoint(corner, (mWaypointX[corner - 1] + 2 * mWaypointX[corner]) / 3,
+					(mWaypointY[corner - 1] + 2 * mWaypointY[corner]) / 3);
+		}
+	}
+
+	private void insertWaypoint(int pIndex, double pX, double pY) {
+		System.arraycopy(mWaypointX, pIndex, mWaypointX, pIndex + 1, mNumWaypoints - pIndex);
+		System.arraycopy(mWaypointY, pIndex, mWaypointY, pIndex + 1, mNumWaypoints - pIndex);
+		mWaypointX[pIndex] = pX;
+		mWaypointY[pIndex] = pY;
+		mNumWaypoints++;
+	}
+
+	private void swap(int pA, int pB) {
+		double x = mWaypointX[pA];
+		double y = mWaypointY[pA];
+		mWaypointX[pA] = mWaypointX[pB];
+		mWaypointY[pA] = mWaypointY[pB];
+		mWaypointX[pB] = x;
+		mWaypointY[pB] = y;
+	}
+
+	private void visit(int pCell) {
+		if (mVisitedStamp[pCell] != mSearch) {
+			mVisitedStamp[pCell] = mSearch;
+			mCost[pCell] = Double.POSITIVE_INFINITY;
+			mParent[pCell] = -1;
+		}
+	}
+
+	private boolean isFree(int pColumn, int pRow) {
+		return pColumn >= 0 && pRow >= 0 && pColumn < mGrid.getColumns() && pRow < mGrid.getRows()
+				&& mGrid.getClearance(pRow * mGrid.getColumns() + pColumn) >= mClearance;
+	}
+
+	/**
+	 * Walks every cell a straight line between two cell centers goes through
+	 */
+	private boolean lineOfSight(int pFrom, int pTo) {
+		int column = mGrid.getColumn(pFrom);
+		int row = mGrid.getRow(pFrom);
+		int endColumn = mGrid.getColumn(pTo);
+		int endRow = mGrid.getRow(pTo);
+		int dColumn = Math.abs(endColumn - column);
+		int dRow = Math.abs(endRow - row);
+		int stepColumn = endColumn > column ? 1 : -1;
+		int stepRow = endRow > row ? 1 : -1;
+		int error = dColumn - dRow;
+
+		for (int remaining = dColumn + dRow; remaining > 0; remaining--) {
+			if (error > 0) {
+				column += stepColumn;
+				error -= 2 * dRow;
+			}
+			else if (error < 0) {
+				row += stepRow;
+				error += 2 * dColumn;
+			}
+			else {
+				// straight through a corner: both cells beside it have to be clear
+				if (!isFree(column + stepColumn, row) || !isFree(column, row + stepRow)) {
+					return false;
+				}
+				column += stepColumn;
+				row += stepRow;
+				error += 2 * (dColumn - dRow);
+				remaining--;
+			}
+			if (!isFree(column, row)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the closest free cell (spiralling out in squares), or -1 if there's
+	 *         none nearby
+	 */
+	private int nearestFree(int pCell) {
+		int column = mGrid.getColumn(pCell);
+		int row = mGrid.getRow(pCell);
+		int maxRadius = (int) Math.ceil(AutoConstants.Planner.MAX_SNAP_DISTANCE / mGrid.getCellSize());
+
+		int best = -1;
+		double bestDistanceSq = Double.POSITIVE_INFINITY;
+		for (int radius = 0; radius <= maxRadius && best < 0; radius++) {
+			for (int dRow = -radius; dRow <= radius; dRow++) {
+				for (int dColumn = -radius; dColumn <= radius; dColumn++) {
+					if (Math.max(Math.abs(dRow), Math.abs(dColumn)) != radius || !isFree(column + dColumn, row + dRow)) {
+						continue;
+					}
+					double distanceSq = dRow * dRow + dColumn * dColumn;
+					if (distanceSq < bestDistanceSq) {
+						bestDistanceSq = distanceSq;
+						best = (row + dRow) * mGrid.getColumns() + column + dColumn;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	private double distance(int pA, int pB) {
+		return Math.hypot(mGrid.getX(pA) - mGrid.getX(pB), mGrid.getY(pA) - mGrid.getY(pB));
+	}
+
+	private double heuristic(int pCell, int pGoal) {
+		return distance(pCell, pGoal);
+	}
+}
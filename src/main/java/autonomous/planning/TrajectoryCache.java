@@ -0,0 +1,357 @@
+package autonomous.planning;
+
+import autonomous.paths.Path;
+import autonomous.paths.Trajectory;
+import autonomous.paths.TrajectoryGenerator;
+import constants.AutoConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import resource.Pose;
+import resource.ResourceFunctions;
+
+/**
+ * Plans trajectories between poses and keeps the most recently used ones, so
+ * asking for the same drive from about the same place again skips planning,
+ * splining and timing
+ *
+ * A hit needs the goal to be within GOAL_RESOLUTION of a cached goal and the
+ * start within tolerance of its cached start, compared directly (headings
+ * wrapped) so nothing is lost at a rounding boundary. There are few enough
+ * entries to check them all. The trajectory is then followed from the cached
+ * start, so the robot still ends up at the goal. Memory is bounded by both the
+ * number of entries and the total trajectory samples kept
+ *
+ * Misses can be planned on a background thread, so a command started from the
+ * robot loop doesn't stall it: request a trajectory, then check each loop until
+ * it's done
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryCache {
+
+	private ThetaStarPlanner mPlanner;
+	private TrajectoryGenerator mTrajectoryGenerator;
+
+	// entries, in slots
+	private Trajectory[] mTrajectories;
+	private double[] mStartX;
+	private double[] mStartY;
+	private double[] mStartHeading;
+	private double[] mGoalX;
+	private double[] mGoalY;
+	private double[] mGoalHeading;
+	private int mNumEntries;
+	private int mNumSamples;
+
+	// recency, as a doubly linked list over slots: head is most recent
+	private int[] mNewer;
+	private int[] mOlder;
+	private int mNewest = -1;
+	private int mOldest = -1;
+
+	private int mHits;
+	private int mMisses;
+
+	// background planning; requests are numbered, and only the latest is kept.
+	// Guarded by this
+	private int mRequest;
+	private int mDoneRequest;
+	private Pose mRequestStart = new Pose();
+	private Pose mRequestGoal = new Pose();
+	private Trajectory mResult;
+	private Pose mResultOrigin = new Pose();
+
+	// held while planning; the planner and generator aren't thread safe
+	private final Object mPlanLock = new Object();
+
+	public TrajectoryCache() {
+		this(new ThetaStarPlanner(), new TrajectoryGenerator(), AutoConstants.PathCache.MAX_ENTRIES);
+	}
+
+	/**
+	 * @param pPlanner
+	 *            planner for misses
+	 * @param pTrajectoryGenerator
+	 *            timing for misses
+	 * @param pMaxEntries
+	 *            most trajectories to keep
+	 */
+	public TrajectoryCache(ThetaStarPlanner pPlanner, TrajectoryGenerator pTrajectoryGenerator, int pMaxEntries) {
+		mPlanner = pPlanner;
+		mTrajectoryGenerator = pTrajectoryGenerator;
+		mTrajectories = new Trajectory[pMaxEntries];
+		mStartX = new double[pMaxEntries];
+		mStartY = new double[pMaxEntries];
+		mStartHeading = new double[pMaxEntries];
+		mGoalX = new double[pMaxEntries];
+		mGoalY = new double[pMaxEntries];
+		mGoalHeading = new double[pMaxEntries];
+		mNewer = new int[pMaxEntries];
+		mOlder = new int[pMaxEntries];
+
+		Thread thread = new Thread(this::run, "Trajectory Planner");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Gets a trajectory from one pose to another, planning it here if it isn't
+	 * cached. Not for the robot loop; use requestTrajectory there
+	 *
+	 * @param pStart
+	 *            where the robot is, field relative
+	 * @param pGoal
+	 *            where it should end up, field relative
+	 * @param pOrigin
+	 *            set to the pose the trajectory is relative to: the start, or the
+	 *            cached start it was planned from
+	 * @return the trajectory, or null if there's no way there
+	 */
+	public Trajectory getTrajectory(Pose pStart, Pose pGoal, Pose pOrigin) {
+		Trajectory trajectory = getCachedTrajectory(pStart, pGoal, pOrigin);
+		if (trajectory != null) {
+			return trajectory;
+		}
+		trajectory = plan(pStart, pGoal);
+		pOrigin.set(pStart);
+		return trajectory;
+	}
+
+	/**
+	 * Gets a trajectory from one pose to another if it's cached
+	 *
+	 * @param pStart
+	 *            where the robot is, field relative
+	 * @param pGoal
+	 *            where it should end up, field relative
+	 * @param pOrigin
+	 *            set to the cached start the trajectory is relative to
+	 * @return the trajectory, or null if it isn't cached
+	 */
+	public synchronized Trajectory getCachedTrajectory(Pose pStart, Pose pGoal, Pose pOrigin) {
+		for (int slot = mNewest; slot >= 0; slot = mOlder[slot]) {
+			if (isSameGoal(pGoal, slot) && isNear(pStart, slot)) {
+				mHits++;
+				publish();
+				moveToNewest(slot);
+				pOrigin.set(mStartX[slot], mStartY[slot], mStartHeading[slot]);
+				return mTrajectories[slot];
+			}
+		}
+
+		mMisses++;
+		publish();
+		return null;
+	}
+
+	/**
+	 * Starts planning a trajectory on the background thread. Replaces any request
+	 * that hasn't finished
+	 *
+	 * @param pStart
+	 *            where the robot is, field relative; copied
+	 * @param pGoal
+	 *            where it should end up, field relative; copied
+	 * @return request number, for isDone and getResult
+	 */
+	public synchronized int requestTrajectory(Pose pStart, Pose pGoal) {
+		mRequest++;
+		mRequestStart.set(pStart);
+		mRequestGoal.set(pGoal);
+		notifyAll();
+		return mRequest;
+	}
+
+	/**
+	 * @param pRequest
+	 *            number from requestTrajectory
+	 * @return whether that request has been planned, or replaced by a later one
+	 */
+	public synchronized boolean isDone(int pRequest) {
+		return mDoneRequest >= pRequest;
+	}
+
+	/**
+	 * Gets what a finished request planned
+	 *
+	 * @param pRequest
+	 *            number from requestTrajectory
+	 * @param pOrigin
+	 *            set to the start the trajectory is relative to
+	 * @return the trajectory, or null if there's no way there or the request was
+	 *         replaced
+	 */
+	public synchronized Trajectory getResult(int pRequest, Pose pOrigin) {
+		if (mDoneRequest != pRequest) {
+			return null;
+		}
+		pOrigin.set(mResultOrigin);
+		return mResult;
+	}
+
+	/**
+	 * Drops every cached trajectory
+	 */
+	public synchronized void clear() {
+		for (int slot = 0; slot < mTrajectories.length; slot++) {
+			mTrajectories[slot] = null;
+		}
+		mNumEntries = 0;
+		mNumSamples = 0;
+		mNewest = -1;
+		mOldest = -1;
+	}
+
+	public int getHits() {
+		return mHits;
+	}
+
+	public int getMisses() {
+		return mMisses;
+	}
+
+	/**
+	 * Plans, splines and times a trajectory, and caches it
+	 *
+	 * @return the trajectory, or null if there's no way there
+	 */
+	private Trajectory plan(Pose pStart, Pose pGoal) {
+		Trajectory trajectory;
+		synchronized (mPlanLock) {
+			Path path = mPlanner.plan(pStart, pGoal);
+			if (path == null) {
+				return null;
+			}
+			trajectory = mTrajectoryGenerator.generate(path, 0, pGoal.getHeading() - pStart.getHeading());
+		}
+		synchronized (this) {
+			add(pStart, pGoal, trajectory);
+		}
+		return trajectory;
+	}
+
+	private void run() {
+		Pose start = new Pose();
+		Pose goal = new Pose();
+		int handled = 0;
+		while (true) {
+			int request;
+			synchronized (this) {
+				while (mRequest == handled) {
+					try {
+						wait();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+				}
+				request = mRequest;
+				start.set(mRequestStart);
+				goal.set(mRequestGoal);
+			}
+
+			Trajectory trajectory = null;
+			try {
+				trajectory = plan(start, goal);
+			}
+			catch (RuntimeException e) {
+				DriverStation.reportError("Planning to " + goal + " failed: " + e, false);
+			}
+			synchronized (this) {
+				mResult = trajectory;
+				mResultOrigin.set(start);
+				mDoneRequest = request;
+			}
+			handled = request;
+		}
+	}
+
+	/**
+	 * Caches a trajectory, unless it's too big to ever fit
+	 */
+	private void add(Pose pStart, Pose pGoal, Trajectory pTrajectory) {
+		if (pTrajectory.size() > AutoConstants.PathCache.MAX_SAMPLES) {
+			return;
+		}
+
+		// make room, oldest first
+		while (mNumEntries > 0 && (mNumEntries == mTrajectories.length
+				|| mNumSamples + pTrajectory.size() > AutoConstants.PathCache.MAX_SAMPLES)) {
+			int oldest = mOldest;
+			unlink(oldest);
+			mNumSamples -= mTrajectories[oldest].size();
+			mTrajectories[oldest] = null;
+			mNumEntries--;
+		}
+
+		int slot = 0;
+		while (mTrajectories[slot] != null) {
+			slot++;
+		}
+		mTrajectories[slot] = pTrajectory;
+		mStartX[slot] = pStart.getX();
+		mStartY[slot] = pStart.getY();
+		mStartHeading[slot] = pStart.getHeading();
+		mGoalX[slot] = pGoal.getX();
+		mGoalY[slot] = pGoal.getY();
+		mGoalHeading[slot] = pGoal.getHeading();
+		mNumEntries++;
+		mNumSamples += pTrajectory.size();
+		linkNewest(slot);
+	}
+
+	private boolean isNear(Pose pStart, int pSlot) {
+		return Math.hypot(pStart.getX() - mStartX[pSlot], pStart.getY() - mStartY[pSlot])
+				<= AutoConstants.PathCache.POSITION_TOLERANCE
+				&& Math.abs(ResourceFunctions.continuousAngleDif(pStart.getHeading(),
+						mStartHeading[pSlot])) <= AutoConstants.PathCache.HEADING_TOLERANCE;
+	}
+
+	private boolean isSameGoal(Pose pGoal, int pSlot) {
+		return Math.hypot(pGoal.getX() - mGoalX[pSlot], pGoal.getY() - mGoalY[pSlot])
+				<= AutoConstants.PathCache.GOAL_RESOLUTION
+				&& Math.abs(ResourceFunctions.continuousAngleDif(pGoal.getHeading(),
+						mGoalHeading[pSlot])) <= AutoConstants.PathCache.GOAL_RESOLUTION;
+	}
+
+	private void moveToNewest(int pSlot) {
+		if (pSlot != mNewest) {
+			unlink(pSlot);
+			linkNewest(pSlot);
+		}
+	}
+
+	private void linkNewest(int pSlot) {
+		mNewer[pSlot] = -1;
+		mOlder[pSlot] = mNewest;
+		if (mNewest >= 0) {
+			mNewer[mNewest] = pSlot;
+		}
+		mNewest = pSlot;
+		if (mOldest < 0) {
+			mOldest = pSlot;
+		}
+	}
+
+	private void unlink(int pSlot) {
+		if (mNewer[pSlot] >= 0) {
+			mOlder[mNewer[pSlot]] = mOlder[pSlot];
+		}
+		else {
+			mNewest = mOlder[pSlot];
+		}
+		if (mOlder[pSlot] >= 0) {
+			mNewer[mOlder[pSlot]] = mNewer[pSlot];
+		}
+		else {
+			mOldest = mNewer[pSlot];
+		}
+	}
+
+	private void publish() {
+		SmartDashboard.putNumber("Path Cache Hits", mHits);
+		SmartDashboard.putNumber("Path Cache Misses", mMisses);
+	}
+}
@@ -0,0 +1,125 @@
+package autonomous.profiles;
+
+/**
+ * One dimensional motion profile made of segments of constant jerk, starting
+ * and ending at rest. Everything is worked out when it's built, so sampling is
+ * closed form: find the segment, then evaluate one polynomial
+ *
+ * @author 3419
+ *
+ */
+public abstract class MotionProfile {
+
+	// state at the start of each segment, plus one past the end
+	private double[] mStartTimes;
+	private double[] mStartPositions;
+	private double[] mStartVelocities;
+	private double[] mStartAccelerations;
+	// jerk during each segment
+	private double[] mJerks;
+	private int mNumSegments;
+
+	/**
+	 * @param pMaxSegments
+	 *            most segments the profile will have
+	 */
+	protected MotionProfile(int pMaxSegments) {
+		mStartTimes = new double[pMaxSegments + 1];
+		mStartPositions = new double[pMaxSegments + 1];
+		mStartVelocities = new double[pMaxSegments + 1];
+		mStartAccelerations = new double[pMaxSegments + 1];
+		mJerks = new double[pMaxSegments];
+		mNumSegments = 0;
+	}
+
+	/**
+	 * Adds a segment to the end of the profile. Zero length segments are skipped
+	 *
+	 * @param pDuration
+	 *            length of the segment, seconds
+	 * @param pStartAcceleration
+	 *            acceleration at the start of the segment
+	 * @param pJerk
+	 *            jerk during the segment
+	 */
+	protected void addSegment(double pDuration, double pStartAcceleration, double pJerk) {
+		if (pDuration <= 0) {
+			return;
+		}
+		int i = mNumSegments;
+		mStartAccelerations[i] = pStartAcceleration;
+		mJerks[i] = pJerk;
+
+		double t = pDuration;
+		mStartTimes[i + 1] = mStartTimes[i] + t;
+		mStartPositions[i + 1] = mStartPositions[i] + mStartVelocities[i] * t + pStartAcceleration * t * t / 2
+				+ pJerk * t * t * t / 6;
+		mStartVelocities[i + 1] = mStartVelocities[i] + pStartAcceleration * t + pJerk * t * t / 2;
+		mStartAccelerations[i + 1] = 0;
+		mNumSegments++;
+	}
+
+	/**
+	 * Flips every segment so the profile runs the other way
+	 */
+	protected void negate() {
+		for (int i = 0; i <= mNumSegments; i++) {
+			mStartPositions[i] = -mStartPositions[i];
+			mStartVelocities[i] = -mStartVelocities[i];
+			mStartAccelerations[i] = -mStartAccelerations[i];
+			if (i < mNumSegments) {
+				mJerks[i] = -mJerks[i];
+			}
+		}
+	}
+
+	/**
+	 * Samples the profile. Before the start it is at rest at 0; after the end it is
+	 * at rest at the final position
+	 *
+	 * @param pTime
+	 *            seconds since the profile started
+	 * @param pOut
+	 *            state to fill in
+	 */
+	public void sample(double pTime, ProfileState pOut) {
+		pOut.time = pTime;
+		if (mNumSegments == 0 || pTime <= 0) {
+			pOut.position = 0;
+			pOut.velocity = 0;
+			pOut.acceleration = 0;
+			return;
+		}
+		if (pTime >= mStartTimes[mNumSegments]) {
+			pOut.position = mStartPositions[mNumSegments];
+			pOut.velocity = 0;
+			pOut.acceleration = 0;
+			return;
+		}
+
+		int i = 0;
+		while (pTime >= mStartTimes[i + 1]) {
+			i++;
+		}
+		double t = pTime - mStartTimes[i];
+		double a = mStartAccelerations[i];
+		double j = mJerks[i];
+		pOut.position = mStartPositions[i] + mStartVelocities[i] * t + a * t * t / 2 + j * t * t * t / 6;
+		pOut.velocity = mStartVelocities[i] + a * t + j * t * t / 2;
+		pOut.acceleration = a + j * t;
+	}
+
+	/**
+	 * @return how long the profile takes, seconds
+	 */
+	public double getDuration() {
+		return mStartTimes[mNumSegments];
+	}
+
+	/**
+	 * @return where the profile ends
+	 */
+	public double getDistance() {
+		return mStartPositions[mNumSegments];
+	}
+}
@@ -0,0 +1,19 @@
+package autonomous.profiles;
+
+/**
+ * Position, velocity and acceleration along a motion profile at one time.
+ * Reused between samples so sampling doesn't allocate
+ *
+ * @author 3419
+ *
+ */
+public class ProfileState {
+	public double time;
+	public double position;
+	public double velocity;
+	public double acceleration;
+
+	public String toString() {
+		return String.format("t: %f, p: %f, v: %f, a: %f", time, position, velocity, acceleration);
+	}
+}
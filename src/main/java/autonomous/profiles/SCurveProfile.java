@@ -0,0 +1,78 @@
+package autonomous.profiles;
+
+/**
+ * Jerk limited profile: acceleration ramps up and down instead of stepping, so
+ * the robot doesn't lurch at the start and end of each phase. Up to seven
+ * segments (jerk up, constant acceleration, jerk down, cruise, and the mirror
+ * image to stop)
+ *
+ * @author 3419
+ *
+ */
+public class SCurveProfile extends MotionProfile {
+
+	/**
+	 * @param pDistance
+	 *            distance to travel; negative goes backwards
+	 * @param pMaxVelocity
+	 *            max velocity, distance per second
+	 * @param pMaxAcceleration
+	 *            max acceleration, distance per second squared
+	 * @param pMaxJerk
+	 *            max jerk, distance per second cubed
+	 */
+	public SCurveProfile(double pDistance, double pMaxVelocity, double pMaxAcceleration, double pMaxJerk) {
+		super(7);
+		double distance = Math.abs(pDistance);
+		double a = pMaxAcceleration;
+		double j = pMaxJerk;
+
+		// fastest we can go and still stop in time
+		double velocity = pMaxVelocity;
+		if (velocity * accelerationTime(velocity, a, j) > distance) {
+			// with max acceleration reached: v * (v / a + a / j) = d
+			velocity = a / 2 * (-a / j + Math.sqrt(a * a / (j * j) + 4 * distance / a));
+			if (velocity < a * a / j) {
+				// max acceleration not reached: 2 * v * sqrt(v / j) = d
+				velocity = Math.pow(distance * Math.sqrt(j) / 2, 2.0 / 3.0);
+			}
+		}
+
+		double jerkTime;
+		double constantAccelTime;
+		if (velocity < a * a / j) {
+			jerkTime = Math.sqrt(velocity / j);
+			constantAccelTime = 0;
+		}
+		else {
+			jerkTime = a / j;
+			constantAccelTime = velocity / a - jerkTime;
+		}
+		double peakAccel = j * jerkTime;
+		double cruiseTime = velocity > 0
+				? Math.max(0, (distance - velocity * accelerationTime(velocity, a, j)) / velocity)
+				: 0;
+
+		addSegment(jerkTime, 0, j);
+		addSegment(constantAccelTime, peakAccel, 0);
+		addSegment(jerkTime, peakAccel, -j);
+		addSegment(cruiseTime, 0, 0);
+		addSegment(jerkTime, 0, -j);
+		addSegment(constantAccelTime, -peakAccel, 0);
+		addSegment(jerkTime, -peakAccel, j);
+
+		if (pDistance < 0) {
+			negate();
+		}
+	}
+
+	/**
+	 * Time to get from rest to a velocity
+	 */
+	private static double accelerationTime(double pVelocity, double pMaxAcceleration, double pMaxJerk) {
+		if (pVelocity < pMaxAcceleration * pMaxAcceleration / pMaxJerk) {
+			return 2 * Math.sqrt(pVelocity / pMaxJerk);
+		}
+		return pVelocity / pMaxAcceleration + pMaxAcceleration / pMaxJerk;
+	}
+}
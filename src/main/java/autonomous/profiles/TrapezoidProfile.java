@@ -0,0 +1,44 @@
+package autonomous.profiles;
+
+/**
+ * Accelerates at a constant rate up to a max velocity, cruises, then
+ * decelerates at the same rate to stop at the target. Becomes a triangle if the
+ * distance is too short to reach max velocity
+ *
+ * @author 3419
+ *
+ */
+public class TrapezoidProfile extends MotionProfile {
+
+	/**
+	 * @param pDistance
+	 *            distance to travel; negative goes backwards
+	 * @param pMaxVelocity
+	 *            max velocity, distance per second
+	 * @param pMaxAcceleration
+	 *            max acceleration, distance per second squared
+	 */
+	public TrapezoidProfile(double pDistance, double pMaxVelocity, double pMaxAcceleration) {
+		super(3);
+		double distance = Math.abs(pDistance);
+
+		double accelTime = pMaxVelocity / pMaxAcceleration;
+		double cruiseTime;
+		if (pMaxVelocity * accelTime > distance) {
+			// never gets to max velocity
+			accelTime = Math.sqrt(distance / pMaxAcceleration);
+			cruiseTime = 0;
+		}
+		else {
+			cruiseTime = (distance - pMaxVelocity * accelTime) / pMaxVelocity;
+		}
+
+		addSegment(accelTime, pMaxAcceleration, 0);
+		addSegment(cruiseTime, 0, 0);
+		addSegment(accelTime, -pMaxAcceleration, 0);
+
+		if (pDistance < 0) {
+			negate();
+		}
+	}
+}
@@ -6,10 +6,12 @@ import frc.robot.Robot;
 
 import autonomous.AutonomousRoutine;
 import autonomous.commands.AutonomousCommand;
-import autonomous.commands.ParameterizedPathDriveCommand;
+import autonomous.commands.DistanceDriveCommand;
 import autonomous.commands.StopCommand;
-import autonomous.commands.StraightLineDriveCommand;
+import autonomous.commands.TrajectoryFollowCommand;
 import autonomous.commands.TurnRobotToAngleCommand;
+import autonomous.paths.AutoPath;
+import autonomous.profiles.SCurveProfile;
 import constants.AutoConstants;
 
 public class DefaultRoutine implements AutonomousRoutine {
@@ -24,33 +26,20 @@ public class DefaultRoutine implements AutonomousRoutine {
 	public ArrayList<AutonomousCommand> getAutonomousCommands() {
 		ArrayList<AutonomousCommand> returnValue = new ArrayList<AutonomousCommand>();
 
-		// accelerate
-		returnValue.add(new StraightLineDriveCommand(
+		// drive forward, speeding up and slowing down smoothly
+		returnValue.add(new DistanceDriveCommand(
 				mRobot,
 				AutoConstants.DefaultRoutine.WHEEL_ANGLE,
-				AutoConstants.DefaultRoutine.MINIMUM_SPEED,
-				AutoConstants.DefaultRoutine.MAXIMUM_SPEED,
-				AutoConstants.DefaultRoutine.ACCELERATION_TIME));
-
-		// drive full speed
-		returnValue.add(new StraightLineDriveCommand(
-				mRobot,
-				AutoConstants.DefaultRoutine.WHEEL_ANGLE,
-				AutoConstants.DefaultRoutine.MAXIMUM_SPEED,
-				AutoConstants.DefaultRoutine.MAXIMUM_SPEED,
-				AutoConstants.DefaultRoutine.DRIVE_FULL_SPEED_TIME));
-
-		// slow down then stop
-		returnValue.add(new StraightLineDriveCommand(
-				mRobot,
-				AutoConstants.DefaultRoutine.WHEEL_ANGLE,
-				AutoConstants.DefaultRoutine.MAXIMUM_SPEED,
-				AutoConstants.DefaultRoutine.MINIMUM_SPEED,
-				AutoConstants.DefaultRoutine.DECELERATION_TIME));
+				new SCurveProfile(
+						AutoConstants.DefaultRoutine.DRIVE_DISTANCE,
+						AutoConstants.DefaultRoutine.MAXIMUM_SPEED,
+						AutoConstants.DefaultRoutine.MAXIMUM_ACCELERATION,
+						AutoConstants.DefaultRoutine.MAXIMUM_JERK)));
 
 		returnValue.add(new StopCommand(mRobot));
-		returnValue.add(new TurnRobotToAngleCommand(mRobot, -90)); // TODO this is a default angle setting
-		returnValue.add(new ParameterizedPathDriveCommand(mRobot, 4, Math.PI/10000, 0, 4, Math.PI/10000, 0, 5000));
+		returnValue.add(new TurnRobotToAngleCommand(mRobot, -90) // TODO this is a default angle setting
+				.withTimeout(AutoConstants.DefaultRoutine.TURN_TIMEOUT));
+		returnValue.add(new TrajectoryFollowCommand(mRobot, AutoPath.DEFAULT_S_CURVE.load()));
 		returnValue.add(new StopCommand(mRobot));
 		
 		return returnValue;
@@ -2,16 +2,143 @@ package constants;
 
 public class AutoConstants {
 
+	public final static double 
+		PREPARE_TIME_STEP = 0.005; // seconds between samples when warming up commands
+
 	public static class DefaultRoutine 
 	{	
 		public final static double 
 		WHEEL_ANGLE = 0,
-		MINIMUM_SPEED = 0.3,
-		MAXIMUM_SPEED = 0.3;
+		DRIVE_DISTANCE = 120, // inches
+		MAXIMUM_SPEED = 45, // inches per second
+		MAXIMUM_ACCELERATION = 45, // inches per second squared
+		MAXIMUM_JERK = 180, // inches per second cubed
+		TURN_TIMEOUT = 2.0; // seconds
+	}
+	
+	public static class Routines 
+	{
+		public final static String 
+		DIRECTORY = "routines", // inside the deploy directory
+		EXTENSION = ".auto",
+		DEFAULT_NAME = "default", // selected at boot
+		DO_NOTHING_NAME = "do nothing";
+	}
+	
+	public static class StartPose 
+	{
+		// routines without a start line: center of our HAB, front bumper at the edge
+		public final static double 
+		X = FieldConstants.HAB_DEPTH, // inches
+		Y = FieldConstants.WIDTH / 2, // inches
+		HEADING = 0; // degrees, facing down the field
+	}
+	
+	public static class Macros 
+	{
+		public final static String 
+		DIRECTORY = "macros", // inside the deploy directory
+		EXTENSION = ".macro",
+		TEMP_EXTENSION = ".tmp"; // added to the macro's name while it's being recorded
+		
+		public final static int 
+		RECORD_BUFFER_BYTES = 1 << 18; // about 45 seconds of frames before it has to write to disk
+	}
+	
+	public static class Planner 
+	{
+		public final static double 
+		CELL_SIZE = 4, // inches
+		CLEARANCE = 28, // straight runs stay this far from anything, inches
+		ROBOT_RADIUS = 25, // center to bumper corner; the rounded path stays this far, inches
+		MAX_SNAP_DISTANCE = 36; // how far a blocked start or goal can be moved to a free cell, inches
+		
+		public final static int 
+		MAX_SMOOTHING_PASSES = 3;
+	}
+	
+	public static class PathCache 
+	{
+		public final static double 
+		POSITION_TOLERANCE = 6, // how far from a cached start still uses it, inches
+		HEADING_TOLERANCE = 10, // degrees
+		GOAL_RESOLUTION = 1; // goals closer than this are the same, inches and degrees
+		
+		public final static int 
+		MAX_ENTRIES = 16,
+		MAX_SAMPLES = 20000; // across all entries; about 1.4 MB of trajectory
+	}
+	
+	public static class Assist 
+	{
+		public final static double 
+		LOADING_STATION_DISTANCE = 24; // robot center from the wall when it stops, inches
+	}
+	
+	public static class Paths 
+	{
+		public final static double 
+		MAX_SEGMENT_LENGTH = 2.0, // inches between path samples
+		MAX_HEADING_CHANGE = 5.0, // degrees between path samples
+		TANGENT_SCALE = 1.2, // how hard waypoints pull towards their headings
+		MIN_PARAMETER_STEP = 1.0 / 4096; // stop splitting past this
+		
+		public final static int 
+		INITIAL_PIECES = 8;
+	}
+	
+	public static class Trajectories 
+	{
+		public final static double 
+		MAX_ACCELERATION = 60, // inches per second squared
+		MAX_CENTRIPETAL_ACCELERATION = 60; // inches per second squared
+		
+		public final static String 
+		DIRECTORY = "trajectories"; // inside the deploy directory
+	}
+	
+	public static class Optimizer 
+	{
+		public final static double 
+		MAX_ANGULAR_ACCELERATION = 720, // degrees per second squared
+		OBSTACLE_MARGIN = 2, // added to the planner's robot radius, inches
+		START_SPREAD = 60, // how far starting guesses bow out sideways, inches
+		SMOOTHING = 0.0001, // weight on acceleration changes, against time
+		TOLERANCE = 1E-6, // constraint violation, scaled
+		OUTPUT_TIME_STEP = 0.01; // seconds between written samples
 		
-		public final static long 
-		ACCELERATION_TIME = 1000,
-		DRIVE_FULL_SPEED_TIME = 1000,
-		DECELERATION_TIME = 1000;	
+		public final static int 
+		KNOTS_PER_SEGMENT = 25, // between waypoints, counting both ends
+		STARTS = 16, // multistart guesses, spread across the cores
+		MAX_OUTER_ITERATIONS = 30,
+		MAX_INNER_ITERATIONS = 2000;
+	}
+	
+	public static class TrajectoryFollow 
+	{
+		public final static double 
+		POSITION_P = 2.0, // inches per second per inch off
+		HEADING_P = 3.0, // degrees per second per degree off
+		TOLERANCE = 2.0, // inches
+		TIMEOUT = 1.0; // seconds past the end of the trajectory
+	}
+	
+	public static class PathDrive 
+	{
+		public final static double 
+		SPEED = 45, // inches per second
+		END_DECELERATION = 45, // inches per second squared
+		LOOKAHEAD = 12, // inches
+		SEARCH_DISTANCE = 24, // how far ahead to look for the closest sample each loop
+		TOLERANCE = 2.0; // inches
+	}
+	
+	public static class DistanceDrive 
+	{
+		public final static double 
+		P = 2.0, // inches per second per inch behind
+		HEADING_P = 3.0, // degrees per second per degree off
+		TOLERANCE = 1.0, // inches
+		TIMEOUT = 1.0; // seconds past the end of the profile
 	}
 }
@@ -0,0 +1,31 @@
+package constants;
+
+public class CANConstants {
+
+	//*****//
+	// BUS //
+	//*****//
+	public static final double
+		BIT_RATE = 1E6, // bits per second
+		BITS_PER_FRAME = 131, // extended id, 8 data bytes, before bit stuffing
+		RESET_CHECK_PERIOD = 1.0; // seconds between checking the Talons for resets
+
+	public static final int
+		CONTROL_PERIOD = 10; // ms, the roboRIO's control frame to each Talon
+
+	//***************//
+	// STATUS FRAMES //
+	//***************//
+	// ms per frame, in the order: general (output, limit switches), feedback (selected
+	// sensor, current), quadrature, analog/temp/battery, pulse width, motion magic
+	// targets, closed loop. 255 is the slowest a Talon will go
+	public static class StatusFrames {
+		public static final int[]
+			DEFAULT = { 10, 20, 160, 160, 160, 160, 160 }, // what the Talon does on its own
+			STEER = { 100, 10, 255, 255, 255, 255, 255 }, // position read every loop
+			DRIVE = { 20, 10, 255, 255, 255, 255, 255 }, // velocity for odometry, output for the dashboard
+			LEADSCREW = { 20, 20, 255, 255, 255, 255, 255 }, // zeroes on the reverse limit switch
+			BALL_HOLDER = { 100, 20, 255, 255, 255, 255, 255 }, // position for the soft limits
+			CLIMBER = { 20, 100, 255, 255, 255, 255, 255 }; // only the limit switches are used
+	}
+}
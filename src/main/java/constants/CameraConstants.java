@@ -16,6 +16,11 @@ public class CameraConstants {
 
         public static final double HEIGHT = 15.75; //13.9375;//13.75;
         public static final int PIPELINE = 1;
+
+        public static final double 
+            X_OFFSET = 0, // inches forward of robot center
+            Y_OFFSET = 0, // inches right of robot center
+            CAPTURE_LATENCY = 0.011; // seconds, on top of the reported pipeline latency
     }
 
 }
@@ -20,6 +20,120 @@ public class DriveConstants {
 			MAX_LINEAR_VELOCITY = 0.75;
 
 	
+	//****************//
+	// DRIVE ENCODERS //
+	//****************//
+	public static final double
+			WHEEL_DIAMETER = 4.0, // inches
+			DRIVE_TICKS_PER_REV = 4096,
+			DRIVE_TICKS_PER_INCH = DRIVE_TICKS_PER_REV / (Math.PI * WHEEL_DIAMETER),
+			DRIVE_FREE_SPEED = 150; // inches per second at full output
+
+	//*************//
+	// LOOP TIMING //
+	//*************//
+	public static final double
+			NOMINAL_LOOP_TIME = 0.005, // seconds
+			MAX_LOOP_TIME = 0.1; // longer than this and the last loop is stale
+
+	public static final boolean
+			DISCRETIZE_KINEMATICS = true;
+
+	public static final double
+			REVERSE_HYSTERESIS = 10; // degrees past 90 before a wheel flips direction
+
+	//*************************//
+	// DRIVE VELOCITY CONTROL //
+	//*************************//
+	public static final boolean // closed loop velocity on the drive Talons, per linear velocity mode
+			VELOCITY_CONTROL_NORMAL = true,
+			VELOCITY_CONTROL_NUDGE = false;
+
+	public static final double
+			VOLTAGE_COMPENSATION = 12.0,
+			MAX_FEEDFORWARD_ACCEL = 600; // inches per second squared; more than the drive can do is a jump, not an acceleration
+
+	//***************//
+	// STEERING MODE //
+	//***************//
+	public static final boolean
+			STEER_MOTION_MAGIC = true; // false for plain Position control
+
+	public static final int // steering Talon gain slots; motion magic needs kF, Position must not have it
+			POSITION_SLOT = 0,
+			MOTION_MAGIC_SLOT = 1;
+
+
+	//**************//
+	// GYRO HISTORY //
+	//**************//
+	public static class GyroHistory { // seconds
+		public static final int
+			SIZE = 50;
+
+		public static final double
+			LATENCY = 0.005, // NavX reading age when it arrives
+			UPDATE_PERIOD = 1.0 / NavX.UPDATE_RATE, // time between NavX readings
+			RATE_WINDOW = 0.04, // history used for angular velocity
+			MAX_PREDICTION = 0.1,
+			ACTUATION_DELAY = 0.02; // from command until the modules act on it
+	}
+
+	//******//
+	// NAVX //
+	//******//
+	public static class NavX {
+		public static final boolean
+			SPI = true; // false for the MXP serial port
+
+		public static final int
+			UPDATE_RATE = 200, // Hz, 4 to 200
+			BUFFER_SIZE = 64; // samples kept, a power of two
+
+		public static final double
+			MAX_YAW_RATE = 2000; // degrees per second; a bigger jump between samples is a reset, not a turn
+	}
+
+	//*****************//
+	// SETPOINT LIMITS //
+	//*****************//
+	public static class SetpointLimits { // output units (0 to 1) per second; steer rate in degrees per second
+		public static final double
+			NORMAL_ACCEL = 3.0,
+			NORMAL_JERK = 30.0,
+			NORMAL_ANGULAR_ACCEL = 4.0,
+			NORMAL_ANGULAR_JERK = 40.0,
+			NORMAL_STEER_RATE = 720,
+
+			NUDGE_ACCEL = 2.0,
+			NUDGE_JERK = 20.0,
+			NUDGE_ANGULAR_ACCEL = 2.0,
+			NUDGE_ANGULAR_JERK = 20.0,
+			NUDGE_STEER_RATE = 720,
+
+			ANGLE_ONLY_ACCEL = 3.0, // slowing down when the trigger is let go
+			ANGLE_ONLY_JERK = 30.0,
+			ANGLE_ONLY_ANGULAR_ACCEL = 4.0,
+			ANGLE_ONLY_ANGULAR_JERK = 40.0,
+			ANGLE_ONLY_STEER_RATE = 720;
+	}
+
+	//****************//
+	// POSE ESTIMATOR //
+	//****************//
+	public static class Estimator {
+		public static final double
+			ODOMETRY_TRANSLATION_STD = 0.05, // per inch driven
+			ODOMETRY_ROTATION_STD = 0.05, // per radian turned
+			GYRO_STD = Math.toRadians(1.0),
+			VISION_STD = 3.0, // inches
+			VISION_GATE = 36; // inches; a sighting further than this from the estimate is the wrong target
+
+		public static final int 
+			HISTORY_SIZE = 100; // loops kept for late camera measurements
+	}
+
+	
 	//*****************//
 	// SWERVE SPEEDS //
 	//*****************//
@@ -47,25 +161,40 @@ public class DriveConstants {
 			
 			ROTATION_P = new double[] { 1.0, 1.0, 1.0, 1.0 },
 			ROTATION_I = new double[] { 0.001, 0.001, 0.001, 0.001 },
-			ROTATION_D = new double[] { 0, 0, 0, 0 };
+			ROTATION_D = new double[] { 0, 0, 0, 0 },
+			ROTATION_F = new double[] { 1023.0 / 600, 1023.0 / 600, 1023.0 / 600, 1023.0 / 600 }, // 1023 / max ticks per 100ms
+			
+			DRIVE_P = new double[] { 0.1, 0.1, 0.1, 0.1 },
+			DRIVE_I = new double[] { 0, 0, 0, 0 },
+			DRIVE_D = new double[] { 0, 0, 0, 0 };
 
 		public static final int[] 
 			OFFSETS = new int[] { 1588, 1186, 3163, 163},
 			
 			ROTATION_IZONE = new int[] { 500, 500, 500, 500 },
-			ROTATION_TOLERANCE = new int[] { 3, 3, 3, 3 };
+			ROTATION_TOLERANCE = new int[] { 3, 3, 3, 3 },
+			
+			// motion magic steering, ticks per 100ms and ticks per 100ms per second
+			ROTATION_CRUISE_VELOCITY = new int[] { 400, 400, 400, 400 },
+			ROTATION_ACCELERATION = new int[] { 4000, 4000, 4000, 4000 };
 			
 		public static final double
+			// heading PIDs run in the drive loop: I is per second, D is in seconds
 			GYRO_P = 0.00085,
-			GYRO_I = 0.0003,
+			GYRO_I = 0.006,
 			GYRO_D = 0,
 			GYRO_TOLERANCE = 5,
 			GYRO_MAX_SPEED = 1,
 			
 			DRIFT_COMP_P = 0.08,
-			DRIFT_COMP_I = 0.0008,
+			DRIFT_COMP_I = 0.016,
 			DRIFT_COMP_D = 0,
-			DRIFT_COMP_MAX = 0.3;
+			DRIFT_COMP_MAX = 0.3,
+			
+			// drive feedforward, in percent output: volts / 12
+			DRIVE_KS = 0.05, // to overcome friction
+			DRIVE_KV = 1.0 / DRIVE_FREE_SPEED, // per inch per second
+			DRIVE_KA = 0.0005; // per inch per second squared
 	}
 	
 	
@@ -84,24 +213,39 @@ public class DriveConstants {
 			
 			ROTATION_P = new double[] { 0.7, 0.7, 0.7, 0.7 },
 			ROTATION_I = new double[] { 0.007, 0.007, 0.007, 0.007 },
-			ROTATION_D = new double[] { 0, 0, 0, 0 };
+			ROTATION_D = new double[] { 0, 0, 0, 0 },
+			ROTATION_F = new double[] { 1023.0 / 600, 1023.0 / 600, 1023.0 / 600, 1023.0 / 600 }, // 1023 / max ticks per 100ms
+			
+			DRIVE_P = new double[] { 0.1, 0.1, 0.1, 0.1 },
+			DRIVE_I = new double[] { 0, 0, 0, 0 },
+			DRIVE_D = new double[] { 0, 0, 0, 0 };
 
 		public static final int[] 
 			OFFSETS = new int[] { 3721 , 767, 3402, 2527 },
 			ROTATION_IZONE = new int[] { 500, 500, 500, 500 },
-			ROTATION_TOLERANCE = new int[] { 3, 3, 3, 3 };
+			ROTATION_TOLERANCE = new int[] { 3, 3, 3, 3 },
+			
+			// motion magic steering, ticks per 100ms and ticks per 100ms per second
+			ROTATION_CRUISE_VELOCITY = new int[] { 400, 400, 400, 400 },
+			ROTATION_ACCELERATION = new int[] { 4000, 4000, 4000, 4000 };
 		
 		public static final double 
+			// heading PIDs run in the drive loop: I is per second, D is in seconds
 			GYRO_P = 0.00085,
-			GYRO_I = 0.0003,
+			GYRO_I = 0.006,
 			GYRO_D = 0,
 			GYRO_TOLERANCE = 5,
 			GYRO_MAX_SPEED = 1,
 
 			DRIFT_COMP_P = 0.08,
-			DRIFT_COMP_I = 0.0008,
+			DRIFT_COMP_I = 0.016,
 			DRIFT_COMP_D = 0,
-			DRIFT_COMP_MAX = 0.3;
+			DRIFT_COMP_MAX = 0.3,
+			
+			// drive feedforward, in percent output: volts / 12
+			DRIVE_KS = 0.05, // to overcome friction
+			DRIVE_KV = 1.0 / DRIVE_FREE_SPEED, // per inch per second
+			DRIVE_KA = 0.0005; // per inch per second squared
 	}
 
 }
\ No newline at end of file
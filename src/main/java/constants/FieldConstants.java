@@ -0,0 +1,88 @@
+package constants;
+
+/**
+ * 2019 field geometry, inches. x is along the field from our alliance wall, y
+ * is across it from the left side wall (looking out from our driver stations),
+ * so headings work the same as on the robot. Sizes are from the field drawings,
+ * rounded
+ */
+public class FieldConstants {
+
+	public static final double
+		LENGTH = 648,
+		WIDTH = 324;
+
+	//***************//
+	// HAB PLATFORMS //
+	//***************//
+	public static final double // levels 2 and 3 against each alliance wall; level 1 can be driven over
+		HAB_DEPTH = 48,
+		HAB_WIDTH = 128;
+
+	//************//
+	// CARGO SHIP //
+	//************//
+	public static final double
+		CARGO_SHIP_FRONT_X = 220.25, // front bays, from our wall
+		CARGO_SHIP_WIDTH = 55.75,
+		CARGO_SHIP_FRONT_BAY_Y = 10.875, // each side of the center line
+		CARGO_SHIP_SIDE_BAY_X = 40.5, // first side bay, back from the front
+		CARGO_SHIP_BAY_SPACING = 21.75;
+
+	//*********//
+	// ROCKETS //
+	//*********//
+	public static final double // against the side walls, one pair per half of the field
+		ROCKET_CENTER_X = 229.13, // from the nearer alliance wall
+		ROCKET_LENGTH = 38.6, // along the side wall
+		ROCKET_DEPTH = 27.44; // out from the side wall
+
+	//******************//
+	// LOADING STATIONS //
+	//******************//
+	public static final double // on our alliance wall
+		LOADING_STATION_LEFT_Y = 25.72,
+		LOADING_STATION_RIGHT_Y = WIDTH - 25.72;
+
+	/**
+	 * Everything the robot can't drive through, as { min x, min y, max x, max y }
+	 */
+	public static final double[][] OBSTACLES = {
+		// HAB platforms
+		{ 0, (WIDTH - HAB_WIDTH) / 2, HAB_DEPTH, (WIDTH + HAB_WIDTH) / 2 },
+		{ LENGTH - HAB_DEPTH, (WIDTH - HAB_WIDTH) / 2, LENGTH, (WIDTH + HAB_WIDTH) / 2 },
+		// cargo ship
+		{ CARGO_SHIP_FRONT_X, (WIDTH - CARGO_SHIP_WIDTH) / 2, LENGTH - CARGO_SHIP_FRONT_X, (WIDTH + CARGO_SHIP_WIDTH) / 2 },
+		// rockets
+		{ ROCKET_CENTER_X - ROCKET_LENGTH / 2, 0, ROCKET_CENTER_X + ROCKET_LENGTH / 2, ROCKET_DEPTH },
+		{ ROCKET_CENTER_X - ROCKET_LENGTH / 2, WIDTH - ROCKET_DEPTH, ROCKET_CENTER_X + ROCKET_LENGTH / 2, WIDTH },
+		{ LENGTH - ROCKET_CENTER_X - ROCKET_LENGTH / 2, 0, LENGTH - ROCKET_CENTER_X + ROCKET_LENGTH / 2, ROCKET_DEPTH },
+		{ LENGTH - ROCKET_CENTER_X - ROCKET_LENGTH / 2, WIDTH - ROCKET_DEPTH, LENGTH - ROCKET_CENTER_X + ROCKET_LENGTH / 2, WIDTH }
+	};
+
+	//****************//
+	// VISION TARGETS //
+	//****************//
+	/**
+	 * Hatch targets on our half, as { x, y, heading the target faces out into the
+	 * field }. The rocket targets are left out until their angled faces are
+	 * measured
+	 */
+	public static final double[][] VISION_TARGETS = {
+		// loading stations
+		{ 0, LOADING_STATION_LEFT_Y, 0 },
+		{ 0, LOADING_STATION_RIGHT_Y, 0 },
+		// cargo ship front
+		{ CARGO_SHIP_FRONT_X, WIDTH / 2 - CARGO_SHIP_FRONT_BAY_Y, 180 },
+		{ CARGO_SHIP_FRONT_X, WIDTH / 2 + CARGO_SHIP_FRONT_BAY_Y, 180 },
+		// cargo ship left side
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X, (WIDTH - CARGO_SHIP_WIDTH) / 2, 270 },
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X + CARGO_SHIP_BAY_SPACING, (WIDTH - CARGO_SHIP_WIDTH) / 2, 270 },
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X + 2 * CARGO_SHIP_BAY_SPACING, (WIDTH - CARGO_SHIP_WIDTH) / 2, 270 },
+		// cargo ship right side
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X, (WIDTH + CARGO_SHIP_WIDTH) / 2, 90 },
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X + CARGO_SHIP_BAY_SPACING, (WIDTH + CARGO_SHIP_WIDTH) / 2, 90 },
+		{ CARGO_SHIP_FRONT_X + CARGO_SHIP_SIDE_BAY_X + 2 * CARGO_SHIP_BAY_SPACING, (WIDTH + CARGO_SHIP_WIDTH) / 2, 90 }
+	};
+
+}
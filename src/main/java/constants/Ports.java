@@ -1,5 +1,6 @@
 package constants;
 
+import edu.wpi.first.wpilibj.SPI;
 import edu.wpi.first.wpilibj.SerialPort;
 import edu.wpi.first.wpilibj.SerialPort.Port;
 
@@ -9,6 +10,7 @@ public class Ports {
 	// GENERAL VARIABLES //
 	//*******************//
 	public static final SerialPort.Port NAVX = Port.kMXP;
+	public static final SPI.Port NAVX_SPI = SPI.Port.kMXP; // used instead when DriveConstants.NavX.SPI
 
 	public static final int
 		//Controllers
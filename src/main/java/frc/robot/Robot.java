@@ -1,5 +1,7 @@
 package frc.robot;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
@@ -7,10 +9,15 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import com.kauailabs.navx.frc.AHRS;
 
-import autonomous.AutonomousRoutineType;
+import autonomous.AutonomousPreparer;
+import autonomous.RoutineRegistry;
 import autonomous.commands.AutonomousCommand;
-import autonomous.routines.DefaultRoutine;
-import autonomous.routines.DoNothingRoutine;
+import autonomous.commands.CommandGroup;
+import autonomous.commands.PlannedDriveCommand;
+import autonomous.commands.SequentialCommandGroup;
+import autonomous.macros.MacroRecorder;
+import autonomous.planning.TrajectoryCache;
+import constants.AutoConstants;
 import constants.DriveConstants;
 import constants.JoystickConstants;
 import constants.LeadscrewConstants;
@@ -19,11 +26,14 @@ import constants.RunConstants;
 import constants.RobotState;
 import constants.BallIntakeConstants;
 import constants.CameraConstants;
+import constants.FieldConstants;
 import edu.wpi.cscore.UsbCamera;
 import edu.wpi.first.networktables.*;
 import edu.wpi.first.wpilibj.CameraServer;
 import edu.wpi.first.wpilibj.Compressor;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.GenericHID.Hand;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.PowerDistributionPanel;
@@ -31,19 +41,25 @@ import edu.wpi.first.wpilibj.SampleRobot;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import resource.Pose;
 import resource.ResourceFunctions;
 import robotcode.driving.*;
 import robotcode.driving.DriveTrain.LinearVelocity;
 import robotcode.driving.DriveTrain.RotationalVelocity;
 import robotcode.pneumatics.*;
 import robotcode.CustomJoystick;
+import robotcode.StatusFrameManager;
+import robotcode.StatusFrameManager.Role;
 import robotcode.camera.*;
 import robotcode.systems.BallIntakeMotor;
 import robotcode.systems.HatchIntake;
 import robotcode.systems.Intake;
 import robotcode.systems.Leadscrew;
 import sensors.LeadscrewEncoder;
+import sensors.NavXSample;
+import sensors.NavXService;
 import sensors.RobotAngle;
+import sensors.SensorSnapshot;
 import sensors.TalonAbsoluteEncoder;
 import framework.*;
 
@@ -64,9 +80,22 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 	// PDP and compressor
 	public PowerDistributionPanel PDP;
 	public Compressor Compressor;
+	private SensorSnapshot mSensors; // read once at the top of every loop
+	private NavXService mNavXService; // takes each NavX reading as it arrives
+	private StatusFrameManager mStatusFrames; // Talon status frame periods, per role
 
 	// autonomous setup
-	private AutonomousRoutineType mAutonomousRoutine = AutonomousRoutineType.DEFAULT;
+	private RoutineRegistry mRoutineRegistry;
+	private int mAutonomousRoutine; // index into mRoutineRegistry
+	private AutonomousPreparer mAutonomousPreparer;
+	private MacroRecorder mMacroRecorder;
+	private TrajectoryCache mTrajectoryCache; // shared by routines and drive assists
+
+	// teleop drive assists, held on PrimaryController X (left) and Y (right)
+	private PlannedDriveCommand mLeftLoadingAssist;
+	private PlannedDriveCommand mRightLoadingAssist;
+	private PlannedDriveCommand mActiveAssist;
+	private boolean mAssistDone;
 
 	// game setup
 	private boolean mInGame = false;
@@ -87,6 +116,10 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 	}
 
 	public void startGame() {
+		if (RunConstants.RUNNING_DRIVE) {
+			Drivetrain.resetSetpoint();
+		}
+
 		if (!mInGame) {
 			mGameStartMillis = System.currentTimeMillis();
 
@@ -112,7 +145,8 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 	}
 
 	public boolean dummy() {
-		int error = mLeadscrewEncoder.getError((int) mLeadscrewTalon.getClosedLoopTarget());
+		mSensors.readLeadscrew(); // called in a loop of its own, outside the robot loop
+		int error = mLeadscrewEncoder.getError(mLeadscrew.getGoalTicks());
 		SmartDashboard.putNumber("in dummy", System.currentTimeMillis());
 		SmartDashboard.putNumber("dummy closed loop error", error);
 		return error > LeadscrewConstants.PID.LEADSCREW_TOLERANCE;
@@ -120,14 +154,34 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 
 	public void robotInit() {
 		PrimaryController = new XboxController(Ports.XBOX);
-		NavX = new AHRS(Ports.NAVX);
+		mNavXService = new NavXService();
+		NavX = mNavXService.getNavX();
 		PDP = new PowerDistributionPanel();
 		Compressor = new Compressor(Ports.COMPRESSOR);
+		mSensors = new SensorSnapshot();
+		mStatusFrames = new StatusFrameManager();
+
+		mMacroRecorder = new MacroRecorder();
+		SmartDashboard.putBoolean("Record Macro", false);
+		SmartDashboard.putString("Macro Name", "recorded");
 
 		if (RunConstants.RUNNING_DRIVE) {
 			Drivetrain = new Mechanism<DriveTrain, DriveTrainState>();
+			Drivetrain.setMacroRecorder(mMacroRecorder);
 		}
 
+		mTrajectoryCache = new TrajectoryCache();
+		mLeftLoadingAssist = new PlannedDriveCommand(this, mTrajectoryCache, new Pose(
+				AutoConstants.Assist.LOADING_STATION_DISTANCE, FieldConstants.LOADING_STATION_LEFT_Y, 180));
+		mRightLoadingAssist = new PlannedDriveCommand(this, mTrajectoryCache, new Pose(
+				AutoConstants.Assist.LOADING_STATION_DISTANCE, FieldConstants.LOADING_STATION_RIGHT_Y, 180));
+
+		// parse the routine files now, while disabled
+		mRoutineRegistry = new RoutineRegistry(this);
+		mAutonomousRoutine = mRoutineRegistry.getDefaultIndex();
+		mAutonomousPreparer = new AutonomousPreparer(mRoutineRegistry);
+		mAutonomousPreparer.select(mAutonomousRoutine);
+
 		if (RunConstants.SECONDARY_JOYSTICK) {
 			SecondaryController = new CustomJoystick(Ports.JOYSTICK);
 		}
@@ -158,53 +212,72 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 			climberInit();
 		}
 
+		mStatusFrames.report();
 	}
 
 	public void autonomous() {
-		// select auto commands
-		ArrayList<AutonomousCommand> autonomousCommands;
-
-		if (mAutonomousRoutine == AutonomousRoutineType.DEFAULT) {
-			autonomousCommands = (new DefaultRoutine(this)).getAutonomousCommands();
-		} else {
-			autonomousCommands = (new DoNothingRoutine()).getAutonomousCommands();
+		// put the pose where the routine says the robot starts on the field
+		if (RunConstants.RUNNING_DRIVE) {
+			Drivetrain.resetSetpoint();
+			Pose start = mRoutineRegistry.get(mAutonomousRoutine).getStartPose();
+			Drivetrain.resetPose(start.getX(), start.getY(), start.getHeading());
 		}
 
+		// pick up the auto commands built while disabled
+		ArrayList<AutonomousCommand> autonomousCommands = mAutonomousPreparer.take(mAutonomousRoutine);
+		SequentialCommandGroup routine = new SequentialCommandGroup(autonomousCommands);
+
 		// start game
 		startGame();
 
-		// initialize step variables
-		int currentStep = 0;
-		int previousStep = -1;
+		routine.startup();
+		boolean routineDone = false;
 
 		while (isAutonomous() && isEnabled()) {
-			SmartDashboard.putNumber("Autonomous step", currentStep);
-
-			if (currentStep < autonomousCommands.size()) {
-				AutonomousCommand command = autonomousCommands.get(currentStep);
-
-				if (currentStep != previousStep) {
-					command.startup();
-					previousStep = currentStep;
+			mSensors.read();
+			mStatusFrames.update(mSensors.getTimestamp());
+			if (RunConstants.RUNNING_DRIVE) {
+				Drivetrain.updateOdometry();
+				if (RunConstants.RUNNING_LEADSCREW) {
+					Drivetrain.addVisionMeasurement(mHatchCamera);
 				}
+			}
 
-				boolean moveToNextStep = command.runCommand();
-				if (moveToNextStep) {
-					currentStep++;
-				}
+			SmartDashboard.putNumber("Autonomous step", routine.getCurrentIndex());
+
+			if (!routineDone) {
+				routineDone = CommandGroup.runChild(routine);
 			} // else we're done with auto
 
 			Timer.delay(0.005);
 		}
+
+		// auto ended before the routine did
+		if (!routineDone) {
+			routine.end(true);
+		}
 	}
 
 	
 	public void operatorControl() {
+		if (RunConstants.RUNNING_DRIVE) {
+			Drivetrain.resetSetpoint();
+		}
+
 		// start game, again
 		startGame();
 
 		while (isOperatorControl() && isEnabled()) {
-			if (RUNNING_DRIVE) { 
+			mSensors.read();
+			mStatusFrames.update(mSensors.getTimestamp());
+			if (RunConstants.RUNNING_DRIVE) {
+				Drivetrain.updateOdometry();
+				if (RunConstants.RUNNING_LEADSCREW) {
+					Drivetrain.addVisionMeasurement(mHatchCamera);
+				}
+			}
+
+			if (RUNNING_DRIVE && !updateDriveAssist()) { 
 				swerveDrive();
 			}
 
@@ -240,15 +313,110 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 			SmartDashboard.putString("Current State", mCurrentState.toString());
 			if (RunConstants.RUNNING_DRIVE) {
 				for (int i = 0; i < 4; i++) {
-					SmartDashboard.putNumber("Motor Output Percent " + i, mDrive[i].getMotorOutputPercent());
+					SmartDashboard.putNumber("Motor Output Percent " + i, mSensors.getDriveOutput(i));
 				}
+				NavXSample gyro = mSensors.getGyroSample();
+				SmartDashboard.putNumber("Pitch", gyro.getPitch());
+				SmartDashboard.putNumber("Roll", gyro.getRoll());
 			}
 
 			SecondaryController.updateProfile();
 			SmartDashboard.putNumber("JOYSTICK PROFILE NUMBER", SecondaryController.getProfile());
 			SmartDashboard.putString("JOYSTICK PROFILE", (SecondaryController.getProfile() == 0) ? "HATCH/LEADSCREW" : "BALL");
+
+			updateMacroRecording();
 			Timer.delay(0.005); // wait for a motor update time
 		}
+
+		if (mActiveAssist != null && !mAssistDone) {
+			mActiveAssist.end(true);
+		}
+		mActiveAssist = null;
+		stopMacroRecording();
+		SmartDashboard.putBoolean("Record Macro", false);
+	}
+
+	/**
+	 * Drives to a loading station while its stick is clicked in: left stick for
+	 * the left station, right stick for the right. The letter buttons are taken by
+	 * nudging. Nothing is planned in the loop: a trajectory comes from the cache,
+	 * or the robot holds still while the cache's thread plans it
+	 * 
+	 * @return whether an assist is driving this loop
+	 */
+	private boolean updateDriveAssist() {
+		PlannedDriveCommand wanted = null;
+		if (PrimaryController.getStickButton(Hand.kLeft)) {
+			wanted = mLeftLoadingAssist;
+		}
+		else if (PrimaryController.getStickButton(Hand.kRight)) {
+			wanted = mRightLoadingAssist;
+		}
+
+		if (wanted != mActiveAssist) {
+			if (mActiveAssist != null && !mAssistDone) {
+				mActiveAssist.end(true);
+			}
+			mActiveAssist = wanted;
+			mAssistDone = false;
+			if (mActiveAssist != null) {
+				mActiveAssist.startup();
+			}
+		}
+
+		if (mActiveAssist == null) {
+			return false;
+		}
+		if (!mAssistDone) {
+			mAssistDone = CommandGroup.runChild(mActiveAssist);
+		}
+		SmartDashboard.putBoolean("Drive Assist", !mAssistDone);
+		return true;
+	}
+
+	/**
+	 * Starts or stops recording from the dashboard, and records this loop's
+	 * mechanism commands. The drive train records its own
+	 */
+	private void updateMacroRecording() {
+		boolean record = SmartDashboard.getBoolean("Record Macro", false);
+		if (record && !mMacroRecorder.isRecording()) {
+			File file = new File(new File(Filesystem.getDeployDirectory(), AutoConstants.Macros.DIRECTORY),
+					SmartDashboard.getString("Macro Name", "recorded") + AutoConstants.Macros.EXTENSION);
+			try {
+				mMacroRecorder.start(file, Timer.getFPGATimestamp());
+			}
+			catch (IOException e) {
+				DriverStation.reportError("Couldn't start macro " + file + ": " + e.getMessage(), false);
+				SmartDashboard.putBoolean("Record Macro", false);
+			}
+		}
+		else if (!record && mMacroRecorder.isRecording()) {
+			stopMacroRecording();
+		}
+
+		if (mMacroRecorder.isRecording()) {
+			mMacroRecorder.recordMechanisms(
+					RunConstants.RUNNING_HATCH ? mHatchIntake.getRotaryState().ordinal() : 0,
+					RunConstants.RUNNING_HATCH ? mHatchIntake.getLinearState().ordinal() : 0,
+					RunConstants.RUNNING_LEADSCREW ? mSensors.getLeadscrewOutput() : 0);
+			mMacroRecorder.endLoop(Timer.getFPGATimestamp());
+		}
+	}
+
+	/**
+	 * Finishes the recording, and has the routines that play it pick up the new
+	 * file; they still have the old one mapped
+	 */
+	private void stopMacroRecording() {
+		if (!mMacroRecorder.stop()) {
+			return;
+		}
+		String name = mMacroRecorder.getFile().getName();
+		name = name.substring(0, name.length() - AutoConstants.Macros.EXTENSION.length());
+		if (mRoutineRegistry.reloadMacro(name) > 0) {
+			mAutonomousPreparer.invalidate();
+		}
 	}
 
 	
@@ -423,21 +591,28 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 	public void disabled() {
 
 		while (this.isDisabled()) {
+			mSensors.read(); // so nothing sees stale readings the first loop after enabling
+			mStatusFrames.update(mSensors.getTimestamp());
 			if (RunConstants.SECONDARY_JOYSTICK) {
 
 				if (SecondaryController.getTriggerPressed()) {
 					// rotate autonomous routines to select which one to start with:
-					if (mAutonomousRoutine == AutonomousRoutineType.DEFAULT) {
-						mAutonomousRoutine = AutonomousRoutineType.DO_NOTHING;
-					} 
-					else if (mAutonomousRoutine == AutonomousRoutineType.DO_NOTHING) {
-						mAutonomousRoutine = AutonomousRoutineType.DEFAULT;
-					}
+					mAutonomousRoutine = (mAutonomousRoutine + 1) % mRoutineRegistry.size();
 				}
 			}
+
+			// rebuilds in the background if the selection changed
+			mAutonomousPreparer.select(mAutonomousRoutine);
+			SmartDashboard.putString("AUTO ROUTINE:", mRoutineRegistry.getName(mAutonomousRoutine));
+			SmartDashboard.putBoolean("Auto Prepared", mAutonomousPreparer.isPrepared());
+			Timer.delay(0.005); // leave the CPU to the preparer thread
+		}
+
+		// enabling; don't carry a setpoint over from before disabling
+		if (RunConstants.RUNNING_DRIVE) {
+			Drivetrain.resetSetpoint();
 		}
 
-		// SmartDashboard.putString("AUTO ROUTINE:", mAutonomousRoutine.toString());
 		Timer.delay(0.005); // wait for a motor update time
 	}
 
@@ -446,8 +621,8 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 	// INITIALIZATION //
 	// ***************//
 	private void driveInit() {
-		int turnPort, turnOffset, drivePort, iZone, rotTol;
-		double P_PID, I_PID, D_PID;
+		int turnPort, turnOffset, drivePort, iZone, rotTol, cruiseVelocity, acceleration;
+		double P_PID, I_PID, D_PID, F_PID, drive_P, drive_I, drive_D;
 		boolean turnEncoderReversed, turnReversed, driveReversed;
 
 		for (int i = 0; i < 4; i++) {
@@ -461,8 +636,14 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 				P_PID = DriveConstants.PrototypeRobot.ROTATION_P[i];
 				I_PID = DriveConstants.PrototypeRobot.ROTATION_I[i];
 				D_PID = DriveConstants.PrototypeRobot.ROTATION_D[i];
+				F_PID = DriveConstants.PrototypeRobot.ROTATION_F[i];
+				drive_P = DriveConstants.PrototypeRobot.DRIVE_P[i];
+				drive_I = DriveConstants.PrototypeRobot.DRIVE_I[i];
+				drive_D = DriveConstants.PrototypeRobot.DRIVE_D[i];
 				iZone = DriveConstants.PrototypeRobot.ROTATION_IZONE[i];
 				rotTol = DriveConstants.PrototypeRobot.ROTATION_TOLERANCE[i];
+				cruiseVelocity = DriveConstants.PrototypeRobot.ROTATION_CRUISE_VELOCITY[i];
+				acceleration = DriveConstants.PrototypeRobot.ROTATION_ACCELERATION[i];
 			} else {
 				turnPort = Ports.ActualRobot.TURN[i];
 				turnEncoderReversed = DriveConstants.ActualRobot.ENCODER_REVERSED[i];
@@ -473,8 +654,14 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 				P_PID = DriveConstants.ActualRobot.ROTATION_P[i];
 				I_PID = DriveConstants.ActualRobot.ROTATION_I[i];
 				D_PID = DriveConstants.ActualRobot.ROTATION_D[i];
+				F_PID = DriveConstants.ActualRobot.ROTATION_F[i];
+				drive_P = DriveConstants.ActualRobot.DRIVE_P[i];
+				drive_I = DriveConstants.ActualRobot.DRIVE_I[i];
+				drive_D = DriveConstants.ActualRobot.DRIVE_D[i];
 				iZone = DriveConstants.ActualRobot.ROTATION_IZONE[i];
 				rotTol = DriveConstants.ActualRobot.ROTATION_TOLERANCE[i];
+				cruiseVelocity = DriveConstants.ActualRobot.ROTATION_CRUISE_VELOCITY[i];
+				acceleration = DriveConstants.ActualRobot.ROTATION_ACCELERATION[i];
 			}
 
 			// initialize turn motors and set values:
@@ -483,16 +670,28 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 			mTurn[i].setNeutralMode(NeutralMode.Brake);
 			mTurn[i].setSensorPhase(turnEncoderReversed);
 			mTurn[i].setInverted(turnReversed);
-			mTurn[i].config_kP(0, P_PID, 10);
-			mTurn[i].config_kI(0, I_PID, 10);
-			mTurn[i].config_kD(0, D_PID, 10);
-			mTurn[i].config_IntegralZone(0, iZone, 10);
-			mTurn[i].configAllowableClosedloopError(0, rotTol, 10);
+			// plain Position control; kF would push it off the target
+			mTurn[i].config_kP(DriveConstants.POSITION_SLOT, P_PID, 10);
+			mTurn[i].config_kI(DriveConstants.POSITION_SLOT, I_PID, 10);
+			mTurn[i].config_kD(DriveConstants.POSITION_SLOT, D_PID, 10);
+			mTurn[i].config_kF(DriveConstants.POSITION_SLOT, 0, 10);
+			mTurn[i].config_IntegralZone(DriveConstants.POSITION_SLOT, iZone, 10);
+			mTurn[i].configAllowableClosedloopError(DriveConstants.POSITION_SLOT, rotTol, 10);
+			// motion magic, with kF for the cruise velocity
+			mTurn[i].config_kP(DriveConstants.MOTION_MAGIC_SLOT, P_PID, 10);
+			mTurn[i].config_kI(DriveConstants.MOTION_MAGIC_SLOT, I_PID, 10);
+			mTurn[i].config_kD(DriveConstants.MOTION_MAGIC_SLOT, D_PID, 10);
+			mTurn[i].config_kF(DriveConstants.MOTION_MAGIC_SLOT, F_PID, 10);
+			mTurn[i].config_IntegralZone(DriveConstants.MOTION_MAGIC_SLOT, iZone, 10);
+			mTurn[i].configAllowableClosedloopError(DriveConstants.MOTION_MAGIC_SLOT, rotTol, 10);
+			mTurn[i].configMotionCruiseVelocity(cruiseVelocity, 10);
+			mTurn[i].configMotionAcceleration(acceleration, 10);
 			mTurn[i].configPeakOutputForward(1, 10);
 			mTurn[i].configPeakOutputReverse(-1, 10);
 
 			// initialize drive motors and set values:
 			mDrive[i] = new WPI_TalonSRX(drivePort);
+			mDrive[i].configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, 0, 10);
 			mDrive[i].setInverted(driveReversed);
 			mDrive[i].setNeutralMode(NeutralMode.Brake);
 			mDrive[i].configPeakOutputForward(1, 10);
@@ -501,13 +700,24 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 			mDrive[i].configPeakCurrentLimit(150, 10);
 			mDrive[i].configContinuousCurrentLimit(80, 10);
 			mDrive[i].enableCurrentLimit(true);
+			mDrive[i].config_kP(0, drive_P, 10);
+			mDrive[i].config_kI(0, drive_I, 10);
+			mDrive[i].config_kD(0, drive_D, 10);
+			mDrive[i].config_kF(0, 0, 10); // feedforward is sent with each setpoint
+			mDrive[i].configVoltageCompSaturation(DriveConstants.VOLTAGE_COMPENSATION, 10);
+			mDrive[i].enableVoltageCompensation(true);
+
+			mStatusFrames.register(mTurn[i], Role.STEER);
+			mStatusFrames.register(mDrive[i], Role.DRIVE);
 
 			// initialize turn motors' encoders, as well as wheels:
-			mEncoder[i] = new TalonAbsoluteEncoder(mTurn[i], ResourceFunctions.tickToAngle(turnOffset));
-			mWheel[i] = new Wheel(mTurn[i], mDrive[i], mEncoder[i]);
+			mEncoder[i] = new TalonAbsoluteEncoder(mTurn[i], mSensors, i, ResourceFunctions.tickToAngle(turnOffset));
+			mWheel[i] = new Wheel(mTurn[i], mDrive[i], mEncoder[i], mSensors, i);
 		}
+		mSensors.setDrive(mTurn, mDrive);
+		mSensors.setNavX(mNavXService);
 
-		mRobotAngle = new RobotAngle(mNavX, false, 0);
+		mRobotAngle = new RobotAngle(mNavX, mSensors, false, 0);
 		Drivetrain = new DriveTrain(mWheel, PrimaryController, mRobotAngle);
 	}
 
@@ -534,7 +744,9 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 		mBallHolder.config_IntegralZone(0, BallIntakeConstants.PID.HOLDER_IZONE, 10);
 		mBallHolder.configAllowableClosedloopError(0, BallIntakeConstants.PID.HOLDER_TOLERANCE, 10);
 
-		mBallIntake = new BallIntakeMotor(mBallHolder, SecondaryController);
+		mStatusFrames.register(mBallHolder, Role.BALL_HOLDER);
+		mSensors.setBallHolder(mBallHolder);
+		mBallIntake = new BallIntakeMotor(mBallHolder, mSensors, SecondaryController);
 	}
 
 	private void leadscrewInit() {
@@ -551,12 +763,14 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 		mLeadscrewTalon.config_IntegralZone(0, LeadscrewConstants.PID.LEADSCREW_IZONE, 10);
 		mLeadscrewTalon.configAllowableClosedloopError(0, LeadscrewConstants.PID.LEADSCREW_TOLERANCE, 10);
 
-		mLeadscrewEncoder = new LeadscrewEncoder(mLeadscrewTalon);
+		mStatusFrames.register(mLeadscrewTalon, Role.LEADSCREW);
+		mSensors.setLeadscrew(mLeadscrewTalon);
+		mLeadscrewEncoder = new LeadscrewEncoder(mSensors);
 		
 		mHatchCamera = new Limelight();
 		mHatchCamera.setPipeline(1);
 
-		mLeadscrew = new Leadscrew(mLeadscrewTalon, mLeadscrewEncoder, mHatchCamera, SecondaryController);
+		mLeadscrew = new Leadscrew(mLeadscrewTalon, mLeadscrewEncoder, mSensors, mHatchCamera, SecondaryController);
 		
 	}
 
@@ -590,6 +804,31 @@ public class Robot extends SampleRobot implements IMechanism<Robot, RobotState>{
 		}
 	}
 
+	// ********//
+	// GETTERS //
+	// ********//
+	/**
+	 * @return the hatch intake, or null if it isn't running
+	 */
+	public HatchIntake getHatchIntake() {
+		return RunConstants.RUNNING_HATCH ? mHatchIntake : null;
+	}
+
+	/**
+	 * @return the leadscrew, or null if it isn't running
+	 */
+	public Leadscrew getLeadscrew() {
+		return RunConstants.RUNNING_LEADSCREW ? mLeadscrew : null;
+	}
+
+	/**
+	 * @return trajectories planned so far, shared by everything that drives to a
+	 *         spot on the field
+	 */
+	public TrajectoryCache getTrajectoryCache() {
+		return mTrajectoryCache;
+	}
+
 	// ********//
 	// LOGGING //
 	// ********//
@@ -0,0 +1,88 @@
+package resource;
+
+public class Pose {
+	private double mX;
+	private double mY;
+	private double mHeading;
+
+	/**
+	 * create pose with position and heading
+	 *
+	 * @param pX
+	 *            x position (forward from where the robot started)
+	 * @param pY
+	 *            y position (right of where the robot started)
+	 * @param pHeading
+	 *            heading in degrees, same direction as the gyro
+	 */
+	public Pose(double pX, double pY, double pHeading) {
+		set(pX, pY, pHeading);
+	}
+
+	/**
+	 * creates pose at the origin
+	 */
+	public Pose() {
+		this(0, 0, 0);
+	}
+
+	/**
+	 * x position getter
+	 *
+	 * @return x position
+	 */
+	public double getX() {
+		return mX;
+	}
+
+	/**
+	 * y position getter
+	 *
+	 * @return y position
+	 */
+	public double getY() {
+		return mY;
+	}
+
+	/**
+	 * heading getter
+	 *
+	 * @return heading, 0 <= heading < 360
+	 */
+	public double getHeading() {
+		return mHeading;
+	}
+
+	/**
+	 * set position and heading
+	 *
+	 * @param pX
+	 *            x position
+	 * @param pY
+	 *            y position
+	 * @param pHeading
+	 *            heading in degrees
+	 */
+	public void set(double pX, double pY, double pHeading) {
+		mX = pX;
+		mY = pY;
+		mHeading = ResourceFunctions.putAngleInRange(pHeading);
+	}
+
+	/**
+	 * copy another pose into this one
+	 *
+	 * @param pOther
+	 *            pose to copy
+	 */
+	public void set(Pose pOther) {
+		set(pOther.getX(), pOther.getY(), pOther.getHeading());
+	}
+
+	/**
+	 * x: --, y: --, heading: --
+	 */
+	public String toString() {
+		return String.format("X: %f, Y: %f, Heading: %f", mX, mY, mHeading);
+	}
+}
@@ -0,0 +1,138 @@
+package robotcode;
+
+import java.util.ArrayList;
+
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+import constants.CANConstants;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Sets how often each Talon sends each status frame, based on what the code
+ * reads from it. Frames nothing reads are slowed to the limit, so the ones that
+ * are read have room. A Talon that resets (brownout, power cycle) goes back to
+ * the default periods, so they're put back when that happens
+ *
+ * @author 3419
+ *
+ */
+public class StatusFrameManager {
+
+    // same order as the period arrays in CANConstants.StatusFrames
+    private static final StatusFrameEnhanced[] FRAMES = {
+        StatusFrameEnhanced.Status_1_General,
+        StatusFrameEnhanced.Status_2_Feedback0,
+        StatusFrameEnhanced.Status_3_Quadrature,
+        StatusFrameEnhanced.Status_4_AinTempVbat,
+        StatusFrameEnhanced.Status_8_PulseWidth,
+        StatusFrameEnhanced.Status_10_MotionMagic,
+        StatusFrameEnhanced.Status_13_Base_PIDF0
+    };
+
+    public enum Role {
+        STEER(CANConstants.StatusFrames.STEER),
+        DRIVE(CANConstants.StatusFrames.DRIVE),
+        LEADSCREW(CANConstants.StatusFrames.LEADSCREW),
+        BALL_HOLDER(CANConstants.StatusFrames.BALL_HOLDER),
+        CLIMBER(CANConstants.StatusFrames.CLIMBER);
+
+        private int[] mPeriods;
+
+        private Role(int[] pPeriods) {
+            mPeriods = pPeriods;
+        }
+
+        public int[] getPeriods() {
+            return mPeriods;
+        }
+    }
+
+    private ArrayList<WPI_TalonSRX> mTalons;
+    private ArrayList<Role> mRoles;
+    private double mLastCheck;
+    private int mNumResets;
+
+    public StatusFrameManager() {
+        mTalons = new ArrayList<>();
+        mRoles = new ArrayList<>();
+        mLastCheck = 0;
+        mNumResets = 0;
+    }
+
+    /**
+     * Sets the Talon's status frames for its role, waiting for each to be
+     * confirmed. Call when the Talon is configured
+     *
+     * @param pTalon
+     *            Talon to manage
+     * @param pRole
+     *            what the code reads from it
+     */
+    public void register(WPI_TalonSRX pTalon, Role pRole) {
+        pTalon.hasResetOccurred(); // clears the flag from powering on
+        apply(pTalon, pRole, 10);
+        mTalons.add(pTalon);
+        mRoles.add(pRole);
+    }
+
+    /**
+     * Puts the status frames back on any Talon that reset. Checks every
+     * RESET_CHECK_PERIOD, so it's cheap to call every loop
+     *
+     * @param pTimestamp
+     *            current time in seconds
+     */
+    public void update(double pTimestamp) {
+        if (pTimestamp - mLastCheck < CANConstants.RESET_CHECK_PERIOD) {
+            return;
+        }
+        mLastCheck = pTimestamp;
+
+        for (int i = 0; i < mTalons.size(); i++) {
+            if (mTalons.get(i).hasResetOccurred()) {
+                apply(mTalons.get(i), mRoles.get(i), 0); // don't wait in the loop
+                mNumResets++;
+            }
+        }
+        SmartDashboard.putNumber("Talon Resets", mNumResets);
+        SmartDashboard.putNumber("CAN Utilization", RobotController.getCANStatus().percentBusUtilization * 100);
+    }
+
+    /**
+     * Puts the estimated bus use from status and control frames, with the default
+     * periods and with ours, on the SmartDashboard
+     */
+    public void report() {
+        double defaultUtilization = 0;
+        double utilization = 0;
+        for (Role role : mRoles) {
+            defaultUtilization += getUtilization(CANConstants.StatusFrames.DEFAULT);
+            utilization += getUtilization(role.getPeriods());
+        }
+        SmartDashboard.putNumber("CAN Estimate Default", defaultUtilization);
+        SmartDashboard.putNumber("CAN Estimate", utilization);
+        SmartDashboard.putNumber("CAN Estimate Talons", mTalons.size());
+    }
+
+    private void apply(WPI_TalonSRX pTalon, Role pRole, int pTimeout) {
+        int[] periods = pRole.getPeriods();
+        for (int i = 0; i < FRAMES.length; i++) {
+            pTalon.setStatusFramePeriod(FRAMES[i], periods[i], pTimeout);
+        }
+    }
+
+    /**
+     * @param pPeriods
+     *            status frame periods of one Talon, ms
+     * @return percent of the bus that Talon's status and control frames take
+     */
+    private static double getUtilization(int[] pPeriods) {
+        double framesPerSecond = 1000.0 / CANConstants.CONTROL_PERIOD;
+        for (int period : pPeriods) {
+            framesPerSecond += 1000.0 / period;
+        }
+        return framesPerSecond * CANConstants.BITS_PER_FRAME / CANConstants.BIT_RATE * 100;
+    }
+}
@@ -31,6 +31,33 @@ public class Limelight {
         return NetworkTableInstance.getDefault().getTable("limelight").getEntry(key);
     }
 
+    // ****** //
+    // TARGET //
+    // ****** //
+
+    /**
+     * @return whether the camera currently sees a target
+     */
+    public boolean hasTarget() {
+        return getDoubleFromNetworkTable("tv") == 1;
+    }
+
+    /**
+     * @return seconds between the image being taken and the result being published
+     */
+    public double getLatencySeconds() {
+        return getDoubleFromNetworkTable("tl") / 1000.0 + CameraConstants.LimelightConstants.CAPTURE_LATENCY;
+    }
+
+    /**
+     * 3D position of the camera relative to the target (needs a 3D pipeline)
+     * 
+     * @return x, y, z, pitch, yaw, roll; empty if there is no result
+     */
+    public double[] getCameraTranslation() {
+        return getEntryFromNetworkTable("camtran").getDoubleArray(new double[0]);
+    }
+
     // ********* //
     // DISTANCES //
     // ********* //
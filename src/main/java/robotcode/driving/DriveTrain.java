@@ -1,14 +1,19 @@
 package robotcode.driving;
 
+import autonomous.macros.MacroRecorder;
 import constants.DriveConstants;
+import constants.FieldConstants;
+import constants.RunConstants;
 import edu.wpi.first.wpilibj.GenericHID.Hand;
-import edu.wpi.first.wpilibj.PIDController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import framework.Mechanism;
+import resource.Pose;
 import resource.ResourceFunctions;
 import resource.Vector;
-import robotcode.pid.GenericPIDOutput;
+import robotcode.camera.Limelight;
+import robotcode.pid.SynchronousPIDF;
 import sensors.RobotAngle;
 import framework.State;
 
@@ -16,6 +21,7 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 
 	// Output
 	public SwerveDrive SwerveDrive;
+	private SwerveSetpointGenerator mSetpointGenerator;
 	
 	// End products
 	private Vector mDesiredRobotVel;
@@ -23,12 +29,34 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 
 	private boolean mIsFieldRelative;
 
-	// PIDs
-	private PIDController mGyroPID;
-	private GenericPIDOutput mGyroOutput;
-
-	private PIDController mDriftCompensationPID;
-	private GenericPIDOutput mDriftCompensationOutput;
+	// heading prediction check: what we predicted (and what we'd have used
+	// without predicting) for some time, compared once that time has passed
+	private double mPredictionCheckTime;
+	private double mPredictionCheckAngle;
+	private double mPredictionCheckRawAngle;
+
+	// Odometry
+	private SwerveOdometry mOdometry;
+	private PoseEstimator mPoseEstimator;
+	private double mLastCameraX, mLastCameraZ; // last camtran used, so a frame isn't used twice
+	private boolean mPoseSeeded; // whether resetPose has put the pose anywhere real
+
+	// steering mode, as last applied from the dashboard
+	private static final String[] CRUISE_VELOCITY_KEYS = { "Steer Cruise Velocity 0", "Steer Cruise Velocity 1",
+			"Steer Cruise Velocity 2", "Steer Cruise Velocity 3" };
+	private static final String[] ACCELERATION_KEYS = { "Steer Acceleration 0", "Steer Acceleration 1",
+			"Steer Acceleration 2", "Steer Acceleration 3" };
+	private boolean mSteerMotionMagic;
+	private int[] mSteerCruiseVelocity; // per module
+	private int[] mSteerAcceleration;
+
+	// PIDs, stepped from enactMovement
+	private SynchronousPIDF mGyroPID;
+	private SynchronousPIDF mDriftCompensationPID;
+	private double mDriftCompensationOutput;
+
+	// records the chassis command every loop while set
+	private MacroRecorder mMacroRecorder;
 
 	// Velocity modes
 	private LinearVelocity mLinearVel;
@@ -37,12 +65,37 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 
 	public DriveTrain() {
 		SwerveDrive = new SwerveDrive();
+		mSetpointGenerator = new SwerveSetpointGenerator(SwerveDrive);
 
 		mDesiredRobotVel = new Vector();
 		mDesiredAngularVel = 0;
 
 		mIsFieldRelative = false;
 
+		if (RunConstants.IS_PROTOTYPE) {
+			mOdometry = new SwerveOdometry(DriveConstants.PrototypeRobot.X_OFF, DriveConstants.PrototypeRobot.Y_OFF);
+		}
+		else {
+			mOdometry = new SwerveOdometry(DriveConstants.ActualRobot.X_OFF, DriveConstants.ActualRobot.Y_OFF);
+		}
+		mPoseEstimator = new PoseEstimator();
+		SmartDashboard.putBoolean("Discretize Kinematics", DriveConstants.DISCRETIZE_KINEMATICS);
+
+		mSteerMotionMagic = DriveConstants.STEER_MOTION_MAGIC;
+		if (RunConstants.IS_PROTOTYPE) {
+			mSteerCruiseVelocity = DriveConstants.PrototypeRobot.ROTATION_CRUISE_VELOCITY.clone();
+			mSteerAcceleration = DriveConstants.PrototypeRobot.ROTATION_ACCELERATION.clone();
+		}
+		else {
+			mSteerCruiseVelocity = DriveConstants.ActualRobot.ROTATION_CRUISE_VELOCITY.clone();
+			mSteerAcceleration = DriveConstants.ActualRobot.ROTATION_ACCELERATION.clone();
+		}
+		SmartDashboard.putBoolean("Steer Motion Magic", mSteerMotionMagic);
+		for (int i = 0; i < 4; i++) {
+			SmartDashboard.putNumber(CRUISE_VELOCITY_KEYS[i], mSteerCruiseVelocity[i]);
+			SmartDashboard.putNumber(ACCELERATION_KEYS[i], mSteerAcceleration[i]);
+		}
+
 		mLinearVel = LinearVelocity.NONE;
 		mPrevLinearVel = LinearVelocity.NONE;
 		mRotationalVel = RotationalVelocity.NONE;
@@ -77,6 +130,12 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 			double pSpecificLinearVelocity, RotationalVelocity pRotationalVel) {
 		SmartDashboard.putNumber("Robot Angle", mRobotAngle.getAngleDegrees());
 
+		// heading when the modules actually act on this command
+		double now = Timer.getFPGATimestamp();
+		mRobotAngle.sample();
+		double predictedAngle = mRobotAngle.getPredictedAngleDegrees(now + DriveConstants.GyroHistory.ACTUATION_DELAY);
+		checkHeadingPrediction(now, predictedAngle);
+
 		double joystickAngle = pRobotDirectionAngle;
 		double robotDirectionAngle = joystickAngle;
 
@@ -92,27 +151,34 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 		}
 
 		if (mIsFieldRelative) {
-			robotDirectionAngle = ResourceFunctions.putAngleInRange(joystickAngle - mRobotAngle.getAngleDegrees());
+			robotDirectionAngle = ResourceFunctions.putAngleInRange(joystickAngle - predictedAngle);
 		}
 
 		SmartDashboard.putBoolean("Field Relative", mIsFieldRelative);
+		mSwerveDrive.setDiscretize(SmartDashboard.getBoolean("Discretize Kinematics", DriveConstants.DISCRETIZE_KINEMATICS));
+		updateSteeringMode();
 
-		Vector linearVel = new Vector();
 		switch (mLinearVel) {
 			case NORMAL:
-				linearVel = Vector.createPolar(robotDirectionAngle, pSpecificLinearVelocity);
+				mDesiredRobotVel.setPolar(robotDirectionAngle, pSpecificLinearVelocity);
 				break;
 			case NUDGE:
-				linearVel = nudgeMove();
+				nudgeMove(predictedAngle, mDesiredRobotVel);
 				break;
 			case ANGLE_ONLY:
+				mDesiredRobotVel.setCartesian(0, 0);
 				break;
 			case NONE:
+				mDesiredRobotVel.setCartesian(0, 0);
 				break;
 			default:
 				throw new RuntimeException("Unknown drivetrain linear velocity state");
 		}
-		mDesiredRobotVel = new Vector(linearVel);
+
+		boolean velocityControl = useVelocityControl(mLinearVel);
+		for (int i = 0; i < 4; i++) {
+			mWheels[i].setVelocityControl(velocityControl);
+		}
 		SmartDashboard.putNumber("Linear velocity after switch", mDesiredRobotVel.getMagnitude());
 
 		switch (mRotationalVel) {
@@ -138,8 +204,30 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 
 		SmartDashboard.putNumber("POV", mController.getPOV());
 		SmartDashboard.putString("Rotational Velocity State", mRotationalVel.toString());
+
+		// ramp towards the desired velocity instead of jumping to it
+		setSetpointLimits(mLinearVel);
+		mSetpointGenerator.update(mDesiredAngularVel, mDesiredRobotVel.getX(), mDesiredRobotVel.getY());
+		double setpointVelX = mSetpointGenerator.getVelocityX();
+		double setpointVelY = mSetpointGenerator.getVelocityY();
+
+		// what the modules actually get sent, for macros
+		double commandedVelX = 0, commandedVelY = 0, commandedAngularVel = 0;
+
 		if (mRotationalVel == RotationalVelocity.NONE) {
-			if (mLinearVel == LinearVelocity.ANGLE_ONLY) {
+			if ((mLinearVel == LinearVelocity.ANGLE_ONLY || mLinearVel == LinearVelocity.NONE)
+					&& mSetpointGenerator.isMoving()) {
+				// still slowing down; keep the wheels pointed the way we're going
+				mSwerveDrive.calculateHoldDirection(0, setpointVelX, setpointVelY);
+				for (int i = 0; i < 4; i++) {
+					mWheels[i].set(mSwerveDrive.getOutputAngle(i), mSwerveDrive.getOutputMagnitude(i));
+				}
+				commandedVelX = setpointVelX;
+				commandedVelY = setpointVelY;
+				resetDriftCompensation();
+				mDriftCompensationPID.setSetpoint(mRobotAngle.getAngleDegrees());
+			}
+			else if (mLinearVel == LinearVelocity.ANGLE_ONLY) {
 				for (int i = 0; i < 4; i++) {
 					mWheels[i].set(robotDirectionAngle, 0);
 				}
@@ -149,7 +237,7 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 			else if (mLinearVel == LinearVelocity.NONE) {
 				if (mPrevLinearVel == LinearVelocity.NUDGE) {
 					for (int i = 0; i < 4; i++) {
-						mWheels[i].set(mSwerveDrive.getOutput(i).getAngle(), 0);
+						mWheels[i].set(mSwerveDrive.getOutputAngle(i), 0);
 					}
 				}
 				else {
@@ -163,29 +251,262 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 			}
 			else if (mLinearVel == LinearVelocity.NORMAL || mLinearVel == LinearVelocity.NUDGE) {
 				mDriftCompensationPID.enable();
+				mDriftCompensationOutput = mDriftCompensationPID.calculate(mRobotAngle.getAngleDegrees());
 				SmartDashboard.putNumber("Drift comp error", mDriftCompensationPID.getError());
-				SmartDashboard.putNumber("Drift comp value", mDriftCompensationOutput.getVal());
-				mSwerveDrive.calculateHoldDirection(mDriftCompensationOutput.getVal(), getDesiredRobotVel());
+				SmartDashboard.putNumber("Drift comp value", mDriftCompensationOutput);
+				mSwerveDrive.calculateHoldDirection(mDriftCompensationOutput, setpointVelX, setpointVelY);
 				for (int i = 0; i < 4; i++) {
-					mWheels[i].set(mSwerveDrive.getOutput(i));
+					mWheels[i].set(mSwerveDrive.getOutputAngle(i), mSwerveDrive.getOutputMagnitude(i));
 				}
+				commandedVelX = setpointVelX;
+				commandedVelY = setpointVelY;
+				commandedAngularVel = mDriftCompensationOutput;
 			}
 		}
 		else {
 			resetDriftCompensation();
 			mDriftCompensationPID.setSetpoint(mRobotAngle.getAngleDegrees());
-			mSwerveDrive.calculate(getDesiredAngularVel(), getDesiredRobotVel());
+			mSwerveDrive.calculate(mSetpointGenerator.getAngularVelocity(), setpointVelX, setpointVelY);
 			for (int i = 0; i < 4; i++) {
-				mWheels[i].set(mSwerveDrive.getOutput(i));
+				mWheels[i].set(mSwerveDrive.getOutputAngle(i), mSwerveDrive.getOutputMagnitude(i));
 			}
+			commandedVelX = setpointVelX;
+			commandedVelY = setpointVelY;
+			commandedAngularVel = mSetpointGenerator.getAngularVelocity();
 		}
 
 		SmartDashboard.putBoolean("Drift comp enabled", mDriftCompensationPID.isEnabled());
+		mSwerveDrive.publish();
+		recordDrive(commandedVelX * DriveConstants.DRIVE_FREE_SPEED, commandedVelY * DriveConstants.DRIVE_FREE_SPEED,
+				commandedAngularVel * mSwerveDrive.getAngularVelocityScale());
 
 		for (int i = 0; i < 4; i++) {
-			SmartDashboard.putNumber("Error " + i + ":", robotDirectionAngle - mWheels[i].getAngle());
-			SmartDashboard.putNumber("Angle " + i + ":", mWheels[i].getAngle());
+			double wheelAngle = mWheels[i].getAngle();
+			SmartDashboard.putNumber("Error " + i + ":", robotDirectionAngle - wheelAngle);
+			SmartDashboard.putNumber("Angle " + i + ":", wheelAngle);
+			SmartDashboard.putNumber("Settle Time " + i + ":", mWheels[i].getLastSettleTime());
+		}
+	}
+
+	/**
+	 * Drives the robot at a robot relative velocity, for autonomous followers that
+	 * already limit their own acceleration. Skips the setpoint generator and drift
+	 * compensation, but leaves the generator at this velocity so a following
+	 * enactMovement carries on smoothly
+	 * 
+	 * @param pVelX
+	 *            forward velocity, inches per second
+	 * @param pVelY
+	 *            rightward velocity, inches per second
+	 * @param pAngularVel
+	 *            turn rate, radians per second, same direction as the gyro
+	 */
+	public void enactChassisSpeeds(double pVelX, double pVelY, double pAngularVel) {
+		recordDrive(pVelX, pVelY, pAngularVel);
+		double velX = pVelX / DriveConstants.DRIVE_FREE_SPEED;
+		double velY = pVelY / DriveConstants.DRIVE_FREE_SPEED;
+		double angularVel = pAngularVel / mSwerveDrive.getAngularVelocityScale();
+
+		mRobotAngle.sample();
+		mGyroPID.disable();
+		resetDriftCompensation();
+		mDriftCompensationPID.setSetpoint(mRobotAngle.getAngleDegrees());
+		mSetpointGenerator.reset(angularVel, velX, velY);
+
+		boolean velocityControl = useVelocityControl(LinearVelocity.NORMAL);
+		if (velX == 0 && velY == 0 && angularVel == 0) {
+			// stopped; leave the wheels pointed where they are
+			for (int i = 0; i < 4; i++) {
+				mWheels[i].setVelocityControl(velocityControl);
+				mWheels[i].setLinearVelocity(0);
+			}
+			return;
+		}
+		mSwerveDrive.calculate(angularVel, velX, velY);
+		for (int i = 0; i < 4; i++) {
+			mWheels[i].setVelocityControl(velocityControl);
+			mWheels[i].set(mSwerveDrive.getOutputAngle(i), mSwerveDrive.getOutputMagnitude(i));
+		}
+		mSwerveDrive.publish();
+	}
+
+	/**
+	 * Records the chassis command the modules were sent this loop, if a macro is
+	 * recording, so replaying it doesn't depend on the controller
+	 */
+	private void recordDrive(double pVelX, double pVelY, double pAngularVel) {
+		if (mMacroRecorder != null && mMacroRecorder.isRecording()) {
+			mMacroRecorder.recordDrive(pVelX, pVelY, pAngularVel);
+		}
+	}
+
+	/**
+	 * Applies steering mode and motion magic profile changes from the dashboard.
+	 * Each module has its own profile, and it only gets sent to that module's
+	 * Talon when it changes. Switching mode also switches the Talons' gain slot
+	 */
+	private void updateSteeringMode() {
+		boolean motionMagic = SmartDashboard.getBoolean("Steer Motion Magic", mSteerMotionMagic);
+		if (motionMagic != mSteerMotionMagic) {
+			mSteerMotionMagic = motionMagic;
+			for (int i = 0; i < 4; i++) {
+				mWheels[i].setSteeringMotionMagic(motionMagic);
+			}
+		}
+
+		for (int i = 0; i < 4; i++) {
+			int cruiseVelocity = (int) SmartDashboard.getNumber(CRUISE_VELOCITY_KEYS[i], mSteerCruiseVelocity[i]);
+			int acceleration = (int) SmartDashboard.getNumber(ACCELERATION_KEYS[i], mSteerAcceleration[i]);
+			if (cruiseVelocity != mSteerCruiseVelocity[i] || acceleration != mSteerAcceleration[i]) {
+				mSteerCruiseVelocity[i] = cruiseVelocity;
+				mSteerAcceleration[i] = acceleration;
+				mWheels[i].setSteeringProfile(cruiseVelocity, acceleration);
+			}
+		}
+	}
+
+	/**
+	 * Publishes how far off the heading prediction was, next to how far off the
+	 * plain gyro reading would have been, once the predicted time is in the
+	 * gyro history
+	 * 
+	 * @param pTimestamp
+	 *            current time
+	 * @param pPredictedAngle
+	 *            heading predicted for pTimestamp + ACTUATION_DELAY
+	 */
+	private void checkHeadingPrediction(double pTimestamp, double pPredictedAngle) {
+		if (pTimestamp - DriveConstants.GyroHistory.LATENCY < mPredictionCheckTime) {
+			return;
+		}
+		if (mPredictionCheckTime > 0) {
+			double actual = mRobotAngle.getAngleDegreesAt(mPredictionCheckTime);
+			SmartDashboard.putNumber("Heading Prediction Error",
+					ResourceFunctions.continuousAngleDif(mPredictionCheckAngle, actual));
+			SmartDashboard.putNumber("Heading Unpredicted Error",
+					ResourceFunctions.continuousAngleDif(mPredictionCheckRawAngle, actual));
+		}
+		mPredictionCheckTime = pTimestamp + DriveConstants.GyroHistory.ACTUATION_DELAY;
+		mPredictionCheckAngle = pPredictedAngle;
+		mPredictionCheckRawAngle = mRobotAngle.getAngleDegrees();
+	}
+
+	/**
+	 * Updates the robot pose from the wheel encoders and gyro. Call once per loop
+	 */
+	public void updateOdometry() {
+		for (int i = 0; i < 4; i++) {
+			mOdometry.setModuleState(i, mWheels[i].getAngle(), mWheels[i].getLinearVelocity());
+		}
+		double timestamp = Timer.getFPGATimestamp();
+		double gyroAngle = mRobotAngle.getAngleDegrees();
+		mOdometry.update(timestamp, gyroAngle);
+		mPoseEstimator.update(timestamp, mOdometry.getVelocityX(), mOdometry.getVelocityY(),
+				mOdometry.getAngularVelocity(), gyroAngle);
+
+		Pose pose = mOdometry.getPose();
+		SmartDashboard.putNumber("Pose X", pose.getX());
+		SmartDashboard.putNumber("Pose Y", pose.getY());
+		SmartDashboard.putNumber("Pose Heading", pose.getHeading());
+
+		Pose estimate = mPoseEstimator.getPose();
+		SmartDashboard.putNumber("Estimated X", estimate.getX());
+		SmartDashboard.putNumber("Estimated Y", estimate.getY());
+		SmartDashboard.putNumber("Estimated Heading", estimate.getHeading());
+	}
+
+	/**
+	 * Corrects the pose estimate with whichever of the field's vision targets the
+	 * Limelight sees, if any. Call once per loop, after updateOdometry
+	 * 
+	 * @param pCamera
+	 *            camera running the 3D pipeline
+	 */
+	public void addVisionMeasurement(Limelight pCamera) {
+		if (!pCamera.hasTarget()) {
+			return;
+		}
+		double[] camtran = pCamera.getCameraTranslation();
+		if (camtran.length < 6) {
+			return;
 		}
+		// the camera is slower than the loop; don't count the same frame twice
+		if (camtran[0] == mLastCameraX && camtran[2] == mLastCameraZ) {
+			return;
+		}
+		mLastCameraX = camtran[0];
+		mLastCameraZ = camtran[2];
+
+		// camtran z is negative in front of the target, x is to the camera's right
+		double timestamp = Timer.getFPGATimestamp() - pCamera.getLatencySeconds();
+		int target = mPoseEstimator.addTargetObservation(FieldConstants.VISION_TARGETS, -camtran[2], -camtran[0],
+				timestamp);
+		SmartDashboard.putNumber("Vision Target", target);
+	}
+
+	/**
+	 * Pose fused from odometry, gyro and camera. The same object is updated every
+	 * loop
+	 * 
+	 * @return estimated robot pose
+	 */
+	public Pose getEstimatedPose() {
+		return mPoseEstimator.getPose();
+	}
+
+	/**
+	 * Position of the robot measured by odometry, in inches from where it was
+	 * reset. The same object is updated every loop
+	 * 
+	 * @return robot pose
+	 */
+	public Pose getPose() {
+		return mOdometry.getPose();
+	}
+
+	/**
+	 * @param pMacroRecorder
+	 *            recorder to give every enactMovement call to while it's recording;
+	 *            null for none
+	 */
+	public void setMacroRecorder(MacroRecorder pMacroRecorder) {
+		mMacroRecorder = pMacroRecorder;
+	}
+
+	/**
+	 * Resets odometry to a known pose
+	 * 
+	 * @param pX
+	 *            x position, inches
+	 * @param pY
+	 *            y position, inches
+	 * @param pHeading
+	 *            heading, degrees
+	 */
+	public void resetPose(double pX, double pY, double pHeading) {
+		mOdometry.reset(pX, pY, pHeading);
+		mPoseEstimator.reset(pX, pY, pHeading);
+		mPoseSeeded = true;
+	}
+
+	/**
+	 * Stops the setpoint generator where it is, so a new mode doesn't ramp on
+	 * from whatever velocity the last one left behind
+	 */
+	public void resetSetpoint() {
+		mSetpointGenerator.reset(0, 0, 0);
+	}
+
+	/**
+	 * @return whether the pose has been reset to a known spot on the field; until
+	 *         it has, it's relative to wherever the robot was turned on
+	 */
+	public boolean isPoseSeeded() {
+		return mPoseSeeded;
+	}
+
+	public SwerveOdometry getOdometry() {
+		return mOdometry;
 	}
 
 	public void driveSwerve() {
@@ -277,11 +598,14 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 	/**
 	 * Get the direction vector for nudge driving using the letter buttons
 	 * 
-	 * @return correct direction vector
+	 * @param pRobotAngle
+	 *            robot angle to drive field relative with
+	 * @param pOut
+	 *            set to the direction vector
 	 */
-	private Vector nudgeMove() {
+	private void nudgeMove(double pRobotAngle, Vector pOut) {
 		double newAngle = 0;
-		double robotAngle = mRobotAngle.getAngleDegrees();
+		double robotAngle = pRobotAngle;
 
 		// Don't need to check Y button, which is 0 degrees, since newAngle set to 0 by default
 
@@ -299,7 +623,7 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 			newAngle -= robotAngle;
 		}
 
-		return Vector.createPolar(newAngle, DriveConstants.SwerveSpeeds.NUDGE_MOVE_SPEED);
+		pOut.setPolar(newAngle, DriveConstants.SwerveSpeeds.NUDGE_MOVE_SPEED);
 	}
 
 	/**
@@ -333,14 +657,59 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 		return angularVel; // quadratic control for finer movements
 	}
 
+	/**
+	 * Whether the drive motors run closed loop velocity in a linear velocity mode
+	 * 
+	 * @param pLinearVel
+	 *            linear velocity mode
+	 * @return true for closed loop velocity, false for percent output
+	 */
+	private boolean useVelocityControl(LinearVelocity pLinearVel) {
+		switch (pLinearVel) {
+			case NORMAL:
+				return DriveConstants.VELOCITY_CONTROL_NORMAL;
+			case NUDGE:
+				return DriveConstants.VELOCITY_CONTROL_NUDGE;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Picks the acceleration, jerk and steering limits for a linear velocity mode
+	 * 
+	 * @param pLinearVel
+	 *            linear velocity mode
+	 */
+	private void setSetpointLimits(LinearVelocity pLinearVel) {
+		switch (pLinearVel) {
+			case NUDGE:
+				mSetpointGenerator.setLimits(DriveConstants.SetpointLimits.NUDGE_ACCEL,
+						DriveConstants.SetpointLimits.NUDGE_JERK, DriveConstants.SetpointLimits.NUDGE_ANGULAR_ACCEL,
+						DriveConstants.SetpointLimits.NUDGE_ANGULAR_JERK, DriveConstants.SetpointLimits.NUDGE_STEER_RATE);
+				break;
+			case ANGLE_ONLY:
+				mSetpointGenerator.setLimits(DriveConstants.SetpointLimits.ANGLE_ONLY_ACCEL,
+						DriveConstants.SetpointLimits.ANGLE_ONLY_JERK,
+						DriveConstants.SetpointLimits.ANGLE_ONLY_ANGULAR_ACCEL,
+						DriveConstants.SetpointLimits.ANGLE_ONLY_ANGULAR_JERK,
+						DriveConstants.SetpointLimits.ANGLE_ONLY_STEER_RATE);
+				break;
+			default:
+				mSetpointGenerator.setLimits(DriveConstants.SetpointLimits.NORMAL_ACCEL,
+						DriveConstants.SetpointLimits.NORMAL_JERK, DriveConstants.SetpointLimits.NORMAL_ANGULAR_ACCEL,
+						DriveConstants.SetpointLimits.NORMAL_ANGULAR_JERK, DriveConstants.SetpointLimits.NORMAL_STEER_RATE);
+				break;
+		}
+	}
+
 	/**
 	 * Disables and resets drift compensation
 	 */
 	private void resetDriftCompensation() {
-		if (mDriftCompensationPID.isEnabled()) {
-			mDriftCompensationPID.disable();
-		}
+		mDriftCompensationPID.disable();
 		mDriftCompensationPID.reset();
+		mDriftCompensationOutput = 0;
 	}
 
 	/**
@@ -402,9 +771,10 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 		mGyroPID.setSetpoint(setpointAngle);
 
 		if (!mGyroPID.isEnabled()) {
+			mGyroPID.reset();
 			mGyroPID.enable();
 		}
-		double vel = mGyroOutput.getVal();
+		double vel = mGyroPID.calculate(mRobotAngle.getAngleDegrees());
 
 		SmartDashboard.putNumber("Gyro PID Setpoint:", mGyroPID.getSetpoint());
 		SmartDashboard.putNumber("Gyro PID Output:", vel);
@@ -421,18 +791,16 @@ public class DriveTrain extends Mechanism<DriveTrain, DriveTrainState>{
 	}
 
 	private void pidInit() {
-		mGyroOutput = new GenericPIDOutput();
-		mGyroPID = new PIDController(DriveConstants.ActualRobot.GYRO_P, DriveConstants.ActualRobot.GYRO_I,
-				DriveConstants.ActualRobot.GYRO_D, mRobotAngle, mGyroOutput);
+		mGyroPID = new SynchronousPIDF(DriveConstants.ActualRobot.GYRO_P, DriveConstants.ActualRobot.GYRO_I,
+				DriveConstants.ActualRobot.GYRO_D);
 		mGyroPID.setInputRange(0, 360.0);
 		mGyroPID.setOutputRange(-DriveConstants.ActualRobot.GYRO_MAX_SPEED, DriveConstants.ActualRobot.GYRO_MAX_SPEED);
 		mGyroPID.setAbsoluteTolerance(DriveConstants.ActualRobot.GYRO_TOLERANCE);
 		mGyroPID.setContinuous(true);
 
-		mDriftCompensationOutput = new GenericPIDOutput();
-		mDriftCompensationPID = new PIDController(DriveConstants.ActualRobot.DRIFT_COMP_P,
-				DriveConstants.ActualRobot.DRIFT_COMP_I, DriveConstants.ActualRobot.DRIFT_COMP_D, mRobotAngle,
-				mDriftCompensationOutput);
+		mDriftCompensationOutput = 0;
+		mDriftCompensationPID = new SynchronousPIDF(DriveConstants.ActualRobot.DRIFT_COMP_P,
+				DriveConstants.ActualRobot.DRIFT_COMP_I, DriveConstants.ActualRobot.DRIFT_COMP_D);
 		mDriftCompensationPID.setInputRange(0, 360);
 		mDriftCompensationPID.setContinuous(true);
 		mDriftCompensationPID.setSetpoint(0);
@@ -0,0 +1,445 @@
+package robotcode.driving;
+
+import constants.CameraConstants;
+import constants.DriveConstants;
+import resource.Pose;
+
+/**
+ * Extended Kalman filter for the robot pose (x, y, heading). Wheel odometry
+ * drives the prediction, the gyro corrects heading every loop and camera
+ * sightings correct position whenever they show up.
+ *
+ * Camera results are late by the time they reach us, so every loop is kept in
+ * a fixed size history. A late sighting rewinds to the loop it was taken in,
+ * corrects that estimate, and replays the loops after it. All of the matrix
+ * work is done in preallocated arrays.
+ *
+ * @author 3419
+ *
+ */
+public class PoseEstimator {
+
+	private static final int HISTORY_SIZE = DriveConstants.Estimator.HISTORY_SIZE;
+
+	// state: x, y (inches), heading (radians); covariance row major 3x3
+	private double[] mState;
+	private double[] mCov;
+
+	// history, oldest at mHistoryStart
+	private double[] mHistoryTime;
+	private double[] mHistoryInput; // robot relative step dx, dy, dtheta
+	private double[] mHistoryGyro; // heading measured that loop, radians
+	private double[] mHistoryState;
+	private double[] mHistoryCov;
+	private int mHistoryStart;
+	private int mHistoryCount;
+
+	// scratch
+	private double[] mF;
+	private double[] mTemp;
+	private double[] mGain;
+	private double[] mMeasurement; // robot x, y worked out from a sighting
+
+	private Pose mPose;
+	private double mGyroOffset;
+	private boolean mHasUpdated;
+	private double mLastTimestamp;
+
+	public PoseEstimator() {
+		mState = new double[3];
+		mCov = new double[9];
+
+		mHistoryTime = new double[HISTORY_SIZE];
+		mHistoryInput = new double[HISTORY_SIZE * 3];
+		mHistoryGyro = new double[HISTORY_SIZE];
+		mHistoryState = new double[HISTORY_SIZE * 3];
+		mHistoryCov = new double[HISTORY_SIZE * 9];
+
+		mF = new double[9];
+		mTemp = new double[9];
+		mGain = new double[6];
+		mMeasurement = new double[2];
+
+		mPose = new Pose();
+		reset(0, 0, 0);
+	}
+
+	/**
+	 * Resets the estimate to a known pose and clears the history. The next update
+	 * re-zeroes the gyro offset
+	 *
+	 * @param pX
+	 *            x position, inches
+	 * @param pY
+	 *            y position, inches
+	 * @param pHeading
+	 *            heading, degrees
+	 */
+	public void reset(double pX, double pY, double pHeading) {
+		mState[0] = pX;
+		mState[1] = pY;
+		mState[2] = Math.toRadians(pHeading);
+		for (int i = 0; i < 9; i++) {
+			mCov[i] = 0;
+		}
+		mHistoryStart = 0;
+		mHistoryCount = 0;
+		mHasUpdated = false;
+		updatePose();
+	}
+
+	/**
+	 * Runs one loop of the filter: predicts with the odometry velocity and
+	 * corrects heading with the gyro
+	 *
+	 * @param pTimestamp
+	 *            current time, seconds
+	 * @param pVelX
+	 *            robot relative forward velocity from odometry, inches per second
+	 * @param pVelY
+	 *            robot relative rightward velocity from odometry, inches per second
+	 * @param pAngularVel
+	 *            angular velocity from odometry, radians per second
+	 * @param pGyroAngle
+	 *            gyro angle, degrees
+	 */
+	public void update(double pTimestamp, double pVelX, double pVelY, double pAngularVel, double pGyroAngle) {
+		double gyro = Math.toRadians(pGyroAngle);
+		if (!mHasUpdated) {
+			mGyroOffset = mState[2] - gyro;
+			mLastTimestamp = pTimestamp;
+			mHasUpdated = true;
+		}
+		double dt = Math.max(pTimestamp - mLastTimestamp, 0);
+		mLastTimestamp = pTimestamp;
+
+		double dx = pVelX * dt;
+		double dy = pVelY * dt;
+		double dTheta = pAngularVel * dt;
+		gyro += mGyroOffset;
+
+		predict(dx, dy, dTheta);
+		correctHeading(gyro);
+
+		// remember this loop so a late camera measurement can replay it
+		int index;
+		if (mHistoryCount < HISTORY_SIZE) {
+			index = (mHistoryStart + mHistoryCount) % HISTORY_SIZE;
+			mHistoryCount++;
+		}
+		else {
+			index = mHistoryStart;
+			mHistoryStart = (mHistoryStart + 1) % HISTORY_SIZE;
+		}
+		mHistoryTime[index] = pTimestamp;
+		mHistoryInput[index * 3] = dx;
+		mHistoryInput[index * 3 + 1] = dy;
+		mHistoryInput[index * 3 + 2] = dTheta;
+		mHistoryGyro[index] = gyro;
+		saveState(index);
+
+		updatePose();
+	}
+
+	/**
+	 * Corrects the estimate with a field position of the robot measured in the
+	 * past. Measurements older than the history are dropped
+	 *
+	 * @param pX
+	 *            measured x position, inches
+	 * @param pY
+	 *            measured y position, inches
+	 * @param pTimestamp
+	 *            time the measurement was taken, seconds
+	 */
+	public void addVisionMeasurement(double pX, double pY, double pTimestamp) {
+		int slot = findHistorySlot(pTimestamp);
+		if (slot < 0) {
+			return;
+		}
+
+		loadState(slot);
+		correctPosition(pX, pY);
+		replayFrom(slot);
+	}
+
+	/**
+	 * Corrects the estimate with a camera sighting of a target whose field pose is
+	 * known
+	 *
+	 * @param pTargetX
+	 *            target x position, inches
+	 * @param pTargetY
+	 *            target y position, inches
+	 * @param pTargetHeading
+	 *            direction the target faces out into the field, degrees
+	 * @param pOutDistance
+	 *            distance of the camera out from the target face
+	 * @param pRightDistance
+	 *            distance of the camera to the right of the target, looking out
+	 *            from it
+	 * @param pTimestamp
+	 *            time the image was taken, seconds
+	 */
+	public void addTargetObservation(double pTargetX, double pTargetY, double pTargetHeading, double pOutDistance,
+			double pRightDistance, double pTimestamp) {
+		int slot = findHistorySlot(pTimestamp);
+		if (slot < 0) {
+			return;
+		}
+
+		loadState(slot);
+		targetToRobot(pTargetX, pTargetY, pTargetHeading, pOutDistance, pRightDistance, mState[2]);
+		correctPosition(mMeasurement[0], mMeasurement[1]);
+		replayFrom(slot);
+	}
+
+	/**
+	 * Corrects the estimate with a camera sighting of one of several known
+	 * targets. The camera doesn't say which, so it's taken to be the one that
+	 * puts the robot nearest the estimate at the time of the image. Nothing
+	 * within VISION_GATE means the estimate is lost or the camera saw something
+	 * else, and the sighting is dropped
+	 *
+	 * @param pTargets
+	 *            { x, y, heading } of each target, inches and degrees
+	 * @param pOutDistance
+	 *            distance of the camera out from the target face
+	 * @param pRightDistance
+	 *            distance of the camera to the right of the target, looking out
+	 *            from it
+	 * @param pTimestamp
+	 *            time the image was taken, seconds
+	 * @return index of the target used, -1 if none
+	 */
+	public int addTargetObservation(double[][] pTargets, double pOutDistance, double pRightDistance,
+			double pTimestamp) {
+		int slot = findHistorySlot(pTimestamp);
+		if (slot < 0) {
+			return -1;
+		}
+
+		// the estimate at the time of the image, without loading it yet
+		double x = mHistoryState[slot * 3];
+		double y = mHistoryState[slot * 3 + 1];
+		double heading = mHistoryState[slot * 3 + 2];
+		int best = -1;
+		double bestDistance = DriveConstants.Estimator.VISION_GATE;
+		for (int i = 0; i < pTargets.length; i++) {
+			targetToRobot(pTargets[i][0], pTargets[i][1], pTargets[i][2], pOutDistance, pRightDistance, heading);
+			double distance = Math.hypot(mMeasurement[0] - x, mMeasurement[1] - y);
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		if (best < 0) {
+			return -1;
+		}
+
+		addTargetObservation(pTargets[best][0], pTargets[best][1], pTargets[best][2], pOutDistance, pRightDistance,
+				pTimestamp);
+		return best;
+	}
+
+	/**
+	 * Works out where the robot center is from a target sighting, into
+	 * mMeasurement
+	 *
+	 * @param pRobotHeading
+	 *            robot heading when the image was taken, radians
+	 */
+	private void targetToRobot(double pTargetX, double pTargetY, double pTargetHeading, double pOutDistance,
+			double pRightDistance, double pRobotHeading) {
+		// camera position on the field
+		double targetHeading = Math.toRadians(pTargetHeading);
+		double cos = Math.cos(targetHeading);
+		double sin = Math.sin(targetHeading);
+		double cameraX = pTargetX + pOutDistance * cos - pRightDistance * sin;
+		double cameraY = pTargetY + pOutDistance * sin + pRightDistance * cos;
+
+		// back out the robot center using the heading at the time of the image
+		double offX = CameraConstants.LimelightConstants.X_OFFSET;
+		double offY = CameraConstants.LimelightConstants.Y_OFFSET;
+		cos = Math.cos(pRobotHeading);
+		sin = Math.sin(pRobotHeading);
+		mMeasurement[0] = cameraX - (offX * cos - offY * sin);
+		mMeasurement[1] = cameraY - (offX * sin + offY * cos);
+	}
+
+	/**
+	 * @return index of the last loop at or before the timestamp, or -1 if it is
+	 *         older than the history
+	 */
+	private int findHistorySlot(double pTimestamp) {
+		if (mHistoryCount == 0 || pTimestamp < mHistoryTime[mHistoryStart]) {
+			return -1;
+		}
+		for (int n = mHistoryCount - 1; n >= 0; n--) {
+			int index = (mHistoryStart + n) % HISTORY_SIZE;
+			if (mHistoryTime[index] <= pTimestamp) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Saves the corrected estimate into a history slot, then reruns every loop
+	 * after it
+	 */
+	private void replayFrom(int pSlot) {
+		saveState(pSlot);
+		int last = (mHistoryStart + mHistoryCount - 1) % HISTORY_SIZE;
+		int index = pSlot;
+		while (index != last) {
+			index = (index + 1) % HISTORY_SIZE;
+			predict(mHistoryInput[index * 3], mHistoryInput[index * 3 + 1], mHistoryInput[index * 3 + 2]);
+			correctHeading(mHistoryGyro[index]);
+			saveState(index);
+		}
+		updatePose();
+	}
+
+	private void saveState(int pIndex) {
+		System.arraycopy(mState, 0, mHistoryState, pIndex * 3, 3);
+		System.arraycopy(mCov, 0, mHistoryCov, pIndex * 9, 9);
+	}
+
+	private void loadState(int pIndex) {
+		System.arraycopy(mHistoryState, pIndex * 3, mState, 0, 3);
+		System.arraycopy(mHistoryCov, pIndex * 9, mCov, 0, 9);
+	}
+
+	/**
+	 * x = f(x, u), P = F P F^T + Q
+	 */
+	private void predict(double pDx, double pDy, double pDTheta) {
+		double cos = Math.cos(mState[2]);
+		double sin = Math.sin(mState[2]);
+
+		mState[0] += pDx * cos - pDy * sin;
+		mState[1] += pDx * sin + pDy * cos;
+		mState[2] += pDTheta;
+
+		// jacobian of f with respect to the state
+		mF[0] = 1;
+		mF[1] = 0;
+		mF[2] = -pDx * sin - pDy * cos;
+		mF[3] = 0;
+		mF[4] = 1;
+		mF[5] = pDx * cos - pDy * sin;
+		mF[6] = 0;
+		mF[7] = 0;
+		mF[8] = 1;
+
+		// temp = F P
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				mTemp[r * 3 + c] = mF[r * 3] * mCov[c] + mF[r * 3 + 1] * mCov[3 + c] + mF[r * 3 + 2] * mCov[6 + c];
+			}
+		}
+		// P = temp F^T
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				mCov[r * 3 + c] = mTemp[r * 3] * mF[c * 3] + mTemp[r * 3 + 1] * mF[c * 3 + 1]
+						+ mTemp[r * 3 + 2] * mF[c * 3 + 2];
+			}
+		}
+
+		// process noise grows with how far we moved
+		double distance = Math.hypot(pDx, pDy);
+		double translationNoise = DriveConstants.Estimator.ODOMETRY_TRANSLATION_STD * distance;
+		double rotationNoise = DriveConstants.Estimator.ODOMETRY_ROTATION_STD * Math.abs(pDTheta);
+		mCov[0] += translationNoise * translationNoise;
+		mCov[4] += translationNoise * translationNoise;
+		mCov[8] += rotationNoise * rotationNoise;
+	}
+
+	/**
+	 * Kalman update with H = [0 0 1]
+	 */
+	private void correctHeading(double pHeading) {
+		double gyroStd = DriveConstants.Estimator.GYRO_STD;
+		double innovation = wrapRadians(pHeading - mState[2]);
+		double s = mCov[8] + gyroStd * gyroStd;
+
+		for (int r = 0; r < 3; r++) {
+			mGain[r] = mCov[r * 3 + 2] / s;
+		}
+		for (int r = 0; r < 3; r++) {
+			mState[r] += mGain[r] * innovation;
+		}
+
+		// P = P - K (H P)
+		for (int c = 0; c < 3; c++) {
+			mTemp[c] = mCov[6 + c];
+		}
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				mCov[r * 3 + c] -= mGain[r] * mTemp[c];
+			}
+		}
+	}
+
+	/**
+	 * Kalman update with H = [I 0]
+	 */
+	private void correctPosition(double pX, double pY) {
+		double visionStd = DriveConstants.Estimator.VISION_STD;
+		double innovationX = pX - mState[0];
+		double innovationY = pY - mState[1];
+
+		// S = H P H^T + R, then invert the 2x2
+		double s00 = mCov[0] + visionStd * visionStd;
+		double s01 = mCov[1];
+		double s10 = mCov[3];
+		double s11 = mCov[4] + visionStd * visionStd;
+		double det = s00 * s11 - s01 * s10;
+		if (Math.abs(det) < 1E-12) {
+			return;
+		}
+		double i00 = s11 / det;
+		double i01 = -s01 / det;
+		double i10 = -s10 / det;
+		double i11 = s00 / det;
+
+		// K = P H^T S^-1, 3x2
+		for (int r = 0; r < 3; r++) {
+			double p0 = mCov[r * 3];
+			double p1 = mCov[r * 3 + 1];
+			mGain[r * 2] = p0 * i00 + p1 * i10;
+			mGain[r * 2 + 1] = p0 * i01 + p1 * i11;
+		}
+		for (int r = 0; r < 3; r++) {
+			mState[r] += mGain[r * 2] * innovationX + mGain[r * 2 + 1] * innovationY;
+		}
+
+		// P = P - K (H P)
+		for (int c = 0; c < 6; c++) {
+			mTemp[c] = mCov[c];
+		}
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				mCov[r * 3 + c] -= mGain[r * 2] * mTemp[c] + mGain[r * 2 + 1] * mTemp[3 + c];
+			}
+		}
+	}
+
+	private void updatePose() {
+		mPose.set(mState[0], mState[1], Math.toDegrees(mState[2]));
+	}
+
+	private static double wrapRadians(double pAngle) {
+		return Math.atan2(Math.sin(pAngle), Math.cos(pAngle));
+	}
+
+	/**
+	 * Gets the estimated pose. The same object is updated every loop
+	 *
+	 * @return robot pose
+	 */
+	public Pose getPose() {
+		return mPose;
+	}
+}
@@ -8,47 +8,102 @@ import resource.Vector;
 /**
  * Performs calculations regarding the swerve drive Given a linear and angular
  * velocity, determines individual wheel velocities
- * 
+ *
+ * All work is done on preallocated primitive buffers so nothing is allocated
+ * in the drive loop
+ *
  * @author 3419
  *
  */
 public class SwerveDrive {
 
-	private Vector[] mOffsets;
+	private static final String[] ANGLE_KEYS = { "Vector Angle 0", "Vector Angle 1", "Vector Angle 2", "Vector Angle 3" };
+	private static final String[] MAG_KEYS = { "Vector Mag 0", "Vector Mag 1", "Vector Mag 2", "Vector Mag 3" };
+
+	// distance from center to each wheel, normalized so the average is 1
+	private double[] mOffsetMag;
+
+	// unit vectors perpendicular to center -> wheel; direction each wheel moves when turning
+	private double[] mPerpX;
+	private double[] mPerpY;
+
+	// computed wheel velocities
+	private double[] mOutputX;
+	private double[] mOutputY;
 	private Vector[] mOutputs;
 
+	// discretization over the loop time
+	private boolean mDiscretize;
+	private double mTimeScale;
+	private long mLastCalculateNanos;
+
 	/**
 	 * Initializes a swerve drive calculator
-	 * 
+	 *
 	 * @param wheels
 	 *            wheels to initialize with; used to compute distances relative to
 	 *            robot center
 	 */
 	public SwerveDrive() {
-		mOffsets = new Vector[4];
+		mOffsetMag = new double[4];
+		mPerpX = new double[4];
+		mPerpY = new double[4];
+		mOutputX = new double[4];
+		mOutputY = new double[4];
 		mOutputs = new Vector[4];
+
+		double[] xOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.X_OFF : DriveConstants.ActualRobot.X_OFF;
+		double[] yOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.Y_OFF : DriveConstants.ActualRobot.Y_OFF;
+
 		double sumDistFromCenter = 0;
 		for (int i = 0; i < 4; i++) {
-			if(RunConstants.IS_PROTOTYPE) {
-				mOffsets[i] = new Vector(DriveConstants.PrototypeRobot.X_OFF[i], DriveConstants.PrototypeRobot.Y_OFF[i]);
-			}
-			else {
-				mOffsets[i] = new Vector(DriveConstants.ActualRobot.X_OFF[i], DriveConstants.ActualRobot.Y_OFF[i]);
-			}
+			double mag = Math.hypot(xOff[i], yOff[i]);
+			// rotate the offset +90 degrees for the perpendicular
+			mPerpX[i] = -yOff[i] / mag;
+			mPerpY[i] = xOff[i] / mag;
+			mOffsetMag[i] = mag;
 			mOutputs[i] = new Vector();
-			sumDistFromCenter += mOffsets[i].getMagnitude();
+			sumDistFromCenter += mag;
 		}
 
 		// normalize all the distances average to 1
 		for (int i = 0; i < 4; i++) {
-			double scale = 4 * mOffsets[i].getMagnitude() / sumDistFromCenter;
-			mOffsets[i].setTotal(scale);
+			mOffsetMag[i] = 4 * mOffsetMag[i] / sumDistFromCenter;
 		}
+
+		// one unit of output moves the wheels this many average radii per second
+		mTimeScale = DriveConstants.DRIVE_FREE_SPEED / (sumDistFromCenter / 4);
+		mDiscretize = DriveConstants.DISCRETIZE_KINEMATICS;
 	}
 
 	/**
-	 * Calculates wheel vectors to give some linear & angular velocity
+	 * Turns discretization on or off. When on, calculate() picks the velocity that
+	 * actually ends at the commanded pose after one loop, instead of translating
+	 * and rotating as if both happened instantly (which drifts sideways while
+	 * spinning)
 	 * 
+	 * @param pDiscretize
+	 *            whether to discretize
+	 */
+	public void setDiscretize(boolean pDiscretize) {
+		mDiscretize = pDiscretize;
+	}
+
+	public boolean isDiscretize() {
+		return mDiscretize;
+	}
+
+	/**
+	 * @return how fast the robot turns for an angular velocity of 1, radians per
+	 *         second
+	 */
+	public double getAngularVelocityScale() {
+		return mTimeScale;
+	}
+
+	/**
+	 * Calculates wheel vectors to give some linear & angular velocity
+	 *
 	 * @param pAngularVelocity
 	 *            value between -1 and 1; clockwise is negative, counter-clockwise
 	 *            is positive
@@ -57,44 +112,81 @@ public class SwerveDrive {
 	 *            y-axis points to the right
 	 */
 	public void calculate(double pAngularVelocity, Vector pRobotVelocity) {
-		Vector[] velocities = new Vector[4];
-		double maximumLength = 0;
-		for (int i = 0; i < 4; i++) {
-			double angularComponent_angle = mOffsets[i].getAngle() + 90;
-			// angle from center to wheel, +90 for perpendicular
-			double angularComponent_speed = mOffsets[i].getMagnitude() * pAngularVelocity;
-
-			Vector angularComponent = Vector.createPolar(angularComponent_angle, angularComponent_speed);
-			// if we only used these vectors, would only turn
-			Vector velocityComponent = new Vector(pRobotVelocity);
-			// if we only used these vectors, would drive linearly
-
-			// add two components together
-			velocities[i] = Vector.add(angularComponent, velocityComponent);
-			if (velocities[i].getMagnitude() > maximumLength) {
-				maximumLength = velocities[i].getMagnitude();
-			}
+		calculate(pAngularVelocity, pRobotVelocity.getX(), pRobotVelocity.getY());
+	}
+
+	/**
+	 * Calculates wheel vectors to give some linear & angular velocity
+	 *
+	 * @param pAngularVelocity
+	 *            value between -1 and 1; clockwise is negative, counter-clockwise
+	 *            is positive
+	 * @param pRobotVelX
+	 *            forward component of robot velocity
+	 * @param pRobotVelY
+	 *            rightward component of robot velocity
+	 */
+	public void calculate(double pAngularVelocity, double pRobotVelX, double pRobotVelY) {
+		long now = System.nanoTime();
+		double dt = (now - mLastCalculateNanos) / 1E9;
+		mLastCalculateNanos = now;
+		if (dt <= 0 || dt > DriveConstants.MAX_LOOP_TIME) {
+			dt = DriveConstants.NOMINAL_LOOP_TIME;
 		}
+		calculate(pAngularVelocity, pRobotVelX, pRobotVelY, dt);
+	}
 
-		// if our maximum empirical length is too big, scale it all down
-		if (maximumLength > DriveConstants.MAX_INDIVIDUAL_VELOCITY) {
-			double velScale = DriveConstants.MAX_INDIVIDUAL_VELOCITY / maximumLength;
-			for (int i = 0; i < 4; i++) {
-				velocities[i].scaleTotal(velScale);
+	/**
+	 * Calculates wheel vectors over a given loop time, instead of the time since
+	 * the last call
+	 *
+	 * @param pDt
+	 *            loop time to discretize over, seconds
+	 */
+	void calculate(double pAngularVelocity, double pRobotVelX, double pRobotVelY, double pDt) {
+		if (mDiscretize) {
+			// pose we want to reach after this loop, in normalized units
+			double tau = pDt * mTimeScale;
+			double dx = pRobotVelX * tau;
+			double dy = pRobotVelY * tau;
+			double dTheta = pAngularVelocity * tau;
+
+			// SE(2) log map: twist that ends at that pose
+			double halfDTheta = dTheta / 2;
+			double cosMinusOne = Math.cos(dTheta) - 1;
+			double halfThetaByTanOfHalfDTheta;
+			if (Math.abs(cosMinusOne) < 1E-9) {
+				halfThetaByTanOfHalfDTheta = 1 - dTheta * dTheta / 12;
+			}
+			else {
+				halfThetaByTanOfHalfDTheta = -(halfDTheta * Math.sin(dTheta)) / cosMinusOne;
+			}
+			if (tau > 0) {
+				pRobotVelX = (dx * halfThetaByTanOfHalfDTheta + dy * halfDTheta) / tau;
+				pRobotVelY = (dy * halfThetaByTanOfHalfDTheta - dx * halfDTheta) / tau;
 			}
 		}
 
+		double maximumLengthSq = 0;
 		for (int i = 0; i < 4; i++) {
-			mOutputs[i] = new Vector(velocities[i]);
-			SmartDashboard.putNumber("Vector Angle " + i, mOutputs[i].getAngle());
-			SmartDashboard.putNumber("Vector Mag " + i, mOutputs[i].getMagnitude());
+			// angular component is perpendicular to the wheel offset, linear component is the robot velocity
+			double angularSpeed = mOffsetMag[i] * pAngularVelocity;
+			mOutputX[i] = mPerpX[i] * angularSpeed + pRobotVelX;
+			mOutputY[i] = mPerpY[i] * angularSpeed + pRobotVelY;
+
+			double lengthSq = mOutputX[i] * mOutputX[i] + mOutputY[i] * mOutputY[i];
+			if (lengthSq > maximumLengthSq) {
+				maximumLengthSq = lengthSq;
+			}
 		}
+
+		finishCalculation(maximumLengthSq);
 	}
 
 	/**
 	 * Calculates wheel vectors to give some linear & angular velocity while holding
 	 * wheel direction towards robot velocity
-	 * 
+	 *
 	 * @param pAngularVelocity
 	 *            value between -1 and 1; clockwise is negative, counter-clockwise
 	 *            is positive
@@ -103,48 +195,119 @@ public class SwerveDrive {
 	 *            y-axis points to the right
 	 */
 	public void calculateHoldDirection(double pAngularVelocity, Vector pRobotVelocity) {
-		Vector normalizedRobotVel = Vector.normalized(pRobotVelocity);
-
-		Vector[] fakeVelocities = new Vector[4];
-		Vector[] velocities = new Vector[4];
-		double maximumLength = 0;
-		for (int i = 0; i < 4; i++) {
-			double angularComponent_angle = mOffsets[i].getAngle() + 90;
-			// angle from center to wheel, +90 for perpendicular
-			double angularComponent_speed = mOffsets[i].getMagnitude() * pAngularVelocity;
+		calculateHoldDirection(pAngularVelocity, pRobotVelocity.getX(), pRobotVelocity.getY());
+	}
 
-			Vector angularComponent = Vector.createPolar(angularComponent_angle, angularComponent_speed);
-			// if we only used these vectors, would only turn
+	/**
+	 * Calculates wheel vectors to give some linear & angular velocity while holding
+	 * wheel direction towards robot velocity
+	 *
+	 * @param pAngularVelocity
+	 *            value between -1 and 1; clockwise is negative, counter-clockwise
+	 *            is positive
+	 * @param pRobotVelX
+	 *            forward component of robot velocity
+	 * @param pRobotVelY
+	 *            rightward component of robot velocity
+	 */
+	public void calculateHoldDirection(double pAngularVelocity, double pRobotVelX, double pRobotVelY) {
+		// direction to hold; a zero velocity normalizes to 0 degrees, same as Vector.normalized
+		double robotSpeed = Math.hypot(pRobotVelX, pRobotVelY);
+		double dirX = 1;
+		double dirY = 0;
+		if (robotSpeed > 0) {
+			dirX = pRobotVelX / robotSpeed;
+			dirY = pRobotVelY / robotSpeed;
+		}
 
-			// add two components together
-			fakeVelocities[i] = Vector.add(angularComponent, pRobotVelocity);
+		double maximumLengthSq = 0;
+		for (int i = 0; i < 4; i++) {
+			double angularSpeed = mOffsetMag[i] * pAngularVelocity;
+			double fakeX = mPerpX[i] * angularSpeed + pRobotVelX;
+			double fakeY = mPerpY[i] * angularSpeed + pRobotVelY;
 
-			double length = Vector.dot(fakeVelocities[i], normalizedRobotVel);
-			velocities[i] = Vector.createPolar(normalizedRobotVel.getAngle(), length);
+			// only keep the part of the wheel velocity along the held direction
+			double length = fakeX * dirX + fakeY * dirY;
+			mOutputX[i] = dirX * length;
+			mOutputY[i] = dirY * length;
 
-			if (velocities[i].getMagnitude() > maximumLength) {
-				maximumLength = velocities[i].getMagnitude();
+			if (length * length > maximumLengthSq) {
+				maximumLengthSq = length * length;
 			}
 		}
 
+		finishCalculation(maximumLengthSq);
+	}
+
+	/**
+	 * Scales the wheel velocities down if any is too fast
+	 *
+	 * @param pMaximumLengthSq
+	 *            square of the longest wheel velocity
+	 */
+	private void finishCalculation(double pMaximumLengthSq) {
 		// if our maximum empirical length is too big, scale it all down
-		if (maximumLength > DriveConstants.MAX_INDIVIDUAL_VELOCITY) {
-			double velScale = DriveConstants.MAX_INDIVIDUAL_VELOCITY / maximumLength;
+		double max = DriveConstants.MAX_INDIVIDUAL_VELOCITY;
+		if (pMaximumLengthSq > max * max) {
+			double velScale = max / Math.sqrt(pMaximumLengthSq);
 			for (int i = 0; i < 4; i++) {
-				velocities[i].scaleTotal(velScale);
+				mOutputX[i] *= velScale;
+				mOutputY[i] *= velScale;
 			}
 		}
 
 		for (int i = 0; i < 4; i++) {
-			mOutputs[i] = new Vector(velocities[i]);
-			SmartDashboard.putNumber("Vector Angle " + i, mOutputs[i].getAngle());
-			SmartDashboard.putNumber("Vector Mag " + i, mOutputs[i].getMagnitude());
+			mOutputs[i].setCartesian(mOutputX[i], mOutputY[i]);
 		}
 	}
 
 	/**
-	 * Gets the previously computed wheel vector
-	 * 
+	 * Publishes the last computed wheel vectors. Kept out of the calculations so
+	 * they stay pure math
+	 */
+	public void publish() {
+		for (int i = 0; i < 4; i++) {
+			SmartDashboard.putNumber(ANGLE_KEYS[i], getOutputAngle(i));
+			SmartDashboard.putNumber(MAG_KEYS[i], getOutputMagnitude(i));
+		}
+	}
+
+	/**
+	 * Forward component of one wheel's velocity for some robot velocity, without
+	 * any scaling
+	 *
+	 * @param pIndex
+	 *            which wheel
+	 * @param pAngularVelocity
+	 *            robot angular velocity
+	 * @param pRobotVelX
+	 *            robot forward velocity
+	 * @return forward component of the wheel velocity
+	 */
+	public double getModuleVelocityX(int pIndex, double pAngularVelocity, double pRobotVelX) {
+		return mPerpX[pIndex] * mOffsetMag[pIndex] * pAngularVelocity + pRobotVelX;
+	}
+
+	/**
+	 * Rightward component of one wheel's velocity for some robot velocity,
+	 * without any scaling
+	 *
+	 * @param pIndex
+	 *            which wheel
+	 * @param pAngularVelocity
+	 *            robot angular velocity
+	 * @param pRobotVelY
+	 *            robot rightward velocity
+	 * @return rightward component of the wheel velocity
+	 */
+	public double getModuleVelocityY(int pIndex, double pAngularVelocity, double pRobotVelY) {
+		return mPerpY[pIndex] * mOffsetMag[pIndex] * pAngularVelocity + pRobotVelY;
+	}
+
+	/**
+	 * Gets the previously computed wheel vector. The same object is updated on
+	 * every calculation, so copy it if it needs to be kept
+	 *
 	 * @param index
 	 *            Which wheel to retrieve the output
 	 * @return Output vector for that wheel
@@ -152,4 +315,40 @@ public class SwerveDrive {
 	public Vector getOutput(int index) {
 		return mOutputs[index];
 	}
+
+	/**
+	 * @param index
+	 *            Which wheel to retrieve the output
+	 * @return forward component of the previously computed wheel velocity
+	 */
+	public double getOutputX(int index) {
+		return mOutputX[index];
+	}
+
+	/**
+	 * @param index
+	 *            Which wheel to retrieve the output
+	 * @return rightward component of the previously computed wheel velocity
+	 */
+	public double getOutputY(int index) {
+		return mOutputY[index];
+	}
+
+	/**
+	 * @param index
+	 *            Which wheel to retrieve the output
+	 * @return angle of the previously computed wheel velocity, 0 <= angle < 360
+	 */
+	public double getOutputAngle(int index) {
+		return (Math.toDegrees(Math.atan2(mOutputY[index], mOutputX[index])) + 3600) % 360;
+	}
+
+	/**
+	 * @param index
+	 *            Which wheel to retrieve the output
+	 * @return magnitude of the previously computed wheel velocity
+	 */
+	public double getOutputMagnitude(int index) {
+		return Math.hypot(mOutputX[index], mOutputY[index]);
+	}
 }
@@ -0,0 +1,239 @@
+package robotcode.driving;
+
+import resource.Pose;
+import resource.ResourceFunctions;
+
+/**
+ * Forward kinematics for the swerve drive. Given the angle and speed of every
+ * wheel, finds the robot velocity that best explains them (least squares) and
+ * integrates it into a pose
+ *
+ * Every buffer is sized by the number of modules when constructed, so updating
+ * does not allocate
+ *
+ * @author 3419
+ *
+ */
+public class SwerveOdometry {
+
+	private int mNumModules;
+
+	// wheel positions relative to robot center, in inches
+	private double[] mOffsetX;
+	private double[] mOffsetY;
+
+	// inverse of (A^T A) for the least squares fit, row major 3x3
+	private double[] mNormalInverse;
+
+	// measured wheel velocities, robot relative, inches per second
+	private double[] mModuleVelX;
+	private double[] mModuleVelY;
+
+	// fitted robot velocity: inches per second forward / right, radians per second
+	private double mVelX;
+	private double mVelY;
+	private double mAngularVel;
+
+	private Pose mPose;
+	private double mHeadingOffset;
+	private double mLastTimestamp;
+	private boolean mHasUpdated;
+
+	/**
+	 * Initializes odometry
+	 *
+	 * @param pOffsetX
+	 *            forward distance from robot center to each wheel
+	 * @param pOffsetY
+	 *            rightward distance from robot center to each wheel
+	 */
+	public SwerveOdometry(double[] pOffsetX, double[] pOffsetY) {
+		mNumModules = pOffsetX.length;
+		mOffsetX = pOffsetX.clone();
+		mOffsetY = pOffsetY.clone();
+		mModuleVelX = new double[mNumModules];
+		mModuleVelY = new double[mNumModules];
+		mNormalInverse = new double[9];
+		mPose = new Pose();
+
+		// each wheel gives two rows of A: vx_i = vx - w * y_i, vy_i = vy + w * x_i
+		double sumX = 0, sumY = 0, sumSq = 0;
+		for (int i = 0; i < mNumModules; i++) {
+			sumX += mOffsetX[i];
+			sumY += mOffsetY[i];
+			sumSq += mOffsetX[i] * mOffsetX[i] + mOffsetY[i] * mOffsetY[i];
+		}
+		double n = mNumModules;
+		double[] normal = new double[] {
+				n, 0, -sumY,
+				0, n, sumX,
+				-sumY, sumX, sumSq };
+		invert3x3(normal, mNormalInverse);
+	}
+
+	/**
+	 * Sets the measured state of one wheel
+	 *
+	 * @param pIndex
+	 *            which wheel
+	 * @param pAngle
+	 *            direction the wheel is driving, degrees
+	 * @param pSpeed
+	 *            speed of the wheel in that direction, inches per second
+	 */
+	public void setModuleState(int pIndex, double pAngle, double pSpeed) {
+		double angle = Math.toRadians(pAngle);
+		mModuleVelX[pIndex] = Math.cos(angle) * pSpeed;
+		mModuleVelY[pIndex] = Math.sin(angle) * pSpeed;
+	}
+
+	/**
+	 * Fits the robot velocity to the last wheel states set
+	 */
+	public void calculateRobotVelocity() {
+		// A^T b
+		double sumVX = 0, sumVY = 0, sumTorque = 0;
+		for (int i = 0; i < mNumModules; i++) {
+			sumVX += mModuleVelX[i];
+			sumVY += mModuleVelY[i];
+			sumTorque += -mOffsetY[i] * mModuleVelX[i] + mOffsetX[i] * mModuleVelY[i];
+		}
+
+		mVelX = mNormalInverse[0] * sumVX + mNormalInverse[1] * sumVY + mNormalInverse[2] * sumTorque;
+		mVelY = mNormalInverse[3] * sumVX + mNormalInverse[4] * sumVY + mNormalInverse[5] * sumTorque;
+		mAngularVel = mNormalInverse[6] * sumVX + mNormalInverse[7] * sumVY + mNormalInverse[8] * sumTorque;
+	}
+
+	/**
+	 * Fits the robot velocity and integrates the pose, turning with the wheels
+	 *
+	 * @param pTimestamp
+	 *            current time in seconds
+	 */
+	public void update(double pTimestamp) {
+		calculateRobotVelocity();
+		double dt = getTimeStep(pTimestamp);
+		integrate(mVelX * dt, mVelY * dt, mAngularVel * dt);
+	}
+
+	/**
+	 * Fits the robot velocity and integrates the pose, turning with the gyro
+	 *
+	 * @param pTimestamp
+	 *            current time in seconds
+	 * @param pGyroAngle
+	 *            gyro angle in degrees
+	 */
+	public void update(double pTimestamp, double pGyroAngle) {
+		calculateRobotVelocity();
+		boolean first = !mHasUpdated;
+		double dt = getTimeStep(pTimestamp);
+		if (first) {
+			mHeadingOffset = ResourceFunctions.continuousAngleDif(mPose.getHeading(), pGyroAngle);
+		}
+		double dHeading = ResourceFunctions.continuousAngleDif(pGyroAngle + mHeadingOffset, mPose.getHeading());
+		integrate(mVelX * dt, mVelY * dt, Math.toRadians(dHeading));
+	}
+
+	/**
+	 * Moves the pose by a robot relative step, following the arc it would drive
+	 * if the velocity were constant over the step
+	 *
+	 * @param pDx
+	 *            forward distance
+	 * @param pDy
+	 *            rightward distance
+	 * @param pDTheta
+	 *            change in heading, radians
+	 */
+	private void integrate(double pDx, double pDy, double pDTheta) {
+		double s, c;
+		if (Math.abs(pDTheta) < 1E-9) {
+			s = 1 - pDTheta * pDTheta / 6;
+			c = pDTheta / 2;
+		}
+		else {
+			s = Math.sin(pDTheta) / pDTheta;
+			c = (1 - Math.cos(pDTheta)) / pDTheta;
+		}
+		double localX = pDx * s - pDy * c;
+		double localY = pDx * c + pDy * s;
+
+		double heading = Math.toRadians(mPose.getHeading());
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		mPose.set(mPose.getX() + localX * cos - localY * sin,
+				mPose.getY() + localX * sin + localY * cos,
+				mPose.getHeading() + Math.toDegrees(pDTheta));
+	}
+
+	private double getTimeStep(double pTimestamp) {
+		double dt = mHasUpdated ? pTimestamp - mLastTimestamp : 0;
+		mLastTimestamp = pTimestamp;
+		mHasUpdated = true;
+		return Math.max(dt, 0);
+	}
+
+	/**
+	 * Resets the pose; the next gyro update re-zeroes the heading offset
+	 *
+	 * @param pX
+	 *            x position
+	 * @param pY
+	 *            y position
+	 * @param pHeading
+	 *            heading, degrees
+	 */
+	public void reset(double pX, double pY, double pHeading) {
+		mPose.set(pX, pY, pHeading);
+		mHasUpdated = false;
+	}
+
+	/**
+	 * Gets the integrated pose. The same object is updated every loop
+	 *
+	 * @return robot pose
+	 */
+	public Pose getPose() {
+		return mPose;
+	}
+
+	/**
+	 * @return fitted forward velocity, inches per second
+	 */
+	public double getVelocityX() {
+		return mVelX;
+	}
+
+	/**
+	 * @return fitted rightward velocity, inches per second
+	 */
+	public double getVelocityY() {
+		return mVelY;
+	}
+
+	/**
+	 * @return fitted angular velocity, radians per second (same direction as the
+	 *         gyro)
+	 */
+	public double getAngularVelocity() {
+		return mAngularVel;
+	}
+
+	private static void invert3x3(double[] m, double[] out) {
+		double c00 = m[4] * m[8] - m[5] * m[7];
+		double c01 = m[5] * m[6] - m[3] * m[8];
+		double c02 = m[3] * m[7] - m[4] * m[6];
+		double det = m[0] * c00 + m[1] * c01 + m[2] * c02;
+
+		out[0] = c00 / det;
+		out[1] = (m[2] * m[7] - m[1] * m[8]) / det;
+		out[2] = (m[1] * m[5] - m[2] * m[4]) / det;
+		out[3] = c01 / det;
+		out[4] = (m[0] * m[8] - m[2] * m[6]) / det;
+		out[5] = (m[2] * m[3] - m[0] * m[5]) / det;
+		out[6] = c02 / det;
+		out[7] = (m[1] * m[6] - m[0] * m[7]) / det;
+		out[8] = (m[0] * m[4] - m[1] * m[3]) / det;
+	}
+}
@@ -0,0 +1,201 @@
+package robotcode.driving;
+
+import constants.DriveConstants;
+
+/**
+ * Sits between the drive train and the swerve calculations, and moves the
+ * commanded robot velocity towards the target without going over the
+ * acceleration, jerk or wheel steering rate limits
+ *
+ * Velocities are in the same units SwerveDrive takes. Everything is kept in
+ * primitives and each update does a fixed amount of work
+ *
+ * @author 3419
+ *
+ */
+public class SwerveSetpointGenerator {
+
+	private SwerveDrive mSwerveDrive;
+
+	// current setpoint
+	private double mVelX;
+	private double mVelY;
+	private double mAngularVel;
+	private double mAccelX;
+	private double mAccelY;
+	private double mAngularAccel;
+
+	// limits, per second
+	private double mMaxAccel;
+	private double mMaxJerk;
+	private double mMaxAngularAccel;
+	private double mMaxAngularJerk;
+	private double mMaxSteerRate; // radians
+
+	private long mLastUpdateNanos;
+
+	/**
+	 * @param pSwerveDrive
+	 *            swerve calculator, used for wheel positions
+	 */
+	public SwerveSetpointGenerator(SwerveDrive pSwerveDrive) {
+		mSwerveDrive = pSwerveDrive;
+		setLimits(DriveConstants.SetpointLimits.NORMAL_ACCEL, DriveConstants.SetpointLimits.NORMAL_JERK,
+				DriveConstants.SetpointLimits.NORMAL_ANGULAR_ACCEL, DriveConstants.SetpointLimits.NORMAL_ANGULAR_JERK,
+				DriveConstants.SetpointLimits.NORMAL_STEER_RATE);
+	}
+
+	/**
+	 * Sets the limits used from the next update on
+	 *
+	 * @param pMaxAccel
+	 *            max linear acceleration, per second
+	 * @param pMaxJerk
+	 *            max change in linear acceleration, per second
+	 * @param pMaxAngularAccel
+	 *            max angular acceleration, per second
+	 * @param pMaxAngularJerk
+	 *            max change in angular acceleration, per second
+	 * @param pMaxSteerRate
+	 *            max wheel turning speed, degrees per second
+	 */
+	public void setLimits(double pMaxAccel, double pMaxJerk, double pMaxAngularAccel, double pMaxAngularJerk,
+			double pMaxSteerRate) {
+		mMaxAccel = pMaxAccel;
+		mMaxJerk = pMaxJerk;
+		mMaxAngularAccel = pMaxAngularAccel;
+		mMaxAngularJerk = pMaxAngularJerk;
+		mMaxSteerRate = Math.toRadians(pMaxSteerRate);
+	}
+
+	/**
+	 * Moves the setpoint one loop towards the target
+	 *
+	 * @param pAngularVelocity
+	 *            target angular velocity
+	 * @param pRobotVelX
+	 *            target forward velocity
+	 * @param pRobotVelY
+	 *            target rightward velocity
+	 */
+	public void update(double pAngularVelocity, double pRobotVelX, double pRobotVelY) {
+		long now = System.nanoTime();
+		double dt = (now - mLastUpdateNanos) / 1E9;
+		mLastUpdateNanos = now;
+		if (dt <= 0 || dt > DriveConstants.MAX_LOOP_TIME) {
+			dt = DriveConstants.NOMINAL_LOOP_TIME;
+		}
+
+		// linear: accelerate towards the target, but no harder than we can stop
+		// accelerating (jerk limited) by the time we get there
+		double errX = pRobotVelX - mVelX;
+		double errY = pRobotVelY - mVelY;
+		double err = Math.hypot(errX, errY);
+		double desiredAccelX = 0, desiredAccelY = 0;
+		if (err > 0) {
+			double accel = Math.min(mMaxAccel, Math.min(Math.sqrt(2 * mMaxJerk * err), err / dt));
+			desiredAccelX = errX / err * accel;
+			desiredAccelY = errY / err * accel;
+		}
+		double jerkX = desiredAccelX - mAccelX;
+		double jerkY = desiredAccelY - mAccelY;
+		double jerk = Math.hypot(jerkX, jerkY);
+		double maxJerkStep = mMaxJerk * dt;
+		if (jerk > maxJerkStep) {
+			jerkX *= maxJerkStep / jerk;
+			jerkY *= maxJerkStep / jerk;
+		}
+		double accelX = mAccelX + jerkX;
+		double accelY = mAccelY + jerkY;
+		double velX = mVelX + accelX * dt;
+		double velY = mVelY + accelY * dt;
+		// went past the target
+		if ((pRobotVelX - velX) * errX + (pRobotVelY - velY) * errY < 0) {
+			velX = pRobotVelX;
+			velY = pRobotVelY;
+		}
+
+		// angular, same thing in one dimension
+		double angularErr = pAngularVelocity - mAngularVel;
+		double desiredAngularAccel = Math.signum(angularErr) * Math.min(mMaxAngularAccel,
+				Math.min(Math.sqrt(2 * mMaxAngularJerk * Math.abs(angularErr)), Math.abs(angularErr) / dt));
+		double angularAccel = mAngularAccel + Math.max(-mMaxAngularJerk * dt,
+				Math.min(mMaxAngularJerk * dt, desiredAngularAccel - mAngularAccel));
+		double angularVel = mAngularVel + angularAccel * dt;
+		if ((pAngularVelocity - angularVel) * angularErr < 0) {
+			angularVel = pAngularVelocity;
+		}
+
+		// wheel steering rate: take only part of the step if any wheel would have to
+		// turn too fast
+		double scale = 1;
+		double maxSteerStep = mMaxSteerRate * dt;
+		for (int i = 0; i < 4; i++) {
+			double oldX = mSwerveDrive.getModuleVelocityX(i, mAngularVel, mVelX);
+			double oldY = mSwerveDrive.getModuleVelocityY(i, mAngularVel, mVelY);
+			double newX = mSwerveDrive.getModuleVelocityX(i, angularVel, velX);
+			double newY = mSwerveDrive.getModuleVelocityY(i, angularVel, velY);
+			if (Math.hypot(oldX, oldY) < DriveConstants.MIN_LINEAR_VELOCITY
+					|| Math.hypot(newX, newY) < DriveConstants.MIN_LINEAR_VELOCITY) {
+				continue;
+			}
+
+			double turn = Math.atan2(Math.abs(oldX * newY - oldY * newX), oldX * newX + oldY * newY);
+			if (turn > Math.PI / 2) {
+				turn = Math.PI - turn; // the wheel reverses instead
+			}
+			if (turn > maxSteerStep) {
+				scale = Math.min(scale, maxSteerStep / turn);
+			}
+		}
+
+		velX = mVelX + (velX - mVelX) * scale;
+		velY = mVelY + (velY - mVelY) * scale;
+		angularVel = mAngularVel + (angularVel - mAngularVel) * scale;
+
+		mAccelX = (velX - mVelX) / dt;
+		mAccelY = (velY - mVelY) / dt;
+		mAngularAccel = (angularVel - mAngularVel) / dt;
+		mVelX = velX;
+		mVelY = velY;
+		mAngularVel = angularVel;
+	}
+
+	/**
+	 * Jumps straight to a setpoint, with no acceleration
+	 *
+	 * @param pAngularVelocity
+	 *            angular velocity
+	 * @param pRobotVelX
+	 *            forward velocity
+	 * @param pRobotVelY
+	 *            rightward velocity
+	 */
+	public void reset(double pAngularVelocity, double pRobotVelX, double pRobotVelY) {
+		mVelX = pRobotVelX;
+		mVelY = pRobotVelY;
+		mAngularVel = pAngularVelocity;
+		mAccelX = 0;
+		mAccelY = 0;
+		mAngularAccel = 0;
+	}
+
+	/**
+	 * @return whether the setpoint still has the robot moving
+	 */
+	public boolean isMoving() {
+		return Math.hypot(mVelX, mVelY) > DriveConstants.MIN_LINEAR_VELOCITY;
+	}
+
+	public double getVelocityX() {
+		return mVelX;
+	}
+
+	public double getVelocityY() {
+		return mVelY;
+	}
+
+	public double getAngularVelocity() {
+		return mAngularVel;
+	}
+}
@@ -1,11 +1,14 @@
 package robotcode.driving;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
 import constants.DriveConstants;
+import constants.RunConstants;
 import resource.ResourceFunctions;
 import resource.Vector;
+import sensors.SensorSnapshot;
 import sensors.TalonAbsoluteEncoder;
 
 public class Wheel {
@@ -13,12 +16,66 @@ public class Wheel {
 	private WPI_TalonSRX mTurn;
 	private WPI_TalonSRX mDrive;
 	private TalonAbsoluteEncoder mEncoder;
+	private SensorSnapshot mSensors;
+	private int mModule; // index into the snapshot
 
-	public Wheel(WPI_TalonSRX pTurn, WPI_TalonSRX pDrive, TalonAbsoluteEncoder pEncoder) 
+	// drive backwards instead of turning the wheel more than 90 degrees
+	private boolean mReversed;
+	// cosine of the steering error left, so the wheel doesn't scrub while turning
+	private double mDriveScale = 1;
+
+	// closed loop velocity on the drive Talon instead of percent output
+	private boolean mVelocityControl;
+	private double mKS, mKV, mKA;
+	private double mLastVelocitySetpoint; // inches per second, before reversing and cosine scaling
+	private long mLastVelocityNanos;
+	private boolean mLastReversed;
+	private boolean mVelocityActive; // whether the last drive command was closed loop velocity
+
+	// steering: motion magic profile instead of plain position control
+	private boolean mMotionMagic;
+	private double mTolerance; // degrees
+
+	// steering settle time: from when a new angle is asked for until the wheel is there
+	private double mSettleTarget;
+	private long mSettleStartNanos;
+	private boolean mSettling;
+	private double mLastSettleTime; // seconds
+
+	/**
+	 * @param pTurn
+	 *            steering Talon
+	 * @param pDrive
+	 *            drive Talon
+	 * @param pEncoder
+	 *            steering angle, read through the snapshot
+	 * @param pSensors
+	 *            snapshot the Talons' sensors are read into
+	 * @param pModule
+	 *            which module this is in the snapshot
+	 */
+	public Wheel(WPI_TalonSRX pTurn, WPI_TalonSRX pDrive, TalonAbsoluteEncoder pEncoder, SensorSnapshot pSensors,
+			int pModule) 
 	{
 		mTurn = pTurn;
 		mDrive = pDrive;
 		mEncoder = pEncoder;
+		mSensors = pSensors;
+		mModule = pModule;
+
+		if (RunConstants.IS_PROTOTYPE) {
+			mKS = DriveConstants.PrototypeRobot.DRIVE_KS;
+			mKV = DriveConstants.PrototypeRobot.DRIVE_KV;
+			mKA = DriveConstants.PrototypeRobot.DRIVE_KA;
+			mTolerance = DriveConstants.PrototypeRobot.ROTATION_TOLERANCE[pModule];
+		}
+		else {
+			mKS = DriveConstants.ActualRobot.DRIVE_KS;
+			mKV = DriveConstants.ActualRobot.DRIVE_KV;
+			mKA = DriveConstants.ActualRobot.DRIVE_KA;
+			mTolerance = DriveConstants.ActualRobot.ROTATION_TOLERANCE[pModule];
+		}
+		setSteeringMotionMagic(DriveConstants.STEER_MOTION_MAGIC);
 	}
 
 	/**
@@ -49,41 +106,180 @@ public class Wheel {
 	public void setLinearVelocity(double pSpeed) 
 	{
 		double speed = Math.signum(pSpeed) * Math.min(Math.abs(pSpeed), DriveConstants.MAX_LINEAR_VELOCITY);
-		mDrive.set(ControlMode.PercentOutput, speed);
+		double direction = mReversed ? -mDriveScale : mDriveScale;
+
+		if (mVelocityControl) {
+			setClosedLoopVelocity(speed * DriveConstants.DRIVE_FREE_SPEED, direction);
+		}
+		else {
+			mVelocityActive = false;
+			mDrive.set(ControlMode.PercentOutput, speed * direction);
+		}
+	}
+
+	/**
+	 * Runs the drive Talon's velocity loop, with kS/kV/kA feedforward sent as
+	 * arbitrary feedforward so the Talon's PID only has to fix what's left
+	 * 
+	 * Acceleration comes from the unscaled setpoint, so the steering cosine
+	 * scale doesn't show up as acceleration. It's zeroed when the wheel flips
+	 * direction, the setpoint changes sign, or the last command wasn't closed
+	 * loop velocity, and clamped to what the drive can actually do
+	 * 
+	 * @param pVelocity
+	 *            wheel velocity in inches per second, before reversing and cosine
+	 *            scaling
+	 * @param pDirection
+	 *            reversing and cosine scale for the drive motor
+	 */
+	private void setClosedLoopVelocity(double pVelocity, double pDirection) 
+	{
+		long now = System.nanoTime();
+		double dt = (now - mLastVelocityNanos) / 1E9;
+		mLastVelocityNanos = now;
+		double acceleration = 0;
+		if (mVelocityActive && mReversed == mLastReversed && pVelocity * mLastVelocitySetpoint >= 0 && dt > 0
+				&& dt < DriveConstants.MAX_LOOP_TIME) {
+			acceleration = (pVelocity - mLastVelocitySetpoint) / dt;
+			acceleration = Math.max(-DriveConstants.MAX_FEEDFORWARD_ACCEL,
+					Math.min(DriveConstants.MAX_FEEDFORWARD_ACCEL, acceleration));
+		}
+		mLastVelocitySetpoint = pVelocity;
+		mLastReversed = mReversed;
+		mVelocityActive = true;
+
+		double velocity = pVelocity * pDirection;
+		if (velocity == 0) {
+			mDrive.set(ControlMode.PercentOutput, 0);
+			return;
+		}
+
+		double feedforward = mKS * Math.signum(velocity) + mKV * velocity + mKA * acceleration * pDirection;
+		// talon velocity is in ticks per 100ms
+		mDrive.set(ControlMode.Velocity, velocity * DriveConstants.DRIVE_TICKS_PER_INCH / 10,
+				DemandType.ArbitraryFeedForward, feedforward);
+	}
+
+	/**
+	 * Switches the drive motor between percent output and closed loop velocity
+	 * 
+	 * @param pVelocityControl
+	 *            true for closed loop velocity
+	 */
+	public void setVelocityControl(boolean pVelocityControl) 
+	{
+		if (!pVelocityControl) {
+			mVelocityActive = false;
+		}
+		mVelocityControl = pVelocityControl;
 	}
 
 	public void setAngle(double pAngle) {
-		TalonPID(pAngle);
-		//TalonMotionMagic(pAngle);
+		if (mMotionMagic) {
+			TalonMotionMagic(pAngle);
+		}
+		else {
+			TalonPID(pAngle);
+		}
+		updateSettleTime(pAngle);
 	}
 
 	private void TalonPID(double pTarget) 
 	{
-		double current = ResourceFunctions.tickToAngle(mTurn.getSelectedSensorPosition(0));
-		double realCurrent = mEncoder.getAngleDegrees();
+		mTurn.set(ControlMode.Position, optimize(pTarget));
+	}
+
+	private void TalonMotionMagic(double pTarget) // cruise velocity, acceleration and slot 1 gains are set in Robot.driveInit
+	{
+		mTurn.set(ControlMode.MotionMagic, optimize(pTarget));
+	}
+
+	/**
+	 * Switches steering between plain position control and motion magic, along
+	 * with the Talon gain slot each one uses
+	 * 
+	 * @param pMotionMagic
+	 *            true for motion magic
+	 */
+	public void setSteeringMotionMagic(boolean pMotionMagic) 
+	{
+		mMotionMagic = pMotionMagic;
+		mTurn.selectProfileSlot(pMotionMagic ? DriveConstants.MOTION_MAGIC_SLOT : DriveConstants.POSITION_SLOT, 0);
+	}
 
-		double error = ResourceFunctions.continuousAngleDif(pTarget, ResourceFunctions.putAngleInRange(realCurrent));
+	public boolean isSteeringMotionMagic() 
+	{
+		return mMotionMagic;
+	}
 
-		if (Math.abs(error) > 90) {
-			mEncoder.setAdd180(!mEncoder.getAdd180());
-			mDrive.setInverted(!mDrive.getInverted());
-			error = ResourceFunctions.continuousAngleDif(pTarget, realCurrent);
+	/**
+	 * Changes the motion magic steering profile. Doesn't wait for the Talon to
+	 * confirm, so it can be called while driving
+	 * 
+	 * @param pCruiseVelocity
+	 *            ticks per 100ms
+	 * @param pAcceleration
+	 *            ticks per 100ms per second
+	 */
+	public void setSteeringProfile(int pCruiseVelocity, int pAcceleration) 
+	{
+		mTurn.configMotionCruiseVelocity(pCruiseVelocity, 0);
+		mTurn.configMotionAcceleration(pAcceleration, 0);
+	}
+
+	/**
+	 * Times how long the wheel takes to reach each new angle it's given
+	 * 
+	 * @param pTarget
+	 *            angle the wheel was just told to go to
+	 */
+	private void updateSettleTime(double pTarget) 
+	{
+		long now = System.nanoTime();
+		if (Math.abs(ResourceFunctions.continuousAngleDif(pTarget, mSettleTarget)) > mTolerance) {
+			mSettleTarget = pTarget;
+			mSettleStartNanos = now;
+			mSettling = true;
+		}
+		if (mSettling && IsInRange(pTarget)) {
+			mSettling = false;
+			mLastSettleTime = (now - mSettleStartNanos) / 1E9;
 		}
-		mTurn.set(ControlMode.Position, ResourceFunctions.angleToTick(current + error));
 	}
 
-	private void TalonMotionMagic(double pTarget){ //Have to set velocity, acceleration, and PIDF constants
-		double current = ResourceFunctions.tickToAngle(mTurn.getSelectedSensorPosition(0));
-		double realCurrent = mEncoder.getAngleDegrees();
+	/**
+	 * @return seconds the last completed turn took to get within tolerance
+	 */
+	public double getLastSettleTime() 
+	{
+		return mLastSettleTime;
+	}
 
-		double error = ResourceFunctions.continuousAngleDif(pTarget, ResourceFunctions.putAngleInRange(realCurrent));
+	/**
+	 * Picks the shortest way to point the wheel at the target: turn towards it, or
+	 * turn towards the opposite angle and drive backwards. Reversing is done in
+	 * software so no Talon config has to be sent mid-move
+	 * 
+	 * @param pTarget
+	 *            direction the wheel should drive
+	 * @return continuous (multi-turn) setpoint for the turn Talon, in ticks
+	 */
+	private double optimize(double pTarget) 
+	{
+		// same reading for both, so the setpoint and the error can't disagree
+		double current = mSensors.getTurnPosition(mModule);
+		double realCurrent = mEncoder.getAngleDegrees(current);
 
-		if (Math.abs(error) > 90) {
-			mEncoder.setAdd180(!mEncoder.getAdd180());
-			mDrive.setInverted(!mDrive.getInverted());
-			error = ResourceFunctions.continuousAngleDif(pTarget, realCurrent);
+		double error = ResourceFunctions.continuousAngleDif(pTarget, realCurrent + (mReversed ? 180 : 0));
+
+		// past 90 degrees (plus some hysteresis so it doesn't chatter), flip direction
+		if (Math.abs(error) > 90 + DriveConstants.REVERSE_HYSTERESIS) {
+			mReversed = !mReversed;
+			error = ResourceFunctions.continuousAngleDif(pTarget, realCurrent + (mReversed ? 180 : 0));
 		}
-		mTurn.set(ControlMode.MotionMagic, ResourceFunctions.angleToTick(current + error));
+
+		mDriveScale = Math.max(Math.cos(Math.toRadians(error)), 0);
+		return current + ResourceFunctions.angleToTick(error);
 	}
 
 	public void setTurnSpeed(double pSpeed) 
@@ -91,16 +287,32 @@ public class Wheel {
 		mTurn.set(ControlMode.PercentOutput, pSpeed);
 	}
 
+	/**
+	 * Direction the wheel is driving, including when it is reversed
+	 * 
+	 * @return angle, 0 <= angle < 360
+	 */
 	public double getAngle()
 	{
-		return mEncoder.getAngleDegrees();
+		return ResourceFunctions.putAngleInRange(mEncoder.getAngleDegrees() + (mReversed ? 180 : 0));
+	}
+
+	/**
+	 * Speed of the wheel in the direction of getAngle()
+	 * 
+	 * @return speed in inches per second
+	 */
+	public double getLinearVelocity()
+	{
+		// talon velocity is in ticks per 100ms
+		double velocity = mSensors.getDriveVelocity(mModule) * 10 / DriveConstants.DRIVE_TICKS_PER_INCH;
+		return mReversed ? -velocity : velocity;
 	}
 	
 	public boolean IsInRange(double pTarget) 
 	{
-		double realCurrent = mEncoder.getAngleDegrees();
-		double error = ResourceFunctions.continuousAngleDif(pTarget, ResourceFunctions.putAngleInRange(realCurrent));
-		return Math.abs(error) < DriveConstants.ActualRobot.ROTATION_TOLERANCE[0];
+		double error = ResourceFunctions.continuousAngleDif(pTarget, getAngle());
+		return Math.abs(error) < mTolerance;
 	}
 	
 	/*
@@ -1,17 +0,0 @@
-package robotcode.pid;
-
-import edu.wpi.first.wpilibj.PIDOutput;
-
-public class GenericPIDOutput implements PIDOutput {
-	private double mVal;
-
-	@Override
-	public void pidWrite(double output) {
-		mVal = output;
-	}
-
-	public double getVal() {
-		return mVal;
-	}
-
-}
@@ -0,0 +1,211 @@
+package robotcode.pid;
+
+/**
+ * PIDF controller that runs in the calling loop instead of on its own thread.
+ * Call calculate() once per loop; the time step is measured between calls, so
+ * I is per second and D is in seconds
+ *
+ * @author 3419
+ *
+ */
+public class SynchronousPIDF {
+
+	private double mP;
+	private double mI;
+	private double mD;
+	private double mF;
+
+	private double mMinimumInput = 0;
+	private double mMaximumInput = 0;
+	private boolean mContinuous = false;
+
+	private double mMinimumOutput = -1;
+	private double mMaximumOutput = 1;
+
+	private double mTolerance = 0;
+
+	private boolean mEnabled = false;
+	private double mSetpoint = 0;
+	private double mError = 0;
+	private double mPrevError = 0;
+	private double mTotalError = 0;
+	private double mResult = 0;
+	private long mLastCalculateNanos;
+	private boolean mHasCalculated = false;
+
+	/**
+	 * @param pP
+	 *            proportional gain
+	 * @param pI
+	 *            integral gain, per second
+	 * @param pD
+	 *            derivative gain, seconds
+	 */
+	public SynchronousPIDF(double pP, double pI, double pD) {
+		this(pP, pI, pD, 0);
+	}
+
+	/**
+	 * @param pP
+	 *            proportional gain
+	 * @param pI
+	 *            integral gain, per second
+	 * @param pD
+	 *            derivative gain, seconds
+	 * @param pF
+	 *            feedforward gain, multiplied by the setpoint
+	 */
+	public SynchronousPIDF(double pP, double pI, double pD, double pF) {
+		mP = pP;
+		mI = pI;
+		mD = pD;
+		mF = pF;
+	}
+
+	/**
+	 * Steps the controller
+	 *
+	 * @param pMeasurement
+	 *            current value of whatever is being controlled
+	 * @return output; 0 if disabled
+	 */
+	public double calculate(double pMeasurement) {
+		long now = System.nanoTime();
+		double dt = (now - mLastCalculateNanos) / 1E9;
+		mLastCalculateNanos = now;
+
+		mError = getContinuousError(mSetpoint - pMeasurement);
+		if (!mEnabled) {
+			mHasCalculated = false;
+			mResult = 0;
+			return mResult;
+		}
+
+		double derivative = 0;
+		if (mHasCalculated && dt > 0) {
+			// keep the integral from winding past what the output can use
+			if (mI != 0) {
+				double total = mTotalError + mError * dt;
+				if (total * mI < mMaximumOutput && total * mI > mMinimumOutput) {
+					mTotalError = total;
+				}
+			}
+			derivative = (mError - mPrevError) / dt;
+		}
+		mPrevError = mError;
+		mHasCalculated = true;
+
+		mResult = mP * mError + mI * mTotalError + mD * derivative + mF * mSetpoint;
+		mResult = Math.max(mMinimumOutput, Math.min(mMaximumOutput, mResult));
+		return mResult;
+	}
+
+	/**
+	 * Wraps the error to the shortest way around when continuous
+	 */
+	private double getContinuousError(double pError) {
+		if (mContinuous) {
+			double range = mMaximumInput - mMinimumInput;
+			pError %= range;
+			if (pError > range / 2) {
+				pError -= range;
+			}
+			else if (pError < -range / 2) {
+				pError += range;
+			}
+		}
+		return pError;
+	}
+
+	/**
+	 * Clears the integral and derivative history
+	 */
+	public void reset() {
+		mError = 0;
+		mPrevError = 0;
+		mTotalError = 0;
+		mResult = 0;
+		mHasCalculated = false;
+	}
+
+	public void enable() {
+		mEnabled = true;
+	}
+
+	public void disable() {
+		mEnabled = false;
+		mResult = 0;
+	}
+
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	public void setSetpoint(double pSetpoint) {
+		mSetpoint = pSetpoint;
+	}
+
+	public double getSetpoint() {
+		return mSetpoint;
+	}
+
+	/**
+	 * @return error from the last calculate()
+	 */
+	public double getError() {
+		return mError;
+	}
+
+	/**
+	 * @return output from the last calculate()
+	 */
+	public double get() {
+		return mResult;
+	}
+
+	public void setPID(double pP, double pI, double pD) {
+		mP = pP;
+		mI = pI;
+		mD = pD;
+	}
+
+	public void setF(double pF) {
+		mF = pF;
+	}
+
+	/**
+	 * @param pMinimumInput
+	 *            smallest measurement
+	 * @param pMaximumInput
+	 *            largest measurement
+	 */
+	public void setInputRange(double pMinimumInput, double pMaximumInput) {
+		mMinimumInput = pMinimumInput;
+		mMaximumInput = pMaximumInput;
+	}
+
+	/**
+	 * @param pContinuous
+	 *            whether the ends of the input range are the same point (like
+	 *            angles)
+	 */
+	public void setContinuous(boolean pContinuous) {
+		mContinuous = pContinuous;
+	}
+
+	public void setOutputRange(double pMinimumOutput, double pMaximumOutput) {
+		mMinimumOutput = pMinimumOutput;
+		mMaximumOutput = pMaximumOutput;
+	}
+
+	public void setAbsoluteTolerance(double pTolerance) {
+		mTolerance = pTolerance;
+	}
+
+	/**
+	 * @return whether the last error was within tolerance
+	 */
+	public boolean onTarget() {
+		return mHasCalculated && Math.abs(mError) < mTolerance;
+	}
+}
@@ -14,6 +14,7 @@ import constants.BallIntakeConstants;
 import constants.JoystickConstants;
 import robotcode.CustomJoystick;
 import robotcode.pneumatics.DoubleSolenoidReal;
+import sensors.SensorSnapshot;
 
 
 public class BallIntakeMotor {
@@ -21,12 +22,14 @@ public class BallIntakeMotor {
     private CustomJoystick mJoystick;
     
     private WPI_TalonSRX mBallHolder;
+    private SensorSnapshot mSensors;
     private DoubleSolenoidReal mStopperPiston; 
     
     private BallIntakeState mBallIntakeState;
 
-    public BallIntakeMotor(WPI_TalonSRX pHolder, CustomJoystick pJoystick) {
+    public BallIntakeMotor(WPI_TalonSRX pHolder, SensorSnapshot pSensors, CustomJoystick pJoystick) {
         mBallHolder = pHolder;
+        mSensors = pSensors;
         mJoystick = pJoystick;
         mBallIntakeState = BallIntakeState.MANUAL;
     }
@@ -92,8 +95,9 @@ public class BallIntakeMotor {
     }
 
     public void setVelocity(double pVel) {
-        if((pVel < 0 && mBallHolder.getSelectedSensorPosition() < BallIntakeConstants.HIGHEST_POINT)|| 
-        (pVel>0 && mBallHolder.getSelectedSensorPosition() > BallIntakeConstants.LOWEST_POINT)){
+        int position = mSensors.getBallHolderPosition();
+        if((pVel < 0 && position < BallIntakeConstants.HIGHEST_POINT)|| 
+        (pVel>0 && position > BallIntakeConstants.LOWEST_POINT)){
             mBallHolder.set(ControlMode.PercentOutput, pVel);
         }
         else{
@@ -102,8 +106,9 @@ public class BallIntakeMotor {
     }
 
     public boolean ballIntakeNotInSafeRange(){
-        return mBallHolder.getSelectedSensorPosition() < BallIntakeConstants.LOWEST_POINT 
-        || mBallHolder.getSelectedSensorPosition() > BallIntakeConstants.HIGHEST_POINT;
+        int position = mSensors.getBallHolderPosition();
+        return position < BallIntakeConstants.LOWEST_POINT 
+        || position > BallIntakeConstants.HIGHEST_POINT;
     }
 
 }
@@ -11,6 +11,7 @@ import robotcode.CustomJoystick;
 import robotcode.pneumatics.SolenoidInterface;
 import constants.HatchIntakeConstants;
 import constants.JoystickConstants;
+import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
 
 public class HatchIntake {
 
@@ -52,6 +53,10 @@ public class HatchIntake {
         mRotaryPiston.setOpposite();
     }
 
+    public Value getRotaryState() {
+        return mRotaryPiston.get();
+    }
+
     // **************//
     // LINEAR PISTON //
     // **************//
@@ -67,6 +72,10 @@ public class HatchIntake {
         mLinearPiston.setOpposite();
     }
 
+    public Value getLinearState() {
+        return mLinearPiston.get();
+    }
+
     public void enactMovement() {
         // rotary piston
         if (mJoystick.getRawButtonReleased(JoystickConstants.HatchIntakeButtons.EXPAND_CONTRACT)) {
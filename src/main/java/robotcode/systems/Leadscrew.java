@@ -17,6 +17,7 @@ import resource.ResourceFunctions;
 import robotcode.CustomJoystick;
 import robotcode.camera.Limelight;
 import sensors.LeadscrewEncoder;
+import sensors.SensorSnapshot;
 
 
 public class Leadscrew {
@@ -31,6 +32,8 @@ public class Leadscrew {
     // leadscrew
     private WPI_TalonSRX mLeadscrew;
     private LeadscrewEncoder mEncoder;
+    private SensorSnapshot mSensors;
+    private int mGoalTicks; // last position asked for, so the Talon doesn't have to be asked
     private LeadscrewState mLeadscrewState = LeadscrewState.IDLE; // DEFAULT TO MANUAL
 
     // camera
@@ -40,9 +43,10 @@ public class Leadscrew {
     // ***********//
     // INITIALIZE //
     // ***********//
-    public Leadscrew(WPI_TalonSRX pLeadscrew, LeadscrewEncoder pEncoder, Limelight pLimelight, CustomJoystick pJoystick) {
+    public Leadscrew(WPI_TalonSRX pLeadscrew, LeadscrewEncoder pEncoder, SensorSnapshot pSensors, Limelight pLimelight, CustomJoystick pJoystick) {
         mLeadscrew = pLeadscrew;
         mEncoder = pEncoder;
+        mSensors = pSensors;
         mHatchCamera = pLimelight;
         mJoystick = pJoystick;
     }
@@ -73,7 +77,7 @@ public class Leadscrew {
         }
 
         // zero sensor
-        if (mLeadscrew.getSensorCollection().isRevLimitSwitchClosed()) {
+        if (mSensors.isLeadscrewReverseLimitClosed()) {
             zero();
         }
 
@@ -125,7 +129,7 @@ public class Leadscrew {
      */
     public void setPosition(double pInchMeasurement) {
 
-        double goal = LeadscrewEncoder.leadscrewInchToTick(ResourceFunctions.putNumInAbsoluteRange(pInchMeasurement, 0, LeadscrewConstants.LENGTH));
+        int goal = LeadscrewEncoder.leadscrewInchToTick(ResourceFunctions.putNumInAbsoluteRange(pInchMeasurement, 0, LeadscrewConstants.LENGTH));
 
         // if (getInSoftLimit()) { /*** SLOW IT DOWN IF CLOSE TO END ***/
         //     mLeadscrew.config_kP(0, LeadscrewConstants.PID.LEADSCREW_P / 2, 10);
@@ -135,6 +139,7 @@ public class Leadscrew {
         //}
         SmartDashboard.putNumber("ERROR IN SETPOSITION METHOD", goal - mEncoder.getDistanceInInchesFromEnd());
 
+        mGoalTicks = goal;
         mLeadscrew.set(ControlMode.Position, goal);
     }
 
@@ -159,22 +164,23 @@ public class Leadscrew {
     }
 
     /**
-     * when the robot starts up, drive the leadscrew to the end that zeroes it and set to zero
+     * when the robot starts up, drive the leadscrew to the end that zeroes it and set to zero.
+     * runs outside the robot loop, so it refreshes the leadscrew readings itself
      */
     public void leadscrewInitialZero() {
-        while (!mLeadscrew.getSensorCollection().isRevLimitSwitchClosed()) {
+        mSensors.readLeadscrew();
+        while (!mSensors.isLeadscrewReverseLimitClosed()) {
             mLeadscrew.set(ControlMode.PercentOutput, getInSoftLimit() ? -0.2 : -0.7);
             SmartDashboard.putNumber("is zeroing", System.currentTimeMillis());
-            SmartDashboard.putNumber("Talon zeroing error value", mLeadscrew.getClosedLoopError());
-            SmartDashboard.putNumber("Talon zeroing target value", mLeadscrew.getClosedLoopTarget());
-
+            SmartDashboard.putNumber("Talon zeroing position", mSensors.getLeadscrewPosition());
+            mSensors.readLeadscrew();
         }
         mLeadscrew.set(ControlMode.PercentOutput, 0);
         zero();
     }
 
     public boolean isInRange(){
-        return Math.abs(mEncoder.getError((int) mLeadscrew.getClosedLoopTarget())) <= LeadscrewConstants.PID.LEADSCREW_TOLERANCE;
+        return Math.abs(mEncoder.getError(mGoalTicks)) <= LeadscrewConstants.PID.LEADSCREW_TOLERANCE;
     }
 
 
@@ -192,5 +198,12 @@ public class Leadscrew {
     public LeadscrewEncoder getLeadscrewEncoder() {
         return mEncoder;
     }
+
+    /**
+     * @return last position asked for in setPosition, in ticks
+     */
+    public int getGoalTicks() {
+        return mGoalTicks;
+    }
     
 }
@@ -7,15 +7,17 @@
 
 package sensors;
 
-import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import constants.LeadscrewConstants;
 
 public class LeadscrewEncoder {
 
-    private WPI_TalonSRX mTalon;
+    private SensorSnapshot mSensors;
 
-    public LeadscrewEncoder(WPI_TalonSRX pTalon) {
-        mTalon = pTalon;
+    /**
+     * @param pSensors snapshot the leadscrew Talon's position is read into
+     */
+    public LeadscrewEncoder(SensorSnapshot pSensors) {
+        mSensors = pSensors;
     }
 
     // **********//
@@ -50,7 +52,7 @@ public class LeadscrewEncoder {
      * @return the value of the leadscrew encoder at the current position
      */
     public int getRawTicks() {
-        return mTalon.getSelectedSensorPosition(0);
+        return mSensors.getLeadscrewPosition();
     }
 
     /**
@@ -0,0 +1,64 @@
+package sensors;
+
+/**
+ * One NavX reading. Reused by whoever reads them, so nothing is allocated per
+ * sample
+ *
+ * @author 3419
+ *
+ */
+public class NavXSample {
+
+	private double mTimestamp; // seconds, FPGA time it arrived
+	private double mYaw; // degrees, not wrapped
+	private double mYawRate; // degrees per second
+	private double mPitch; // degrees
+	private double mRoll;
+	private double mAccelX; // g, gravity removed
+	private double mAccelY;
+	private double mAccelZ;
+
+	void set(double pTimestamp, double pYaw, double pYawRate, double pPitch, double pRoll, double pAccelX,
+			double pAccelY, double pAccelZ) {
+		mTimestamp = pTimestamp;
+		mYaw = pYaw;
+		mYawRate = pYawRate;
+		mPitch = pPitch;
+		mRoll = pRoll;
+		mAccelX = pAccelX;
+		mAccelY = pAccelY;
+		mAccelZ = pAccelZ;
+	}
+
+	public double getTimestamp() {
+		return mTimestamp;
+	}
+
+	public double getYaw() {
+		return mYaw;
+	}
+
+	public double getYawRate() {
+		return mYawRate;
+	}
+
+	public double getPitch() {
+		return mPitch;
+	}
+
+	public double getRoll() {
+		return mRoll;
+	}
+
+	public double getAccelX() {
+		return mAccelX;
+	}
+
+	public double getAccelY() {
+		return mAccelY;
+	}
+
+	public double getAccelZ() {
+		return mAccelZ;
+	}
+}
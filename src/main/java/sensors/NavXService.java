@@ -0,0 +1,184 @@
+package sensors;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.kauailabs.navx.AHRSProtocol.AHRSUpdateBase;
+import com.kauailabs.navx.frc.AHRS;
+import com.kauailabs.navx.frc.ITimestampedDataSubscriber;
+
+import constants.DriveConstants;
+import constants.Ports;
+import edu.wpi.first.wpilibj.Timer;
+import resource.ResourceFunctions;
+
+/**
+ * Takes every NavX reading as it arrives, instead of asking for one whenever
+ * something needs it. The NavX library calls back on its own thread with each
+ * update; the readings go into a ring of the last few, which the robot loop
+ * reads without locking
+ *
+ * Each slot has a sequence number that's odd while the NavX thread is writing
+ * it. A reader copies the slot and checks the number didn't change, and tries
+ * again if it did. There's only ever one writer, so it never waits
+ *
+ * @author 3419
+ *
+ */
+public class NavXService implements ITimestampedDataSubscriber {
+
+	private AHRS mNavX;
+
+	// the ring, one array per value; the slot for sample n is n & mMask
+	private int mMask;
+	private AtomicLongArray mSequences;
+	private long[] mIndices;
+	private double[] mTimestamps;
+	private double[] mYaws;
+	private double[] mYawRates;
+	private double[] mPitches;
+	private double[] mRolls;
+	private double[] mAccelX;
+	private double[] mAccelY;
+	private double[] mAccelZ;
+	private volatile long mNewest = -1; // number of the newest sample, -1 before the first
+
+	// only touched by the NavX thread
+	private double mYaw; // unwrapped
+	private double mLastRawYaw;
+	private long mLastSensorTimestamp;
+	private double mLastTimestamp;
+	private double mYawRate;
+
+	/**
+	 * Opens the NavX on the port and at the rate in DriveConstants.NavX
+	 */
+	public NavXService() {
+		if (DriveConstants.NavX.SPI) {
+			mNavX = new AHRS(Ports.NAVX_SPI, (byte) DriveConstants.NavX.UPDATE_RATE);
+		}
+		else {
+			mNavX = new AHRS(Ports.NAVX, AHRS.SerialDataType.kProcessedData, (byte) DriveConstants.NavX.UPDATE_RATE);
+		}
+
+		int size = DriveConstants.NavX.BUFFER_SIZE;
+		mMask = size - 1;
+		mSequences = new AtomicLongArray(size);
+		mIndices = new long[size];
+		mTimestamps = new double[size];
+		mYaws = new double[size];
+		mYawRates = new double[size];
+		mPitches = new double[size];
+		mRolls = new double[size];
+		mAccelX = new double[size];
+		mAccelY = new double[size];
+		mAccelZ = new double[size];
+
+		mNavX.registerCallback(this, null);
+	}
+
+	/**
+	 * Called by the NavX library, on its thread, with each new reading
+	 */
+	@Override
+	public void timestampedDataReceived(long pSystemTimestamp, long pSensorTimestamp, AHRSUpdateBase pData,
+			Object pContext) {
+		double timestamp = Timer.getFPGATimestamp();
+		long index = mNewest + 1;
+
+		if (index == 0) {
+			mYaw = pData.yaw;
+		}
+		else {
+			double change = ResourceFunctions.continuousAngleDif(pData.yaw, mLastRawYaw);
+			mYaw += change;
+			// the NavX's own clock if it has one, otherwise ours
+			double dt = pSensorTimestamp > mLastSensorTimestamp ? (pSensorTimestamp - mLastSensorTimestamp) / 1000.0
+					: timestamp - mLastTimestamp;
+			if (dt > 0 && Math.abs(change / dt) < DriveConstants.NavX.MAX_YAW_RATE) {
+				mYawRate = change / dt;
+			}
+		}
+		mLastRawYaw = pData.yaw;
+		mLastSensorTimestamp = pSensorTimestamp;
+		mLastTimestamp = timestamp;
+
+		int slot = (int) (index & mMask);
+		long sequence = mSequences.get(slot) + 1;
+		mSequences.set(slot, sequence); // odd: being written
+		VarHandle.storeStoreFence();
+		mIndices[slot] = index;
+		mTimestamps[slot] = timestamp;
+		mYaws[slot] = mYaw;
+		mYawRates[slot] = mYawRate;
+		mPitches[slot] = pData.pitch;
+		mRolls[slot] = pData.roll;
+		mAccelX[slot] = pData.linear_accel_x;
+		mAccelY[slot] = pData.linear_accel_y;
+		mAccelZ[slot] = pData.linear_accel_z;
+		mSequences.set(slot, sequence + 1);
+		mNewest = index;
+	}
+
+	/**
+	 * Copies out one sample
+	 *
+	 * @param pIndex
+	 *            sample number, from getNewestIndex() back
+	 * @param pSample
+	 *            where to put it
+	 * @return false if the sample has been written over, or hasn't come yet; pSample
+	 *         is then left with whatever was read
+	 */
+	public boolean read(long pIndex, NavXSample pSample) {
+		if (pIndex < 0 || pIndex > mNewest) {
+			return false;
+		}
+		int slot = (int) (pIndex & mMask);
+		while (true) {
+			long sequence = mSequences.get(slot);
+			if ((sequence & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+			long index = mIndices[slot];
+			pSample.set(mTimestamps[slot], mYaws[slot], mYawRates[slot], mPitches[slot], mRolls[slot],
+					mAccelX[slot], mAccelY[slot], mAccelZ[slot]);
+			VarHandle.loadLoadFence();
+			if (mSequences.get(slot) == sequence) {
+				return index == pIndex;
+			}
+		}
+	}
+
+	/**
+	 * Copies out the newest sample
+	 *
+	 * @param pSample
+	 *            where to put it
+	 * @return false if there hasn't been one yet
+	 */
+	public boolean readNewest(NavXSample pSample) {
+		long index = mNewest;
+		// only fails if the NavX went all the way round the ring while we read
+		while (index >= 0 && !read(index, pSample)) {
+			index = mNewest;
+		}
+		return index >= 0;
+	}
+
+	/**
+	 * @return number of the newest sample, -1 before the first; counts up by one
+	 *         per reading
+	 */
+	public long getNewestIndex() {
+		return mNewest;
+	}
+
+	/**
+	 * @return the NavX, for resetting and configuring it
+	 */
+	public AHRS getNavX() {
+		return mNavX;
+	}
+}
@@ -2,26 +2,141 @@ package sensors;
 
 import com.kauailabs.navx.frc.AHRS;
 
+import constants.DriveConstants;
 import edu.wpi.first.wpilibj.PIDSource;
 import edu.wpi.first.wpilibj.PIDSourceType;
+import resource.ResourceFunctions;
 
 public class RobotAngle extends RotationInputter implements PIDSource {
 	AHRS mNavX;
+	SensorSnapshot mSensors;
 	boolean mReversed;
 	PIDSourceType mPIDSourceType = PIDSourceType.kDisplacement;
 
-	public RobotAngle(AHRS pNavX, boolean pReversed, double pOffset) {
+	// heading history: when each reading was taken (seconds) and the angle then
+	double[] mSampleTimes;
+	double[] mSampleAngles;
+	int mNewestSample;
+	int mNumSamples;
+
+	/**
+	 * @param pNavX
+	 *            gyro, only used directly to reset it
+	 * @param pSensors
+	 *            snapshot the gyro's newest reading is copied into
+	 * @param pReversed
+	 *            whether the gyro turns the opposite way to the robot
+	 * @param pOffset
+	 *            gyro angle when the robot faces forward
+	 */
+	public RobotAngle(AHRS pNavX, SensorSnapshot pSensors, boolean pReversed, double pOffset) {
 		super(pOffset);
 		mReversed = pReversed;
 		mNavX = pNavX;
+		mSensors = pSensors;
+		mSampleTimes = new double[DriveConstants.GyroHistory.SIZE];
+		mSampleAngles = new double[DriveConstants.GyroHistory.SIZE];
+		mNewestSample = 0;
+		mNumSamples = 0;
+	}
+
+	/**
+	 * Records the current angle in the history if the NavX has a new reading.
+	 * Call once per loop
+	 */
+	public void sample() {
+		double angle = getAngleDegrees();
+		double readingTime = mSensors.getGyroTimestamp() - DriveConstants.GyroHistory.LATENCY;
+		if (mNumSamples > 0) {
+			// same reading as before; only re-record it once it's clearly not moving
+			boolean unchanged = angle == mSampleAngles[mNewestSample];
+			if (readingTime <= mSampleTimes[mNewestSample] || (unchanged
+					&& readingTime - mSampleTimes[mNewestSample] < DriveConstants.GyroHistory.UPDATE_PERIOD)) {
+				return;
+			}
+		}
+
+		mNewestSample = (mNewestSample + 1) % mSampleTimes.length;
+		mSampleTimes[mNewestSample] = readingTime;
+		mSampleAngles[mNewestSample] = angle;
+		if (mNumSamples < mSampleTimes.length) {
+			mNumSamples++;
+		}
+	}
+
+	/**
+	 * Angular velocity from the last few readings in the history
+	 * 
+	 * @return degrees per second, same direction as the angle
+	 */
+	public double getSampledAngularVelocity() {
+		if (mNumSamples < 2) {
+			return 0;
+		}
+		// go back at least RATE_WINDOW to smooth out the noise
+		double newestTime = mSampleTimes[mNewestSample];
+		int oldest = mNewestSample;
+		for (int i = 1; i < mNumSamples; i++) {
+			oldest = (mNewestSample - i + mSampleTimes.length) % mSampleTimes.length;
+			if (newestTime - mSampleTimes[oldest] >= DriveConstants.GyroHistory.RATE_WINDOW) {
+				break;
+			}
+		}
+		double dt = newestTime - mSampleTimes[oldest];
+		if (dt <= 0) {
+			return 0;
+		}
+		return ResourceFunctions.continuousAngleDif(mSampleAngles[mNewestSample], mSampleAngles[oldest]) / dt;
+	}
+
+	/**
+	 * Predicts the angle at some time by extrapolating from the newest reading
+	 * 
+	 * @param pTimestamp
+	 *            time in seconds, usually a little in the future
+	 * @return predicted angle, 0 <= angle < 360
+	 */
+	public double getPredictedAngleDegrees(double pTimestamp) {
+		if (mNumSamples == 0) {
+			return getAngleDegrees();
+		}
+		double horizon = pTimestamp - mSampleTimes[mNewestSample];
+		horizon = Math.max(0, Math.min(DriveConstants.GyroHistory.MAX_PREDICTION, horizon));
+		return ResourceFunctions
+				.putAngleInRange(mSampleAngles[mNewestSample] + getSampledAngularVelocity() * horizon);
+	}
+
+	/**
+	 * Angle at some time: interpolated inside the history, predicted after it
+	 * 
+	 * @param pTimestamp
+	 *            time in seconds
+	 * @return angle, 0 <= angle < 360
+	 */
+	public double getAngleDegreesAt(double pTimestamp) {
+		if (mNumSamples == 0 || pTimestamp >= mSampleTimes[mNewestSample]) {
+			return getPredictedAngleDegrees(pTimestamp);
+		}
+		int later = mNewestSample;
+		for (int i = 1; i < mNumSamples; i++) {
+			int earlier = (mNewestSample - i + mSampleTimes.length) % mSampleTimes.length;
+			if (mSampleTimes[earlier] <= pTimestamp) {
+				double fraction = (pTimestamp - mSampleTimes[earlier])
+						/ (mSampleTimes[later] - mSampleTimes[earlier]);
+				double change = ResourceFunctions.continuousAngleDif(mSampleAngles[later], mSampleAngles[earlier]);
+				return ResourceFunctions.putAngleInRange(mSampleAngles[earlier] + change * fraction);
+			}
+			later = earlier;
+		}
+		return mSampleAngles[later]; // older than the whole history
 	}
 
 	public double getRawAngleDegrees() {
-		return mNavX.getAngle();
+		return mSensors.getGyroAngle();
 	}
 
 	public double getAngularVelocity() {
-		return Math.toDegrees((mReversed ? -1 : 1) * mNavX.getRate());
+		return (mReversed ? -1 : 1) * mSensors.getGyroRate();
 	}
 
 	public double pidGet() {
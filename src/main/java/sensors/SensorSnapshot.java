@@ -0,0 +1,214 @@
+package sensors;
+
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Every sensor value the loop uses, read once at the top of the loop. Each read
+ * is a JNI call (and for the Talons, a CAN status frame lookup), so everything
+ * that used to ask the hardware directly, sometimes several times a loop, asks
+ * this instead
+ *
+ * Values are raw, in the hardware's units; the encoder classes turn them into
+ * angles and distances. Nothing here allocates after construction. Devices are
+ * registered as they're created, and ones that aren't aren't read. The NavX
+ * isn't asked at all; its newest reading is copied from NavXService
+ *
+ * @author 3419
+ *
+ */
+public class SensorSnapshot {
+
+	// drive modules
+	private WPI_TalonSRX[] mTurn;
+	private WPI_TalonSRX[] mDrive;
+	private int[] mTurnPosition; // ticks, continuous
+	private int[] mDriveVelocity; // ticks per 100ms
+	private double[] mDriveOutput; // percent
+
+	// gyro
+	private NavXService mNavX;
+	private NavXSample mGyro;
+
+	// leadscrew
+	private WPI_TalonSRX mLeadscrew;
+	private int mLeadscrewPosition; // ticks
+	private boolean mLeadscrewReverseLimit;
+	private double mLeadscrewOutput; // percent
+
+	// ball holder
+	private WPI_TalonSRX mBallHolder;
+	private int mBallHolderPosition; // ticks
+
+	private double mTimestamp;
+
+	// per loop: hardware reads made, and lookups mechanism code made (each of which
+	// used to be a hardware read)
+	private int mReads;
+	private int mLookups;
+
+	public SensorSnapshot() {
+		mTurnPosition = new int[4];
+		mDriveVelocity = new int[4];
+		mDriveOutput = new double[4];
+		mGyro = new NavXSample();
+	}
+
+	/**
+	 * @param pTurn
+	 *            steering Talons, one per module
+	 * @param pDrive
+	 *            drive Talons, same order
+	 */
+	public void setDrive(WPI_TalonSRX[] pTurn, WPI_TalonSRX[] pDrive) {
+		mTurn = pTurn;
+		mDrive = pDrive;
+	}
+
+	public void setNavX(NavXService pNavX) {
+		mNavX = pNavX;
+	}
+
+	public void setLeadscrew(WPI_TalonSRX pLeadscrew) {
+		mLeadscrew = pLeadscrew;
+	}
+
+	public void setBallHolder(WPI_TalonSRX pBallHolder) {
+		mBallHolder = pBallHolder;
+	}
+
+	/**
+	 * Reads every registered sensor. Call once at the top of the loop, before
+	 * anything uses the values. Publishes the last loop's read counts first
+	 */
+	public void read() {
+		SmartDashboard.putNumber("Sensor Reads Per Loop", mReads);
+		SmartDashboard.putNumber("Sensor Lookups Per Loop", mLookups);
+		mReads = 0;
+		mLookups = 0;
+
+		mTimestamp = Timer.getFPGATimestamp();
+		if (mTurn != null) {
+			for (int i = 0; i < mTurn.length; i++) {
+				mTurnPosition[i] = mTurn[i].getSelectedSensorPosition(0);
+				mDriveVelocity[i] = mDrive[i].getSelectedSensorVelocity(0);
+				mDriveOutput[i] = mDrive[i].getMotorOutputPercent();
+			}
+			mReads += 3 * mTurn.length;
+		}
+		if (mNavX != null) {
+			mNavX.readNewest(mGyro); // from memory, not a hardware read
+		}
+		readLeadscrew();
+		if (mBallHolder != null) {
+			mBallHolderPosition = mBallHolder.getSelectedSensorPosition(0);
+			mReads++;
+		}
+	}
+
+	/**
+	 * Reads just the leadscrew, for code that waits on it outside the loop
+	 */
+	public void readLeadscrew() {
+		if (mLeadscrew != null) {
+			mLeadscrewPosition = mLeadscrew.getSelectedSensorPosition(0);
+			mLeadscrewReverseLimit = mLeadscrew.getSensorCollection().isRevLimitSwitchClosed();
+			mLeadscrewOutput = mLeadscrew.getMotorOutputPercent();
+			mReads += 3;
+		}
+	}
+
+	/**
+	 * @return when the snapshot was read, seconds
+	 */
+	public double getTimestamp() {
+		return mTimestamp;
+	}
+
+	/**
+	 * @return steering Talon position, ticks, not wrapped
+	 */
+	public int getTurnPosition(int pModule) {
+		mLookups++;
+		return mTurnPosition[pModule];
+	}
+
+	/**
+	 * @return drive Talon velocity, ticks per 100ms
+	 */
+	public int getDriveVelocity(int pModule) {
+		mLookups++;
+		return mDriveVelocity[pModule];
+	}
+
+	/**
+	 * @return drive Talon output, -1 to 1
+	 */
+	public double getDriveOutput(int pModule) {
+		mLookups++;
+		return mDriveOutput[pModule];
+	}
+
+	/**
+	 * @return NavX yaw, degrees, not wrapped
+	 */
+	public double getGyroAngle() {
+		mLookups++;
+		return mGyro.getYaw();
+	}
+
+	/**
+	 * @return NavX yaw rate, degrees per second
+	 */
+	public double getGyroRate() {
+		mLookups++;
+		return mGyro.getYawRate();
+	}
+
+	/**
+	 * @return when the newest NavX reading arrived, seconds
+	 */
+	public double getGyroTimestamp() {
+		mLookups++;
+		return mGyro.getTimestamp();
+	}
+
+	/**
+	 * @return the whole newest NavX reading, with pitch, roll and acceleration
+	 */
+	public NavXSample getGyroSample() {
+		mLookups++;
+		return mGyro;
+	}
+
+	/**
+	 * @return leadscrew position, ticks from where it was zeroed
+	 */
+	public int getLeadscrewPosition() {
+		mLookups++;
+		return mLeadscrewPosition;
+	}
+
+	public boolean isLeadscrewReverseLimitClosed() {
+		mLookups++;
+		return mLeadscrewReverseLimit;
+	}
+
+	/**
+	 * @return leadscrew output, -1 to 1
+	 */
+	public double getLeadscrewOutput() {
+		mLookups++;
+		return mLeadscrewOutput;
+	}
+
+	/**
+	 * @return ball holder position, ticks
+	 */
+	public int getBallHolderPosition() {
+		mLookups++;
+		return mBallHolderPosition;
+	}
+}
@@ -8,23 +8,55 @@ import resource.ResourceFunctions;
 public class TalonAbsoluteEncoder extends RotationInputter {
 	
 	WPI_TalonSRX mTalon;
+	SensorSnapshot mSensors;
+	int mModule;
 
-	public TalonAbsoluteEncoder(WPI_TalonSRX pTalon, double pOffset) 
+	/**
+	 * @param pTalon
+	 *            steering Talon the encoder is plugged into
+	 * @param pSensors
+	 *            snapshot the Talon's position is read into
+	 * @param pModule
+	 *            which module the Talon is in the snapshot
+	 * @param pOffset
+	 *            encoder angle when the wheel points forward
+	 */
+	public TalonAbsoluteEncoder(WPI_TalonSRX pTalon, SensorSnapshot pSensors, int pModule, double pOffset) 
 	{
 		super(pOffset);
 		
 		mTalon = pTalon;
+		mSensors = pSensors;
+		mModule = pModule;
 		mTalon.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute, 0, 10);
 	}
 
 	public double getRawAngleDegrees() 
 	{
-		return ResourceFunctions.putAngleInRange(mTalon.getSelectedSensorPosition(0) * 360 / 4096 - this.getOffset());
+		return getRawAngleDegrees(mSensors.getTurnPosition(mModule));
+	}
+
+	/**
+	 * @param pTicks
+	 *            Talon position, for when the caller already has it
+	 */
+	public double getRawAngleDegrees(double pTicks) 
+	{
+		return ResourceFunctions.putAngleInRange(pTicks * 360 / 4096 - this.getOffset());
 	}
 
 	public double getAngleDegrees()
 	{
-		double angle = getRawAngleDegrees();
+		return getAngleDegrees(mSensors.getTurnPosition(mModule));
+	}
+
+	/**
+	 * @param pTicks
+	 *            Talon position, for when the caller already has it
+	 */
+	public double getAngleDegrees(double pTicks)
+	{
+		double angle = getRawAngleDegrees(pTicks);
 		angle = this.getAdd180() ? angle + 180 : angle;
 		angle = ResourceFunctions.putAngleInRange(angle);
 
@@ -0,0 +1,119 @@
+package autonomous.paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import resource.Pose;
+import resource.ResourceFunctions;
+
+/**
+ * Checks that every sample of a generated trajectory stays within the speed,
+ * wheel speed, acceleration and centripetal limits, and that every sample is
+ * held back by one of them (nothing slower than it has to be)
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryGeneratorTest {
+
+	private static final double MAX_VELOCITY = 120;
+	private static final double MAX_ACCELERATION = 60;
+	private static final double MAX_CENTRIPETAL_ACCELERATION = 40;
+	private static final double MAX_WHEEL_VELOCITY = 150;
+	private static final double ROBOT_RADIUS = 15;
+
+	private static final double TOLERANCE = 1E-6;
+
+	private TrajectoryGenerator mGenerator = new TrajectoryGenerator(MAX_VELOCITY, MAX_ACCELERATION,
+			MAX_CENTRIPETAL_ACCELERATION, MAX_WHEEL_VELOCITY, ROBOT_RADIUS);
+
+	@Test
+	public void straightLine() {
+		check(0, 0, new Pose(0, 0, 0), new Pose(300, 0, 0));
+	}
+
+	@Test
+	public void sCurve() {
+		check(0, 0, new Pose(0, 0, 0), new Pose(48, 24, 45), new Pose(96, 48, 0));
+	}
+
+	@Test
+	public void tightTurnWhileRotating() {
+		// curvature and wheel speed limits both matter here
+		check(0, 180, new Pose(0, 0, 0), new Pose(60, 60, 90), new Pose(0, 120, 180));
+	}
+
+	@Test
+	public void longWindingPath() {
+		check(90, 270, new Pose(0, 0, 0), new Pose(100, 50, 60), new Pose(150, 200, 120), new Pose(50, 250, 200),
+				new Pose(-50, 150, 270));
+	}
+
+	/**
+	 * Generates a trajectory through the waypoints and checks every sample
+	 */
+	private void check(double pStartRobotHeading, double pEndRobotHeading, Pose... pWaypoints) {
+		Path path = new PathGenerator().generate(pWaypoints);
+		Trajectory trajectory = mGenerator.generate(path, pStartRobotHeading, pEndRobotHeading);
+		int size = trajectory.size();
+		assertEquals(path.size(), size);
+
+		double turn = Math.toRadians(ResourceFunctions.continuousAngleDif(pEndRobotHeading, pStartRobotHeading));
+		double turnPerInch = turn / path.getLength();
+		double wheelLimit = MAX_WHEEL_VELOCITY / (1 + ROBOT_RADIUS * Math.abs(turnPerInch));
+
+		assertEquals(0, trajectory.getVelocity(0), TOLERANCE);
+		assertEquals(0, trajectory.getVelocity(size - 1), TOLERANCE);
+		assertEquals(pEndRobotHeading, trajectory.getRobotHeading(size - 1), TOLERANCE);
+
+		for (int i = 0; i < size; i++) {
+			String at = "sample " + i + " of " + size;
+			double velocity = trajectory.getVelocity(i);
+			double curvature = Math.abs(trajectory.getCurvature(i));
+
+			assertTrue(at, velocity >= 0);
+			assertTrue(at + " robot speed", velocity <= MAX_VELOCITY + TOLERANCE);
+			// the outside wheel goes faster than the robot while it turns
+			assertTrue(at + " wheel speed", velocity * (1 + ROBOT_RADIUS * Math.abs(turnPerInch))
+					<= MAX_WHEEL_VELOCITY + TOLERANCE);
+			assertTrue(at + " centripetal", velocity * velocity * curvature <= MAX_CENTRIPETAL_ACCELERATION + TOLERANCE);
+			assertTrue(at + " acceleration", Math.abs(trajectory.getAcceleration(i)) <= MAX_ACCELERATION + TOLERANCE);
+
+			boolean limited = velocity >= Math.min(MAX_VELOCITY, wheelLimit) - TOLERANCE
+					|| (curvature > 1E-9 && velocity * velocity * curvature >= MAX_CENTRIPETAL_ACCELERATION - TOLERANCE);
+			if (i > 0) {
+				double ds = trajectory.getDistance(i) - trajectory.getDistance(i - 1);
+				assertTrue(at, ds >= 0);
+				assertTrue(at + " time", trajectory.getTime(i) >= trajectory.getTime(i - 1));
+				double speedSum = velocity + trajectory.getVelocity(i - 1);
+				if (ds > 0 && speedSum > 0) {
+					assertEquals(at + " time step", 2 * ds / speedSum,
+							trajectory.getTime(i) - trajectory.getTime(i - 1), TOLERANCE);
+				}
+				// speeding up from the last sample, at the limit
+				limited |= ds > 0 && acceleration(trajectory, i - 1, i) >= MAX_ACCELERATION - TOLERANCE;
+			}
+			if (i < size - 1) {
+				// slowing down for the next sample, at the limit
+				limited |= trajectory.getDistance(i + 1) > trajectory.getDistance(i)
+						&& acceleration(trajectory, i, i + 1) <= -MAX_ACCELERATION + TOLERANCE;
+			}
+			assertTrue(at + " slower than it has to be", limited || i == 0 || i == size - 1);
+		}
+	}
+
+	/**
+	 * @return constant acceleration between two samples, from their speeds and
+	 *         the distance between them
+	 */
+	private static double acceleration(Trajectory pTrajectory, int pFrom, int pTo) {
+		double from = pTrajectory.getVelocity(pFrom);
+		double to = pTrajectory.getVelocity(pTo);
+		double ds = pTrajectory.getDistance(pTo) - pTrajectory.getDistance(pFrom);
+		double acceleration = (to * to - from * from) / (2 * ds);
+		assertTrue(Math.abs(acceleration) <= MAX_ACCELERATION + TOLERANCE);
+		return acceleration;
+	}
+}
@@ -0,0 +1,187 @@
+package robotcode.driving;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import constants.DriveConstants;
+import constants.RunConstants;
+import resource.Vector;
+
+/**
+ * Checks the primitive SwerveDrive math against the Vector math it replaced,
+ * over a sweep of robot velocities and spin rates, and that discretizing puts
+ * the robot where it was told to go after a loop
+ *
+ * @author 3419
+ *
+ */
+public class SwerveDriveTest {
+
+	private static final double TOLERANCE = 1E-9;
+	private static final double[] LOOP_TIMES = { DriveConstants.NOMINAL_LOOP_TIME, 0.02, DriveConstants.MAX_LOOP_TIME };
+
+	private SwerveDrive mSwerveDrive;
+	private Vector[] mOffsets;
+
+	@Before
+	public void setUp() {
+		mSwerveDrive = new SwerveDrive();
+		mSwerveDrive.setDiscretize(false); // the Vector math didn't discretize
+
+		// wheel offsets, normalized so the average distance is 1, as the Vector version did
+		mOffsets = new Vector[4];
+		double sumDistFromCenter = 0;
+		for (int i = 0; i < 4; i++) {
+			if (RunConstants.IS_PROTOTYPE) {
+				mOffsets[i] = new Vector(DriveConstants.PrototypeRobot.X_OFF[i], DriveConstants.PrototypeRobot.Y_OFF[i]);
+			}
+			else {
+				mOffsets[i] = new Vector(DriveConstants.ActualRobot.X_OFF[i], DriveConstants.ActualRobot.Y_OFF[i]);
+			}
+			sumDistFromCenter += mOffsets[i].getMagnitude();
+		}
+		for (int i = 0; i < 4; i++) {
+			mOffsets[i].setTotal(4 * mOffsets[i].getMagnitude() / sumDistFromCenter);
+		}
+	}
+
+	@Test
+	public void calculateMatchesVectorMath() {
+		for (double angularVelocity = -1; angularVelocity <= 1; angularVelocity += 0.25) {
+			for (double angle = 0; angle < 360; angle += 15) {
+				for (double speed = 0; speed <= 1; speed += 0.25) {
+					Vector robotVelocity = Vector.createPolar(angle, speed);
+					mSwerveDrive.calculate(angularVelocity, robotVelocity.getX(), robotVelocity.getY());
+					assertOutputs(calculateWithVectors(angularVelocity, robotVelocity));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void calculateHoldDirectionMatchesVectorMath() {
+		for (double angularVelocity = -1; angularVelocity <= 1; angularVelocity += 0.25) {
+			for (double angle = 0; angle < 360; angle += 15) {
+				for (double speed = 0; speed <= 1; speed += 0.25) {
+					Vector robotVelocity = Vector.createPolar(angle, speed);
+					mSwerveDrive.calculateHoldDirection(angularVelocity, robotVelocity.getX(), robotVelocity.getY());
+					assertOutputs(calculateHoldDirectionWithVectors(angularVelocity, robotVelocity));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void discretizedEndsAtCommandedPose() {
+		mSwerveDrive.setDiscretize(true);
+		for (double dt : LOOP_TIMES) {
+			for (double angularVelocity = -0.4; angularVelocity <= 0.4; angularVelocity += 0.2) {
+				for (double angle = 0; angle < 360; angle += 30) {
+					double error = endPositionError(angularVelocity, angle, dt);
+					assertEquals("dt " + dt + ", spin " + angularVelocity + ", angle " + angle, 0, error, 1E-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void undiscretizedSkewsWhileSpinning() {
+		// what discretizing fixes: translating while spinning ends up off to the side
+		mSwerveDrive.setDiscretize(false);
+		double tau = DriveConstants.NOMINAL_LOOP_TIME * mSwerveDrive.getAngularVelocityScale();
+		double error = endPositionError(0.4, 0, DriveConstants.NOMINAL_LOOP_TIME);
+		assertTrue(error > 0);
+		// half the heading change times the distance, to first order
+		assertEquals(0.4 * tau * 0.4 * tau / 2, error, 1E-3 * error);
+
+		// and nothing to fix without spinning
+		assertEquals(0, endPositionError(0, 45, DriveConstants.NOMINAL_LOOP_TIME), 1E-12);
+	}
+
+	/**
+	 * Drives one loop of a command and measures how far from the commanded
+	 * position the robot ends up, driving with the twist the wheel outputs add up
+	 * to
+	 *
+	 * @return distance off, in average wheel radii
+	 */
+	private double endPositionError(double pAngularVelocity, double pAngle, double pDt) {
+		Vector robotVelocity = Vector.createPolar(pAngle, 0.4);
+		mSwerveDrive.calculate(pAngularVelocity, robotVelocity.getX(), robotVelocity.getY(), pDt);
+
+		// recover the twist from two wheels: output = velocity + perpendicular * spin
+		Vector spin0 = Vector.createPolar(mOffsets[0].getAngle() + 90, mOffsets[0].getMagnitude());
+		Vector spin2 = Vector.createPolar(mOffsets[2].getAngle() + 90, mOffsets[2].getMagnitude());
+		double spinDifX = spin0.getX() - spin2.getX();
+		double spinDifY = spin0.getY() - spin2.getY();
+		double outputDifX = mSwerveDrive.getOutputX(0) - mSwerveDrive.getOutputX(2);
+		double outputDifY = mSwerveDrive.getOutputY(0) - mSwerveDrive.getOutputY(2);
+		double omega = (outputDifX * spinDifX + outputDifY * spinDifY) / (spinDifX * spinDifX + spinDifY * spinDifY);
+		double u = mSwerveDrive.getOutputX(0) - spin0.getX() * omega;
+		double w = mSwerveDrive.getOutputY(0) - spin0.getY() * omega;
+
+		// drive it for a loop: velocity fixed to the robot while the robot turns
+		double tau = pDt * mSwerveDrive.getAngularVelocityScale();
+		double theta = omega * tau;
+		double x, y;
+		if (Math.abs(theta) < 1E-12) {
+			x = u * tau;
+			y = w * tau;
+		}
+		else {
+			x = (u * Math.sin(theta) - w * (1 - Math.cos(theta))) / omega;
+			y = (u * (1 - Math.cos(theta)) + w * Math.sin(theta)) / omega;
+		}
+		assertEquals(pAngularVelocity * tau, theta, 1E-12);
+		return Math.hypot(x - robotVelocity.getX() * tau, y - robotVelocity.getY() * tau);
+	}
+
+	private void assertOutputs(Vector[] pExpected) {
+		for (int i = 0; i < 4; i++) {
+			assertEquals(pExpected[i].getX(), mSwerveDrive.getOutputX(i), TOLERANCE);
+			assertEquals(pExpected[i].getY(), mSwerveDrive.getOutputY(i), TOLERANCE);
+		}
+	}
+
+	// the Vector versions, as they were before the primitive rewrite
+
+	private Vector[] calculateWithVectors(double pAngularVelocity, Vector pRobotVelocity) {
+		Vector[] velocities = new Vector[4];
+		double maximumLength = 0;
+		for (int i = 0; i < 4; i++) {
+			Vector angularComponent = Vector.createPolar(mOffsets[i].getAngle() + 90,
+					mOffsets[i].getMagnitude() * pAngularVelocity);
+			velocities[i] = Vector.add(angularComponent, new Vector(pRobotVelocity));
+			maximumLength = Math.max(maximumLength, velocities[i].getMagnitude());
+		}
+		return scaleDown(velocities, maximumLength);
+	}
+
+	private Vector[] calculateHoldDirectionWithVectors(double pAngularVelocity, Vector pRobotVelocity) {
+		Vector normalizedRobotVel = Vector.normalized(pRobotVelocity);
+		Vector[] velocities = new Vector[4];
+		double maximumLength = 0;
+		for (int i = 0; i < 4; i++) {
+			Vector angularComponent = Vector.createPolar(mOffsets[i].getAngle() + 90,
+					mOffsets[i].getMagnitude() * pAngularVelocity);
+			Vector fakeVelocity = Vector.add(angularComponent, pRobotVelocity);
+			double length = Vector.dot(fakeVelocity, normalizedRobotVel);
+			velocities[i] = Vector.createPolar(normalizedRobotVel.getAngle(), length);
+			maximumLength = Math.max(maximumLength, velocities[i].getMagnitude());
+		}
+		return scaleDown(velocities, maximumLength);
+	}
+
+	private static Vector[] scaleDown(Vector[] pVelocities, double pMaximumLength) {
+		if (pMaximumLength > DriveConstants.MAX_INDIVIDUAL_VELOCITY) {
+			double velScale = DriveConstants.MAX_INDIVIDUAL_VELOCITY / pMaximumLength;
+			for (Vector velocity : pVelocities) {
+				velocity.scaleTotal(velScale);
+			}
+		}
+		return pVelocities;
+	}
+}
@@ -0,0 +1,150 @@
+package sensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import constants.DriveConstants;
+import resource.ResourceFunctions;
+
+/**
+ * Feeds a simulated spinning robot through RobotAngle's history, the way the
+ * loop does: a NavX reading every 1 / UPDATE_RATE seconds that is LATENCY old
+ * when it arrives, and a loop every NOMINAL_LOOP_TIME that asks for the
+ * heading ACTUATION_DELAY ahead
+ *
+ * @author 3419
+ *
+ */
+public class RobotAngleTest {
+
+	private static final double NAVX_PERIOD = 1.0 / DriveConstants.NavX.UPDATE_RATE;
+	private static final double NAVX_PHASE = 0.0013; // so the readings don't line up with the loop
+	private static final double LOOP_TIME = DriveConstants.NOMINAL_LOOP_TIME;
+	private static final double SETTLE_TIME = 0.1; // before the history is full enough to judge
+	private static final double DURATION = 2;
+
+	/**
+	 * True heading over time
+	 */
+	private interface Heading {
+		double at(double pTime);
+	}
+
+	private SensorSnapshot mSensors;
+	private RobotAngle mRobotAngle;
+
+	// worst errors over a run, degrees
+	private double mPredictedError;
+	private double mUnpredictedError;
+	private double mDirectionError;
+	private double mNewestReadingTime; // when the newest reading was taken
+
+	@Before
+	public void setUp() {
+		mSensors = new SensorSnapshot();
+		mRobotAngle = new RobotAngle(null, mSensors, false, 0);
+	}
+
+	@Test
+	public void constantSpinIsPredictedExactly() {
+		double rate = 360; // degrees per second, wraps twice
+		run(t -> 10 + rate * t);
+
+		assertEquals(0, mPredictedError, 1E-6);
+		// without predicting, the heading is late by the reading's age plus the actuation delay
+		assertTrue(mUnpredictedError >= rate * (DriveConstants.GyroHistory.LATENCY
+				+ DriveConstants.GyroHistory.ACTUATION_DELAY) - 1E-6);
+		assertEquals(rate, mRobotAngle.getSampledAngularVelocity(), 1E-6);
+	}
+
+	@Test
+	public void spinUpErrorStaysSmall() {
+		// full stick spin-up: 720 degrees per second per second, the rate lags by half the window
+		double acceleration = 720;
+		run(t -> -acceleration * t * t / 2);
+
+		assertTrue("predicted error " + mPredictedError, mPredictedError < 1);
+		assertTrue(mPredictedError < mUnpredictedError / 10);
+	}
+
+	@Test
+	public void fieldRelativeDirectionHoldsWhileSpinningAndDriving() {
+		// spin back and forth, up to 360 degrees per second, while driving along the
+		// field x axis; the robot relative command is turned with the predicted
+		// heading, and the wheels act on it at the true heading ACTUATION_DELAY later
+		run(t -> 180 * Math.sin(2 * t));
+
+		assertTrue("direction error " + mDirectionError, mDirectionError < 1);
+		assertTrue(mDirectionError < mUnpredictedError / 10);
+	}
+
+	@Test
+	public void interpolatesInsideHistory() {
+		double rate = -200;
+		run(t -> rate * t);
+
+		double now = DURATION - DriveConstants.GyroHistory.LATENCY;
+		for (double back = 0.003; back < 0.1; back += 0.007) {
+			double expected = ResourceFunctions.putAngleInRange(rate * (now - back));
+			assertEquals(0, ResourceFunctions.continuousAngleDif(mRobotAngle.getAngleDegreesAt(now - back), expected),
+					1E-6);
+		}
+	}
+
+	@Test
+	public void stoppedGyroLimitsPrediction() {
+		double rate = 360;
+		run(t -> rate * t);
+
+		// no new readings: prediction stops at MAX_PREDICTION past the newest one
+		double far = mRobotAngle.getPredictedAngleDegrees(mNewestReadingTime + 10);
+		double expected = ResourceFunctions
+				.putAngleInRange(rate * (mNewestReadingTime + DriveConstants.GyroHistory.MAX_PREDICTION));
+		assertEquals(0, ResourceFunctions.continuousAngleDif(far, expected), 1E-6);
+	}
+
+	/**
+	 * Runs the loop for DURATION seconds, keeping the worst errors after
+	 * SETTLE_TIME
+	 */
+	private void run(Heading pHeading) {
+		int reading = -1;
+		for (int loop = 0; loop * LOOP_TIME <= DURATION; loop++) {
+			double now = loop * LOOP_TIME;
+
+			// newest NavX reading that's arrived
+			int newest = (int) Math.floor((now - NAVX_PHASE) / NAVX_PERIOD);
+			if (newest >= 0 && newest != reading) {
+				reading = newest;
+				double arrival = NAVX_PHASE + reading * NAVX_PERIOD;
+				mNewestReadingTime = arrival - DriveConstants.GyroHistory.LATENCY;
+				double yaw = pHeading.at(mNewestReadingTime);
+				mSensors.getGyroSample().set(arrival, yaw, 0, 0, 0, 0, 0, 0);
+			}
+			if (reading < 0) {
+				continue;
+			}
+			mRobotAngle.sample();
+
+			double actuation = now + DriveConstants.GyroHistory.ACTUATION_DELAY;
+			double predicted = mRobotAngle.getPredictedAngleDegrees(actuation);
+			double truth = pHeading.at(actuation);
+			if (now < SETTLE_TIME) {
+				continue;
+			}
+			mPredictedError = Math.max(mPredictedError,
+					Math.abs(ResourceFunctions.continuousAngleDif(predicted, truth)));
+			mUnpredictedError = Math.max(mUnpredictedError,
+					Math.abs(ResourceFunctions.continuousAngleDif(mRobotAngle.getAngleDegrees(), truth)));
+
+			// field direction 0, turned into the robot frame with the prediction, then
+			// back out with where the robot actually is
+			double robotDirection = -predicted;
+			double fieldDirection = robotDirection + truth;
+			mDirectionError = Math.max(mDirectionError, Math.abs(ResourceFunctions.continuousAngleDif(fieldDirection, 0)));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import autonomous.paths.Path;
+import autonomous.planning.FieldGrid;
+import autonomous.planning.ThetaStarPlanner;
+import constants.AutoConstants;
+import constants.FieldConstants;
+import resource.Pose;
+
+/**
+ * Times building the field grid and planning on it, on the real 2019
+ * obstacles. Plans from the start pose and both loading stations to in front
+ * of every vision target, and back. Run with gradle benchmarkPlanner
+ *
+ * @author 3419
+ *
+ */
+public class BenchmarkPlanner {
+
+	private static final int GRID_BUILDS = 20;
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int TIMED_ROUNDS = 50;
+
+	public static void main(String[] args) {
+		double[] gridMillis = new double[GRID_BUILDS];
+		FieldGrid grid = null;
+		for (int i = 0; i < GRID_BUILDS; i++) {
+			long start = System.nanoTime();
+			grid = new FieldGrid(AutoConstants.Planner.CELL_SIZE);
+			gridMillis[i] = (System.nanoTime() - start) / 1E6;
+		}
+		System.out.printf("grid %d x %d cells: first %.2f ms, median %.2f ms%n", grid.getColumns(), grid.getRows(),
+				gridMillis[0], median(gridMillis));
+
+		ThetaStarPlanner planner = new ThetaStarPlanner(grid, AutoConstants.Planner.CLEARANCE,
+				AutoConstants.Planner.ROBOT_RADIUS);
+		List<Pose[]> queries = getQueries();
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			for (Pose[] query : queries) {
+				planner.plan(query[0], query[1]);
+			}
+		}
+
+		double[] planMillis = new double[queries.size() * TIMED_ROUNDS];
+		int failures = 0;
+		for (int round = 0; round < TIMED_ROUNDS; round++) {
+			for (int i = 0; i < queries.size(); i++) {
+				Pose[] query = queries.get(i);
+				long start = System.nanoTime();
+				Path path = planner.plan(query[0], query[1]);
+				planMillis[round * queries.size() + i] = (System.nanoTime() - start) / 1E6;
+				if (path == null && round == 0) {
+					System.out.println("no path from " + query[0] + " to " + query[1]);
+					failures++;
+				}
+			}
+		}
+		Arrays.sort(planMillis);
+		System.out.printf("%d plans: median %.3f ms, 99th percentile %.3f ms, max %.3f ms, %d with no path%n",
+				queries.size(), median(planMillis), planMillis[(int) (planMillis.length * 0.99)],
+				planMillis[planMillis.length - 1], failures);
+	}
+
+	/**
+	 * @return { start, goal } pairs the robot plans in a match
+	 */
+	private static List<Pose[]> getQueries() {
+		List<Pose> starts = new ArrayList<>();
+		starts.add(new Pose(AutoConstants.StartPose.X, AutoConstants.StartPose.Y, AutoConstants.StartPose.HEADING));
+		starts.add(new Pose(AutoConstants.Assist.LOADING_STATION_DISTANCE, FieldConstants.LOADING_STATION_LEFT_Y, 180));
+		starts.add(new Pose(AutoConstants.Assist.LOADING_STATION_DISTANCE, FieldConstants.LOADING_STATION_RIGHT_Y, 180));
+
+		List<Pose[]> queries = new ArrayList<>();
+		for (double[] target : FieldConstants.VISION_TARGETS) {
+			// out in front of the target, facing it
+			double heading = Math.toRadians(target[2]);
+			double distance = AutoConstants.Planner.ROBOT_RADIUS;
+			Pose goal = new Pose(target[0] + distance * Math.cos(heading), target[1] + distance * Math.sin(heading),
+					target[2] + 180);
+			for (Pose start : starts) {
+				if (Math.hypot(goal.getX() - start.getX(), goal.getY() - start.getY()) > 1) {
+					queries.add(new Pose[] { start, goal });
+					queries.add(new Pose[] { goal, start });
+				}
+			}
+		}
+		return queries;
+	}
+
+	private static double median(double[] pValues) {
+		double[] sorted = pValues.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
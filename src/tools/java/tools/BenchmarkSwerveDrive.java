@@ -0,0 +1,58 @@
+package tools;
+
+import robotcode.driving.SwerveDrive;
+
+/**
+ * Times SwerveDrive.calculate with discretization off and on, to see what it
+ * costs per loop. Run with gradle benchmarkSwerveDrive
+ *
+ * @author 3419
+ *
+ */
+public class BenchmarkSwerveDrive {
+
+	private static final int WARMUP_CALLS = 200000;
+	private static final int TIMED_CALLS = 1000000;
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		SwerveDrive swerveDrive = new SwerveDrive();
+		for (int run = 0; run < RUNS; run++) {
+			swerveDrive.setDiscretize(false);
+			double off = time(swerveDrive);
+			swerveDrive.setDiscretize(true);
+			double on = time(swerveDrive);
+			System.out.printf("run %d: off %.1f ns/call, on %.1f ns/call, %.1f ns more%n", run, off, on, on - off);
+		}
+	}
+
+	/**
+	 * @return average time per calculate call, nanoseconds
+	 */
+	private static double time(SwerveDrive pSwerveDrive) {
+		sweep(pSwerveDrive, WARMUP_CALLS);
+		long start = System.nanoTime();
+		double sum = sweep(pSwerveDrive, TIMED_CALLS);
+		long elapsed = System.nanoTime() - start;
+		if (Double.isNaN(sum)) {
+			System.out.println("NaN output"); // also keeps the calls from being optimized away
+		}
+		return (double) elapsed / TIMED_CALLS;
+	}
+
+	/**
+	 * Calls calculate over a spread of driving and spinning commands
+	 *
+	 * @return sum of the outputs
+	 */
+	private static double sweep(SwerveDrive pSwerveDrive, int pCalls) {
+		double sum = 0;
+		for (int i = 0; i < pCalls; i++) {
+			double angle = (i % 360) * Math.PI / 180;
+			double angularVelocity = ((i % 21) - 10) / 10.0;
+			pSwerveDrive.calculate(angularVelocity, 0.5 * Math.cos(angle), 0.5 * Math.sin(angle));
+			sum += pSwerveDrive.getOutputX(i & 3);
+		}
+		return sum;
+	}
+}
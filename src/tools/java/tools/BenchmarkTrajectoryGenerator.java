@@ -0,0 +1,76 @@
+package tools;
+
+import java.util.Arrays;
+
+import autonomous.paths.Path;
+import autonomous.paths.PathGenerator;
+import autonomous.paths.Trajectory;
+import autonomous.paths.TrajectoryGenerator;
+import constants.AutoConstants;
+import resource.Pose;
+
+/**
+ * Times PathGenerator and TrajectoryGenerator on a long winding path with the
+ * robot limits, and checks the result stays inside them. Run with gradle
+ * benchmarkTrajectoryGenerator
+ *
+ * @author 3419
+ *
+ */
+public class BenchmarkTrajectoryGenerator {
+
+	private static final int WARMUP_CALLS = 2000;
+	private static final int TIMED_CALLS = 2000;
+
+	private static final Pose[] WAYPOINTS = { new Pose(0, 0, 0), new Pose(100, 50, 60), new Pose(150, 200, 120),
+			new Pose(50, 250, 200), new Pose(-50, 150, 270) };
+	private static final double START_ROBOT_HEADING = 90;
+	private static final double END_ROBOT_HEADING = 270;
+
+	public static void main(String[] args) {
+		PathGenerator pathGenerator = new PathGenerator();
+		TrajectoryGenerator trajectoryGenerator = new TrajectoryGenerator();
+
+		Path path = null;
+		Trajectory trajectory = null;
+		for (int i = 0; i < WARMUP_CALLS; i++) {
+			path = pathGenerator.generate(WAYPOINTS);
+			trajectory = trajectoryGenerator.generate(path, START_ROBOT_HEADING, END_ROBOT_HEADING);
+		}
+
+		double[] pathMillis = new double[TIMED_CALLS];
+		double[] trajectoryMillis = new double[TIMED_CALLS];
+		for (int i = 0; i < TIMED_CALLS; i++) {
+			long start = System.nanoTime();
+			path = pathGenerator.generate(WAYPOINTS);
+			long middle = System.nanoTime();
+			trajectory = trajectoryGenerator.generate(path, START_ROBOT_HEADING, END_ROBOT_HEADING);
+			long end = System.nanoTime();
+			pathMillis[i] = (middle - start) / 1E6;
+			trajectoryMillis[i] = (end - middle) / 1E6;
+		}
+
+		System.out.printf("path: %.0f inches, %d samples, %.2f s%n", path.getLength(), path.size(),
+				trajectory.getDuration());
+		print("path generation", pathMillis);
+		print("trajectory generation", trajectoryMillis);
+
+		double maxVelocity = 0, maxAcceleration = 0, maxCentripetal = 0;
+		for (int i = 0; i < trajectory.size(); i++) {
+			double velocity = trajectory.getVelocity(i);
+			maxVelocity = Math.max(maxVelocity, velocity);
+			maxAcceleration = Math.max(maxAcceleration, Math.abs(trajectory.getAcceleration(i)));
+			maxCentripetal = Math.max(maxCentripetal, velocity * velocity * Math.abs(trajectory.getCurvature(i)));
+		}
+		System.out.printf("max speed %.1f in/s, max acceleration %.1f (limit %.1f), max centripetal %.1f (limit %.1f)%n",
+				maxVelocity, maxAcceleration, AutoConstants.Trajectories.MAX_ACCELERATION, maxCentripetal,
+				AutoConstants.Trajectories.MAX_CENTRIPETAL_ACCELERATION);
+	}
+
+	private static void print(String pName, double[] pMillis) {
+		double[] sorted = pMillis.clone();
+		Arrays.sort(sorted);
+		System.out.printf("%s: median %.3f ms, 99th percentile %.3f ms, max %.3f ms%n", pName,
+				sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1]);
+	}
+}
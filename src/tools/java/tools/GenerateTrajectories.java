@@ -0,0 +1,40 @@
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import autonomous.paths.AutoPath;
+import autonomous.paths.Trajectory;
+import autonomous.paths.TrajectoryFile;
+
+/**
+ * Writes every AutoPath trajectory to the deploy directory so the robot doesn't
+ * have to generate them. Run with gradle generateTrajectories
+ *
+ * @author 3419
+ *
+ */
+public class GenerateTrajectories {
+
+	/**
+	 * @param args
+	 *            output directory
+	 * @throws IOException
+	 *             if a file can't be written
+	 */
+	public static void main(String[] args) throws IOException {
+		File directory = new File(args.length > 0 ? args[0] : "src/main/deploy/trajectories");
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Couldn't create " + directory);
+		}
+
+		for (AutoPath path : AutoPath.values()) {
+			long start = System.nanoTime();
+			Trajectory trajectory = path.generate();
+			File file = new File(directory, path.getFileName());
+			TrajectoryFile.write(trajectory, path.getDefinitionHash(), file);
+			System.out.println(String.format("%s: %d samples, %.2f s, generated in %.1f ms", file,
+					trajectory.size(), trajectory.getDuration(), (System.nanoTime() - start) / 1E6));
+		}
+	}
+}
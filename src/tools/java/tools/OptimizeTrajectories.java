@@ -0,0 +1,85 @@
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import autonomous.paths.OptimizedPath;
+import autonomous.paths.Trajectory;
+import autonomous.paths.TrajectoryFile;
+import constants.AutoConstants;
+
+/**
+ * Optimizes every OptimizedPath into the deploy directory. Each path is solved
+ * from several starting guesses at once, one per core, and the fastest one that
+ * meets every limit is kept. Run with gradle optimizeTrajectories; it's slower
+ * than generateTrajectories, so deploy doesn't run it
+ *
+ * @author 3419
+ *
+ */
+public class OptimizeTrajectories {
+
+	/**
+	 * @param args
+	 *            output directory
+	 * @throws IOException
+	 *             if a file can't be written
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		File directory = new File(args.length > 0 ? args[0] : "src/main/deploy/trajectories");
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Couldn't create " + directory);
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (OptimizedPath path : OptimizedPath.values()) {
+				long start = System.nanoTime();
+				List<Future<TrajectoryOptimizer>> starts = new ArrayList<>();
+				for (int i = 0; i < AutoConstants.Optimizer.STARTS; i++) {
+					long seed = i;
+					starts.add(executor.submit(() -> {
+						TrajectoryOptimizer optimizer = new TrajectoryOptimizer();
+						return optimizer.solve(path, seed) && optimizer.getMinimumClearance() > 0 ? optimizer : null;
+					}));
+				}
+
+				TrajectoryOptimizer best = null;
+				int numFeasible = 0;
+				for (Future<TrajectoryOptimizer> result : starts) {
+					TrajectoryOptimizer optimizer = result.get();
+					if (optimizer != null) {
+						numFeasible++;
+						if (best == null || optimizer.getDuration() < best.getDuration()) {
+							best = optimizer;
+						}
+					}
+				}
+
+				File file = new File(directory, path.getFileName());
+				double elapsed = (System.nanoTime() - start) / 1E9;
+				if (best == null) {
+					System.out.println(String.format("%s: no start met the limits in %.1f s, the robot will spline it",
+							path.name(), elapsed));
+					continue;
+				}
+				Trajectory trajectory = best.toTrajectory(AutoConstants.Optimizer.OUTPUT_TIME_STEP);
+				TrajectoryFile.write(trajectory, path.getDefinitionHash(), file);
+				System.out.println(String.format(
+						"%s: %.2f s (spline %.2f s), %d of %d starts feasible, %.1f in clear, optimized in %.1f s on %d threads",
+						file, trajectory.getDuration(), path.generate().getDuration(), numFeasible,
+						AutoConstants.Optimizer.STARTS, best.getMinimumClearance(), elapsed, threads));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
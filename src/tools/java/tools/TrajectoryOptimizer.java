@@ -0,0 +1,750 @@
+package tools;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import autonomous.paths.OptimizedPath;
+import autonomous.paths.Trajectory;
+import constants.AutoConstants;
+import constants.DriveConstants;
+import constants.FieldConstants;
+import constants.RunConstants;
+import resource.Pose;
+import resource.ResourceFunctions;
+
+/**
+ * Finds a minimum time trajectory through an OptimizedPath's waypoints by
+ * direct collocation. One instance solves from one starting guess; it isn't
+ * thread safe, so give every thread its own
+ *
+ * Every knot has the robot's field pose, velocity and acceleration (x, y,
+ * heading, their rates and accelerations). Acceleration is linear between
+ * knots, so velocity is quadratic and position cubic, and the collocation
+ * constraints tie each knot to the next exactly. Each segment between
+ * waypoints has its own duration, which is what gets minimized. At the knots
+ * (and between them, for obstacles) the robot has to keep:
+ * - robot speed, and every wheel's speed, under the limits
+ * - acceleration and angular acceleration under the limits
+ * - a robot radius away from the field walls and obstacles
+ *
+ * Solved with an augmented Lagrangian, minimizing each subproblem with L-BFGS.
+ * Everything is scaled so the speed and acceleration limits are 1, which keeps
+ * the problem well conditioned
+ *
+ * @author 3419
+ *
+ */
+public class TrajectoryOptimizer {
+
+	// values per knot
+	private static final int
+		X = 0,
+		Y = 1,
+		THETA = 2,
+		VX = 3,
+		VY = 4,
+		OMEGA = 5,
+		AX = 6,
+		AY = 7,
+		ALPHA = 8,
+		KNOT_SIZE = 9;
+
+	private static final int
+		LBFGS_MEMORY = 8,
+		MAX_LINE_SEARCH_STEPS = 30;
+
+	private static final double
+		MIN_DURATION = 0.01, // scaled
+		PENALTY_START = 1000,
+		PENALTY_GROWTH = 10,
+		MAX_PENALTY = 1E7,
+		GRADIENT_TOLERANCE = 1E-6;
+
+	// scales: speeds / mVelocityScale, accelerations / mAccelerationScale, and
+	// lengths and times so that the dynamics don't change
+	private double mVelocityScale;
+	private double mAccelerationScale;
+	private double mLengthScale;
+	private double mTimeScale;
+
+	// limits, scaled
+	private double mMaxWheelVelocitySq;
+	private double mMaxAngularAcceleration;
+	private double mClearance;
+	private double mFieldLength;
+	private double mFieldWidth;
+	private double[][] mObstacles;
+	private double[] mModuleX;
+	private double[] mModuleY;
+
+	// problem
+	private OptimizedPath mPath;
+	private int mNumSegments;
+	private int mKnotsPerSegment;
+	private int mNumKnots;
+	private int mNumVariables;
+	private double[] mVariables;
+	private boolean[] mFixed;
+	private double mStartTheta;
+
+	// augmented Lagrangian state
+	private double[] mMultipliers; // null while counting constraints
+	private int mNumConstraints;
+	private int mConstraint; // running index while evaluating
+	private double mPenalty;
+	private boolean mUpdating;
+	private double mValue;
+	private double mViolation;
+
+	// L-BFGS scratch
+	private double[][] mS;
+	private double[][] mY;
+	private double[] mRho;
+	private double[] mAlpha;
+	private double[] mGradient;
+	private double[] mNextGradient;
+	private double[] mDirection;
+	private double[] mNext;
+
+	public TrajectoryOptimizer() {
+		mVelocityScale = DriveConstants.MAX_LINEAR_VELOCITY * DriveConstants.DRIVE_FREE_SPEED;
+		mAccelerationScale = AutoConstants.Trajectories.MAX_ACCELERATION;
+		mLengthScale = mVelocityScale * mVelocityScale / mAccelerationScale;
+		mTimeScale = mVelocityScale / mAccelerationScale;
+
+		double maxWheelVelocity = DriveConstants.MAX_INDIVIDUAL_VELOCITY * DriveConstants.DRIVE_FREE_SPEED
+				/ mVelocityScale;
+		mMaxWheelVelocitySq = maxWheelVelocity * maxWheelVelocity;
+		mMaxAngularAcceleration = Math.toRadians(AutoConstants.Optimizer.MAX_ANGULAR_ACCELERATION) * mTimeScale
+				* mTimeScale;
+		mClearance = (AutoConstants.Planner.ROBOT_RADIUS + AutoConstants.Optimizer.OBSTACLE_MARGIN) / mLengthScale;
+		mFieldLength = FieldConstants.LENGTH / mLengthScale;
+		mFieldWidth = FieldConstants.WIDTH / mLengthScale;
+		mObstacles = new double[FieldConstants.OBSTACLES.length][4];
+		for (int i = 0; i < mObstacles.length; i++) {
+			for (int j = 0; j < 4; j++) {
+				mObstacles[i][j] = FieldConstants.OBSTACLES[i][j] / mLengthScale;
+			}
+		}
+
+		double[] xOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.X_OFF : DriveConstants.ActualRobot.X_OFF;
+		double[] yOff = RunConstants.IS_PROTOTYPE ? DriveConstants.PrototypeRobot.Y_OFF : DriveConstants.ActualRobot.Y_OFF;
+		mModuleX = new double[xOff.length];
+		mModuleY = new double[yOff.length];
+		for (int i = 0; i < xOff.length; i++) {
+			mModuleX[i] = xOff[i] / mLengthScale;
+			mModuleY[i] = yOff[i] / mLengthScale;
+		}
+	}
+
+	/**
+	 * Optimizes from one starting guess
+	 *
+	 * @param pPath
+	 *            path to optimize
+	 * @param pSeed
+	 *            seed for the starting guess; 0 is straight lines between the
+	 *            waypoints
+	 * @return whether the result meets every constraint
+	 */
+	public boolean solve(OptimizedPath pPath, long pSeed) {
+		setUp(pPath, pSeed);
+
+		mPenalty = PENALTY_START;
+		double lastViolation = Double.POSITIVE_INFINITY;
+		for (int outer = 0; outer < AutoConstants.Optimizer.MAX_OUTER_ITERATIONS; outer++) {
+			minimize(AutoConstants.Optimizer.MAX_INNER_ITERATIONS);
+
+			// multipliers step and measure how far off we are
+			mUpdating = true;
+			evaluate(mVariables, mGradient);
+			mUpdating = false;
+			if (mViolation < AutoConstants.Optimizer.TOLERANCE) {
+				return true;
+			}
+			if (mViolation > lastViolation / 4) {
+				mPenalty = Math.min(MAX_PENALTY, mPenalty * PENALTY_GROWTH);
+			}
+			lastViolation = mViolation;
+		}
+		return false;
+	}
+
+	/**
+	 * @return total time of the last solution, seconds
+	 */
+	public double getDuration() {
+		double duration = 0;
+		for (int segment = 0; segment < mNumSegments; segment++) {
+			duration += mVariables[mNumKnots * KNOT_SIZE + segment];
+		}
+		return duration * mTimeScale;
+	}
+
+	/**
+	 * @return worst constraint violation of the last solution, scaled
+	 */
+	public double getViolation() {
+		return mViolation;
+	}
+
+	/**
+	 * Samples the last solution evenly in time, relative to the start like every
+	 * other trajectory
+	 *
+	 * @param pTimeStep
+	 *            seconds between samples
+	 * @return trajectory
+	 */
+	public Trajectory toTrajectory(double pTimeStep) {
+		double duration = getDuration();
+		int size = (int) Math.ceil(duration / pTimeStep) + 1;
+		Trajectory trajectory = new Trajectory(size);
+
+		Pose start = mPath.getWaypoints()[0];
+		double startHeading = Math.toRadians(mPath.getStartRobotHeading());
+		double cos = Math.cos(startHeading);
+		double sin = Math.sin(startHeading);
+		double[] state = new double[KNOT_SIZE];
+
+		// direction of travel when stopped: wherever it's about to go
+		double heading = 0;
+		for (int i = 0; i < size; i++) {
+			sample(Math.min(duration, i * pTimeStep) / mTimeScale, state);
+			if (Math.hypot(state[VX], state[VY]) > 1E-6 || Math.hypot(state[AX], state[AY]) > 1E-6) {
+				double vx = state[VX] * mVelocityScale;
+				double vy = state[VY] * mVelocityScale;
+				heading = Math.hypot(vx, vy) > 1E-6 ? Math.atan2(vy, vx) : Math.atan2(state[AY], state[AX]);
+				break;
+			}
+		}
+
+		double distance = 0;
+		double lastX = 0;
+		double lastY = 0;
+		for (int i = 0; i < size; i++) {
+			double time = Math.min(duration, i * pTimeStep);
+			sample(time / mTimeScale, state);
+
+			double fieldDX = state[X] * mLengthScale - start.getX();
+			double fieldDY = state[Y] * mLengthScale - start.getY();
+			double x = fieldDX * cos + fieldDY * sin;
+			double y = -fieldDX * sin + fieldDY * cos;
+			double vx = state[VX] * mVelocityScale;
+			double vy = state[VY] * mVelocityScale;
+			double ax = state[AX] * mAccelerationScale;
+			double ay = state[AY] * mAccelerationScale;
+
+			double velocity = Math.hypot(vx, vy);
+			double acceleration;
+			double curvature = 0;
+			if (velocity > 1E-3) {
+				heading = Math.atan2(vy, vx);
+				acceleration = (vx * ax + vy * ay) / velocity;
+				curvature = (vx * ay - vy * ax) / (velocity * velocity * velocity);
+			}
+			else {
+				acceleration = Math.hypot(ax, ay);
+			}
+			if (i > 0) {
+				distance += Math.hypot(x - lastX, y - lastY);
+			}
+			lastX = x;
+			lastY = y;
+
+			trajectory.set(i, time, x, y, ResourceFunctions.putAngleInRange(Math.toDegrees(heading - startHeading)),
+					curvature, distance, velocity, acceleration,
+					ResourceFunctions.putAngleInRange(Math.toDegrees(state[THETA] - startHeading)));
+		}
+		return trajectory;
+	}
+
+	/**
+	 * @return how close the last solution gets to anything, sampled densely,
+	 *         minus the robot radius; negative if it hits something
+	 */
+	public double getMinimumClearance() {
+		double duration = getDuration();
+		double[] state = new double[KNOT_SIZE];
+		double clearance = Double.POSITIVE_INFINITY;
+		int numSamples = (int) Math.ceil(duration / AutoConstants.Optimizer.OUTPUT_TIME_STEP) + 1;
+		for (int i = 0; i < numSamples; i++) {
+			sample(Math.min(duration, i * AutoConstants.Optimizer.OUTPUT_TIME_STEP) / mTimeScale, state);
+			for (double[] obstacle : mObstacles) {
+				clearance = Math.min(clearance, signedDistance(obstacle, state[X], state[Y], null));
+			}
+		}
+		return clearance * mLengthScale - AutoConstants.Planner.ROBOT_RADIUS;
+	}
+
+	// ***************//
+	// PROBLEM SET UP //
+	// ***************//
+
+	private void setUp(OptimizedPath pPath, long pSeed) {
+		mPath = pPath;
+		Pose[] waypoints = pPath.getWaypoints();
+		mNumSegments = waypoints.length - 1;
+		mKnotsPerSegment = AutoConstants.Optimizer.KNOTS_PER_SEGMENT;
+		mNumKnots = mNumSegments * (mKnotsPerSegment - 1) + 1;
+		mNumVariables = mNumKnots * KNOT_SIZE + mNumSegments;
+		mVariables = new double[mNumVariables];
+		mFixed = new boolean[mNumVariables];
+
+		mGradient = new double[mNumVariables];
+		mNextGradient = new double[mNumVariables];
+		mDirection = new double[mNumVariables];
+		mNext = new double[mNumVariables];
+		mS = new double[LBFGS_MEMORY][mNumVariables];
+		mY = new double[LBFGS_MEMORY][mNumVariables];
+		mRho = new double[LBFGS_MEMORY];
+		mAlpha = new double[LBFGS_MEMORY];
+
+		// starting guess: straight between waypoints, or bowed out sideways by a
+		// random amount, at a bit over half speed
+		Random random = new Random(pSeed);
+		mStartTheta = Math.toRadians(pPath.getStartRobotHeading());
+		double endTheta = mStartTheta
+				+ Math.toRadians(ResourceFunctions.continuousAngleDif(pPath.getEndRobotHeading(), pPath.getStartRobotHeading()));
+		double spread = AutoConstants.Optimizer.START_SPREAD / mLengthScale;
+		double totalDuration = 0;
+		for (int segment = 0; segment < mNumSegments; segment++) {
+			double startX = waypoints[segment].getX() / mLengthScale;
+			double startY = waypoints[segment].getY() / mLengthScale;
+			double endX = waypoints[segment + 1].getX() / mLengthScale;
+			double endY = waypoints[segment + 1].getY() / mLengthScale;
+			double length = Math.hypot(endX - startX, endY - startY);
+			double bow = pSeed == 0 ? 0 : (2 * random.nextDouble() - 1) * spread;
+			double duration = length / 0.6 + 0.5;
+			mVariables[mNumKnots * KNOT_SIZE + segment] = duration;
+			totalDuration += duration;
+
+			for (int i = 0; i < mKnotsPerSegment; i++) {
+				double fraction = (double) i / (mKnotsPerSegment - 1);
+				double offset = bow * Math.sin(Math.PI * fraction);
+				int knot = segment * (mKnotsPerSegment - 1) + i;
+				mVariables[knot * KNOT_SIZE + X] = startX + (endX - startX) * fraction
+						- offset * (endY - startY) / Math.max(length, 1E-9);
+				mVariables[knot * KNOT_SIZE + Y] = startY + (endY - startY) * fraction
+						+ offset * (endX - startX) / Math.max(length, 1E-9);
+			}
+		}
+
+		// rates by differences, then heading evenly over the whole time
+		double time = 0;
+		for (int knot = 0; knot < mNumKnots; knot++) {
+			int segment = Math.min(knot / (mKnotsPerSegment - 1), mNumSegments - 1);
+			double step = getStep(segment);
+			int previous = Math.max(0, knot - 1);
+			int next = Math.min(mNumKnots - 1, knot + 1);
+			double span = (next - previous) * step;
+			for (int axis = 0; axis < 2; axis++) {
+				mVariables[knot * KNOT_SIZE + VX + axis] = (mVariables[next * KNOT_SIZE + X + axis]
+						- mVariables[previous * KNOT_SIZE + X + axis]) / span;
+			}
+			mVariables[knot * KNOT_SIZE + THETA] = mStartTheta + (endTheta - mStartTheta) * time / totalDuration;
+			mVariables[knot * KNOT_SIZE + OMEGA] = (endTheta - mStartTheta) / totalDuration;
+			time += step;
+		}
+
+		// fixed: waypoint positions, start and end at rest facing the given ways
+		for (int segment = 0; segment <= mNumSegments; segment++) {
+			int knot = segment * (mKnotsPerSegment - 1);
+			mFixed[knot * KNOT_SIZE + X] = true;
+			mFixed[knot * KNOT_SIZE + Y] = true;
+		}
+		for (int knot : new int[] { 0, mNumKnots - 1 }) {
+			mVariables[knot * KNOT_SIZE + THETA] = knot == 0 ? mStartTheta : endTheta;
+			mFixed[knot * KNOT_SIZE + THETA] = true;
+			for (int rate : new int[] { VX, VY, OMEGA }) {
+				mVariables[knot * KNOT_SIZE + rate] = 0;
+				mFixed[knot * KNOT_SIZE + rate] = true;
+			}
+		}
+
+		// count constraints
+		mMultipliers = null;
+		mConstraint = 0;
+		evaluate(mVariables, mGradient);
+		mNumConstraints = mConstraint;
+		mMultipliers = new double[mNumConstraints];
+		mViolation = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return time between knots in a segment, scaled
+	 */
+	private double getStep(int pSegment) {
+		return mVariables[mNumKnots * KNOT_SIZE + pSegment] / (mKnotsPerSegment - 1);
+	}
+
+	// ************//
+	// EVALUATION //
+	// ************//
+
+	/**
+	 * Augmented Lagrangian and its gradient. While mUpdating, steps the
+	 * multipliers and measures the violation instead
+	 *
+	 * @return value
+	 */
+	private double evaluate(double[] pVariables, double[] pGradient) {
+		Arrays.fill(pGradient, 0);
+		mValue = 0;
+		mViolation = 0;
+		mConstraint = 0;
+		int timeOffset = mNumKnots * KNOT_SIZE;
+		double smoothing = AutoConstants.Optimizer.SMOOTHING / (mNumKnots - 1);
+
+		// objective: total time, and a little smoothness
+		for (int segment = 0; segment < mNumSegments; segment++) {
+			mValue += pVariables[timeOffset + segment];
+			pGradient[timeOffset + segment] += 1;
+			double w = inequality(MIN_DURATION - pVariables[timeOffset + segment]);
+			pGradient[timeOffset + segment] -= w;
+		}
+		for (int knot = 0; knot + 1 < mNumKnots; knot++) {
+			for (int control : new int[] { AX, AY, ALPHA }) {
+				int i = knot * KNOT_SIZE + control;
+				double change = pVariables[i + KNOT_SIZE] - pVariables[i];
+				mValue += smoothing * change * change;
+				pGradient[i + KNOT_SIZE] += 2 * smoothing * change;
+				pGradient[i] -= 2 * smoothing * change;
+			}
+		}
+
+		// collocation: each knot to the next, exactly for linear acceleration
+		for (int knot = 0; knot + 1 < mNumKnots; knot++) {
+			int segment = knot / (mKnotsPerSegment - 1);
+			int t = timeOffset + segment;
+			double h = pVariables[t] / (mKnotsPerSegment - 1);
+			double dhdt = 1.0 / (mKnotsPerSegment - 1);
+			int a = knot * KNOT_SIZE;
+			int b = a + KNOT_SIZE;
+			for (int axis = 0; axis < 3; axis++) {
+				int p = X + axis; // X, Y, THETA
+				int v = VX + axis;
+				int acc = AX + axis;
+				double p0 = pVariables[a + p], p1 = pVariables[b + p];
+				double v0 = pVariables[a + v], v1 = pVariables[b + v];
+				double a0 = pVariables[a + acc], a1 = pVariables[b + acc];
+
+				double c = p1 - p0 - h * v0 - h * h * (2 * a0 + a1) / 6;
+				double w = equality(c);
+				pGradient[b + p] += w;
+				pGradient[a + p] -= w;
+				pGradient[a + v] -= w * h;
+				pGradient[a + acc] -= w * h * h / 3;
+				pGradient[b + acc] -= w * h * h / 6;
+				pGradient[t] -= w * dhdt * (v0 + h * (2 * a0 + a1) / 3);
+
+				c = v1 - v0 - h * (a0 + a1) / 2;
+				w = equality(c);
+				pGradient[b + v] += w;
+				pGradient[a + v] -= w;
+				pGradient[a + acc] -= w * h / 2;
+				pGradient[b + acc] -= w * h / 2;
+				pGradient[t] -= w * dhdt * (a0 + a1) / 2;
+			}
+		}
+
+		// limits at every knot; the waypoints themselves are taken as given
+		double[] distanceGradient = new double[2];
+		for (int knot = 0; knot < mNumKnots; knot++) {
+			int k = knot * KNOT_SIZE;
+			double x = pVariables[k + X], y = pVariables[k + Y], theta = pVariables[k + THETA];
+			double vx = pVariables[k + VX], vy = pVariables[k + VY], omega = pVariables[k + OMEGA];
+			double ax = pVariables[k + AX], ay = pVariables[k + AY], alpha = pVariables[k + ALPHA];
+
+			double w = inequality(vx * vx + vy * vy - 1);
+			pGradient[k + VX] += w * 2 * vx;
+			pGradient[k + VY] += w * 2 * vy;
+
+			w = inequality(ax * ax + ay * ay - 1);
+			pGradient[k + AX] += w * 2 * ax;
+			pGradient[k + AY] += w * 2 * ay;
+
+			w = inequality((alpha * alpha - mMaxAngularAcceleration * mMaxAngularAcceleration)
+					/ (mMaxAngularAcceleration * mMaxAngularAcceleration));
+			pGradient[k + ALPHA] += w * 2 * alpha / (mMaxAngularAcceleration * mMaxAngularAcceleration);
+
+			// wheels: robot velocity plus turning, with the module offsets turned to the field
+			double cos = Math.cos(theta), sin = Math.sin(theta);
+			for (int module = 0; module < mModuleX.length; module++) {
+				double rx = mModuleX[module] * cos - mModuleY[module] * sin;
+				double ry = mModuleX[module] * sin + mModuleY[module] * cos;
+				double wx = vx - omega * ry;
+				double wy = vy + omega * rx;
+				w = inequality((wx * wx + wy * wy) / mMaxWheelVelocitySq - 1) / mMaxWheelVelocitySq;
+				pGradient[k + VX] += w * 2 * wx;
+				pGradient[k + VY] += w * 2 * wy;
+				pGradient[k + OMEGA] += w * 2 * (-wx * ry + wy * rx);
+				pGradient[k + THETA] += w * 2 * (-wx * omega * rx - wy * omega * ry);
+			}
+
+			if (isWaypoint(knot)) {
+				continue;
+			}
+			w = inequality((mClearance - x) / mClearance);
+			pGradient[k + X] -= w / mClearance;
+			w = inequality((x - mFieldLength + mClearance) / mClearance);
+			pGradient[k + X] += w / mClearance;
+			w = inequality((mClearance - y) / mClearance);
+			pGradient[k + Y] -= w / mClearance;
+			w = inequality((y - mFieldWidth + mClearance) / mClearance);
+			pGradient[k + Y] += w / mClearance;
+
+			for (double[] obstacle : mObstacles) {
+				double distance = signedDistance(obstacle, x, y, distanceGradient);
+				w = inequality((mClearance - distance) / mClearance);
+				pGradient[k + X] -= w * distanceGradient[0] / mClearance;
+				pGradient[k + Y] -= w * distanceGradient[1] / mClearance;
+			}
+		}
+
+		// obstacles halfway between knots too, on the cubic
+		for (int knot = 0; knot + 1 < mNumKnots; knot++) {
+			int segment = knot / (mKnotsPerSegment - 1);
+			int t = timeOffset + segment;
+			double h = pVariables[t] / (mKnotsPerSegment - 1);
+			double dhdt = 1.0 / (mKnotsPerSegment - 1);
+			int a = knot * KNOT_SIZE;
+			int b = a + KNOT_SIZE;
+			double x = (pVariables[a + X] + pVariables[b + X]) / 2 + h * (pVariables[a + VX] - pVariables[b + VX]) / 8;
+			double y = (pVariables[a + Y] + pVariables[b + Y]) / 2 + h * (pVariables[a + VY] - pVariables[b + VY]) / 8;
+			for (double[] obstacle : mObstacles) {
+				double distance = signedDistance(obstacle, x, y, distanceGradient);
+				double w = inequality((mClearance - distance) / mClearance) / mClearance;
+				double gx = -w * distanceGradient[0];
+				double gy = -w * distanceGradient[1];
+				pGradient[a + X] += gx / 2;
+				pGradient[b + X] += gx / 2;
+				pGradient[a + VX] += gx * h / 8;
+				pGradient[b + VX] -= gx * h / 8;
+				pGradient[a + Y] += gy / 2;
+				pGradient[b + Y] += gy / 2;
+				pGradient[a + VY] += gy * h / 8;
+				pGradient[b + VY] -= gy * h / 8;
+				pGradient[t] += dhdt * (gx * (pVariables[a + VX] - pVariables[b + VX])
+						+ gy * (pVariables[a + VY] - pVariables[b + VY])) / 8;
+			}
+		}
+
+		for (int i = 0; i < mNumVariables; i++) {
+			if (mFixed[i]) {
+				pGradient[i] = 0;
+			}
+		}
+		return mValue;
+	}
+
+	private boolean isWaypoint(int pKnot) {
+		return pKnot % (mKnotsPerSegment - 1) == 0;
+	}
+
+	/**
+	 * Adds an equality constraint, c = 0
+	 *
+	 * @return what to multiply the constraint's gradient by
+	 */
+	private double equality(double pValue) {
+		int i = mConstraint++;
+		if (mMultipliers == null) {
+			return 0;
+		}
+		if (mUpdating) {
+			mMultipliers[i] += mPenalty * pValue;
+			mViolation = Math.max(mViolation, Math.abs(pValue));
+			return 0;
+		}
+		mValue += mMultipliers[i] * pValue + mPenalty / 2 * pValue * pValue;
+		return mMultipliers[i] + mPenalty * pValue;
+	}
+
+	/**
+	 * Adds an inequality constraint, g <= 0
+	 *
+	 * @return what to multiply the constraint's gradient by
+	 */
+	private double inequality(double pValue) {
+		int i = mConstraint++;
+		if (mMultipliers == null) {
+			return 0;
+		}
+		double multiplier = mMultipliers[i];
+		if (mUpdating) {
+			mMultipliers[i] = Math.max(0, multiplier + mPenalty * pValue);
+			mViolation = Math.max(mViolation, pValue);
+			return 0;
+		}
+		double shifted = multiplier + mPenalty * pValue;
+		if (shifted <= 0) {
+			mValue -= multiplier * multiplier / (2 * mPenalty);
+			return 0;
+		}
+		mValue += (shifted * shifted - multiplier * multiplier) / (2 * mPenalty);
+		return shifted;
+	}
+
+	/**
+	 * Distance from a point to a rectangle, negative inside
+	 *
+	 * @param pGradient
+	 *            set to the gradient by x and y, if not null
+	 */
+	private static double signedDistance(double[] pRectangle, double pX, double pY, double[] pGradient) {
+		double left = pRectangle[0] - pX, right = pX - pRectangle[2];
+		double below = pRectangle[1] - pY, above = pY - pRectangle[3];
+		double dx = Math.max(left, right);
+		double dy = Math.max(below, above);
+		double signX = left > right ? -1 : 1;
+		double signY = below > above ? -1 : 1;
+
+		if (dx > 0 || dy > 0) {
+			double outX = Math.max(dx, 0);
+			double outY = Math.max(dy, 0);
+			double distance = Math.hypot(outX, outY);
+			if (pGradient != null) {
+				pGradient[0] = signX * outX / distance;
+				pGradient[1] = signY * outY / distance;
+			}
+			return distance;
+		}
+		if (pGradient != null) {
+			pGradient[0] = dx > dy ? signX : 0;
+			pGradient[1] = dx > dy ? 0 : signY;
+		}
+		return Math.max(dx, dy);
+	}
+
+	/**
+	 * The solution at some time, from the knots
+	 *
+	 * @param pTime
+	 *            scaled time
+	 * @param pOut
+	 *            filled with one knot's worth of values
+	 */
+	private void sample(double pTime, double[] pOut) {
+		int knot = 0;
+		double h = getStep(0);
+		while (knot + 1 < mNumKnots - 1 && pTime > h) {
+			pTime -= h;
+			knot++;
+			h = getStep(Math.min(knot / (mKnotsPerSegment - 1), mNumSegments - 1));
+		}
+		double tau = Math.max(0, Math.min(h, pTime));
+		int a = knot * KNOT_SIZE;
+		int b = a + KNOT_SIZE;
+		for (int axis = 0; axis < 3; axis++) {
+			double p0 = mVariables[a + X + axis];
+			double v0 = mVariables[a + VX + axis];
+			double a0 = mVariables[a + AX + axis];
+			double jerk = h > 0 ? (mVariables[b + AX + axis] - a0) / h : 0;
+			pOut[X + axis] = p0 + v0 * tau + a0 * tau * tau / 2 + jerk * tau * tau * tau / 6;
+			pOut[VX + axis] = v0 + a0 * tau + jerk * tau * tau / 2;
+			pOut[AX + axis] = a0 + jerk * tau;
+		}
+	}
+
+	// *********//
+	// L-BFGS //
+	// *********//
+
+	/**
+	 * Minimizes the augmented Lagrangian for the current multipliers and penalty
+	 */
+	private void minimize(int pMaxIterations) {
+		int stored = 0;
+		int newest = -1;
+		double value = evaluate(mVariables, mGradient);
+
+		for (int iteration = 0; iteration < pMaxIterations; iteration++) {
+			// two loop recursion for the search direction
+			System.arraycopy(mGradient, 0, mDirection, 0, mNumVariables);
+			for (int j = 0; j < stored; j++) {
+				int m = (newest - j + LBFGS_MEMORY) % LBFGS_MEMORY;
+				mAlpha[m] = mRho[m] * dot(mS[m], mDirection);
+				axpy(-mAlpha[m], mY[m], mDirection);
+			}
+			if (stored > 0) {
+				scale(dot(mS[newest], mY[newest]) / dot(mY[newest], mY[newest]), mDirection);
+			}
+			for (int j = stored - 1; j >= 0; j--) {
+				int m = (newest - j + LBFGS_MEMORY) % LBFGS_MEMORY;
+				double beta = mRho[m] * dot(mY[m], mDirection);
+				axpy(mAlpha[m] - beta, mS[m], mDirection);
+			}
+			scale(-1, mDirection);
+
+			double slope = dot(mGradient, mDirection);
+			if (slope >= 0) {
+				// not downhill; start the memory over
+				stored = 0;
+				System.arraycopy(mGradient, 0, mDirection, 0, mNumVariables);
+				scale(-1, mDirection);
+				slope = dot(mGradient, mDirection);
+			}
+			if (-slope < GRADIENT_TOLERANCE * GRADIENT_TOLERANCE) {
+				return;
+			}
+
+			// backtracking line search, first step scaled on a fresh start
+			double step = stored == 0 ? Math.min(1, 1 / Math.sqrt(dot(mDirection, mDirection))) : 1;
+			double nextValue = 0;
+			boolean accepted = false;
+			for (int k = 0; k < MAX_LINE_SEARCH_STEPS; k++) {
+				for (int i = 0; i < mNumVariables; i++) {
+					mNext[i] = mVariables[i] + step * mDirection[i];
+				}
+				nextValue = evaluate(mNext, mNextGradient);
+				if (nextValue <= value + 1E-4 * step * slope) {
+					accepted = true;
+					break;
+				}
+				step /= 2;
+			}
+			if (!accepted) {
+				return;
+			}
+
+			newest = (newest + 1) % LBFGS_MEMORY;
+			for (int i = 0; i < mNumVariables; i++) {
+				mS[newest][i] = mNext[i] - mVariables[i];
+				mY[newest][i] = mNextGradient[i] - mGradient[i];
+			}
+			double sy = dot(mS[newest], mY[newest]);
+			if (sy > 1E-12) {
+				mRho[newest] = 1 / sy;
+				stored = Math.min(stored + 1, LBFGS_MEMORY);
+			}
+			else {
+				newest = (newest - 1 + LBFGS_MEMORY) % LBFGS_MEMORY;
+			}
+
+			System.arraycopy(mNext, 0, mVariables, 0, mNumVariables);
+			System.arraycopy(mNextGradient, 0, mGradient, 0, mNumVariables);
+			value = nextValue;
+		}
+	}
+
+	private static double dot(double[] pA, double[] pB) {
+		double sum = 0;
+		for (int i = 0; i < pA.length; i++) {
+			sum += pA[i] * pB[i];
+		}
+		return sum;
+	}
+
+	private static void axpy(double pScale, double[] pX, double[] pY) {
+		for (int i = 0; i < pX.length; i++) {
+			pY[i] += pScale * pX[i];
+		}
+	}
+
+	private static void scale(double pScale, double[] pX) {
+		for (int i = 0; i < pX.length; i++) {
+			pX[i] *= pScale;
+		}
+	}
+}